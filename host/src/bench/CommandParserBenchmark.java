@@ -0,0 +1,172 @@
+package bench;
+
+import domain.command.CommandParser;
+import domain.command.base.ICommand;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+
+/**
+ * CommandParserBenchmark compares the single-pass CommandParser with the parser of the baseline, copied unchanged to
+ * bench.legacy with its command classes, on a host JVM. For each parser, it prints the time, the number of allocations
+ * and the allocated bytes per command. The commands are parsed from a char buffer, like BluetoothReceiver does, with a
+ * mix dominated by move commands as a joystick client sends them, limited to the commands the baseline knows. The
+ * legacy parser gets a String of the buffer, like it got one from readUTF(). The NXT has no escape analysis, so the
+ * benchmark should run with -XX:-DoEscapeAnalysis to count the allocations the brick would see.
+ * <p>
+ * The allocations are counted by a class histogram of all objects, reachable or not, before and after a pass, so the
+ * young generation must hold a whole pass without a collection. A pass with a collection is reported as such.
+ * <p>
+ * Usage: CommandParserBenchmark [iterations]
+ */
+public final class CommandParserBenchmark {
+  /**
+   * Default number of measured iterations over the command mix.
+   */
+  private static final int DEFAULT_ITERATIONS = 200000;
+
+  /**
+   * Number of iterations run before measuring, so the JIT compiled the parser.
+   */
+  private static final int WARMUP_ITERATIONS = 50000;
+
+  /**
+   * Number of iterations of the pass counting the allocations, small enough for the young generation.
+   */
+  private static final int COUNT_ITERATIONS = 10000;
+
+  /**
+   * The commands parsed per iteration.
+   */
+  private static final String[] COMMANDS = {
+      "MOVE|300|-20", "MOVE|310|-15", "MOVE|320|0", "move|330|15", "MOVE|340|20", "MOVE|0|0", "STATE|MANUAL",
+      "ORIENT|LEFT", "CALIBRATE|FLOOR", "MOVE|350|25", "MOVE|360|30", "STATE|IDLE",
+  };
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private CommandParserBenchmark() {}
+
+  /**
+   * Runs the benchmark and prints the results.
+   *
+   * @param args optionally the number of measured iterations
+   * @throws Exception if the class histogram cannot be taken
+   */
+  public static void main(String[] args) throws Exception {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+    char[][] commands = new char[COMMANDS.length][];
+
+    for (int i = 0; i < COMMANDS.length; i++) {
+      commands[i] = COMMANDS[i].toCharArray();
+    }
+
+    measure("single-pass", commands, iterations, false);
+    measure("legacy", commands, iterations, true);
+  }
+
+  /**
+   * Measures one parser and prints its results.
+   *
+   * @param name       the name of the parser in the output
+   * @param commands   the commands to parse
+   * @param iterations the number of measured passes over the commands
+   * @param legacy     true to measure the parser of the baseline
+   * @throws Exception if the class histogram cannot be taken
+   */
+  private static void measure(String name, char[][] commands, int iterations, boolean legacy) throws Exception {
+    run(commands, WARMUP_ITERATIONS, legacy);
+
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+    long start = System.nanoTime();
+    int parsed = run(commands, iterations, legacy);
+    long nanos = System.nanoTime() - start;
+    long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+    long count = (long)iterations * commands.length;
+
+    // the objects of taking a histogram itself, subtracted from the counted pass
+    long noiseBefore = countObjects();
+    long noise = countObjects() - noiseBefore;
+    long collections = countCollections();
+    long objectsBefore = countObjects();
+
+    run(commands, COUNT_ITERATIONS, legacy);
+
+    long objects = countObjects() - objectsBefore - noise;
+    boolean collected = countCollections() != collections;
+    double perCommand = (double)objects / ((long)COUNT_ITERATIONS * commands.length);
+
+    System.out.println(name + " parser: parsed " + parsed + " of " + count + " commands");
+    System.out.println("  time per command:        " + nanos / count + " ns");
+    System.out.println("  allocations per command: " +
+                       (collected ? "n/a, collected during the count, enlarge -Xmn" : format(perCommand)));
+    System.out.println("  bytes per command:       " + bytes / count);
+  }
+
+  /**
+   * Parses the commands the given number of times.
+   *
+   * @param commands   the commands to parse
+   * @param iterations the number of passes over the commands
+   * @param legacy     true to parse with the parser of the baseline
+   * @return the number of commands parsed successfully.
+   */
+  private static int run(char[][] commands, int iterations, boolean legacy) {
+    int parsed = 0;
+
+    for (int i = 0; i < iterations; i++) {
+      for (int j = 0; j < commands.length; j++) {
+        ICommand command = legacy ? bench.legacy.CommandParser.parse(new String(commands[j], 0, commands[j].length))
+                                  : CommandParser.parse(commands[j], 0, commands[j].length);
+
+        if (command != null) {
+          parsed++;
+        }
+      }
+    }
+
+    return parsed;
+  }
+
+  /**
+   * Returns the number of objects on the heap, including unreachable ones, from a class histogram.
+   *
+   * @return the number of objects.
+   * @throws Exception if the class histogram cannot be taken
+   */
+  private static long countObjects() throws Exception {
+    String histogram = (String)ManagementFactory.getPlatformMBeanServer().invoke(
+        new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+        new Object[] { new String[] { "-all" } }, new String[] { String[].class.getName() });
+    String total = histogram.substring(histogram.trim().lastIndexOf('\n') + 1).trim();
+
+    // "Total <instances> <bytes>"
+    return Long.parseLong(total.split("\\s+")[1]);
+  }
+
+  /**
+   * Returns the number of garbage collections so far.
+   *
+   * @return the number of collections of all collectors.
+   */
+  private static long countCollections() {
+    long collections = 0;
+
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      collections += collector.getCollectionCount();
+    }
+
+    return collections;
+  }
+
+  /**
+   * Formats a number with two decimals.
+   *
+   * @param value the number to format
+   * @return the formatted number.
+   */
+  private static String format(double value) { return String.format("%.2f", value); }
+}
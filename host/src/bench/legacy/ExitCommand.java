@@ -0,0 +1,17 @@
+package bench.legacy;
+
+import domain.command.base.ICommand;
+
+/**
+ * Command to exit the application.
+ * This command is used to terminate the program or application.
+ * It is part of the command pattern implementation for the robot's state management.
+ * Copy of the baseline command, only the package differs, see CommandParser.
+ */
+public class ExitCommand implements ICommand {
+  /**
+   * Executes the exit command.
+   * This method will typically be called to terminate the program or application.
+   */
+  public void execute() { System.exit(0); }
+}
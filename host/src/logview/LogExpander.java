@@ -0,0 +1,116 @@
+package logview;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.InputStreamReader;
+import shared.constants.LogLevelEnum;
+import shared.util.LogMessages;
+import shared.util.StringUtil;
+
+/**
+ * LogExpander expands the encoded log lines received from the robot with the LogMessages dictionary. Encoded lines
+ * have the form "LOGID|id|level|time|argument" and are written as the robot formats them locally, all other lines are
+ * written unchanged. The dictionary must be the one of the build running on the robot: the robot announces the hash of
+ * its dictionary with a line "LOGDICT|hash", and if it differs from LogMessages.HASH, the encoded lines that follow
+ * are written unchanged and a warning is printed to the standard error.
+ * <p>
+ * Usage: LogExpander [input]
+ */
+public final class LogExpander {
+  /**
+   * Prefix of an encoded log line.
+   */
+  private static final String ENCODED_PREFIX = "LOGID|";
+
+  /**
+   * Prefix of the line announcing the hash of the dictionary.
+   */
+  private static final String DICTIONARY_PREFIX = "LOGDICT|";
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private LogExpander() {}
+
+  /**
+   * Expands the given input, or the standard input, to the standard output.
+   *
+   * @param args optionally the input file
+   * @throws Exception if the input cannot be read
+   */
+  public static void main(String[] args) throws Exception {
+    BufferedReader in = new BufferedReader(args.length > 0 ? new FileReader(args[0])
+                                                           : new InputStreamReader(System.in));
+
+    try {
+      String line;
+      boolean matching = true;
+
+      while ((line = in.readLine()) != null) {
+        if (line.startsWith(DICTIONARY_PREFIX)) {
+          matching = isMatchingDictionary(line.substring(DICTIONARY_PREFIX.length()));
+        }
+
+        System.out.println(matching && line.startsWith(ENCODED_PREFIX) ? expand(line) : line);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Returns whether the announced hash is the hash of the local dictionary, and prints a warning if not.
+   *
+   * @param hash the announced hash in hexadecimal
+   * @return true if the dictionaries match.
+   */
+  private static boolean isMatchingDictionary(String hash) {
+    try {
+      if ((int)Long.parseLong(hash, 16) == LogMessages.HASH) {
+        return true;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+
+    System.err.println("dictionary " + hash + " of the robot differs from " + Integer.toHexString(LogMessages.HASH) +
+                       ", encoded lines are not expanded");
+
+    return false;
+  }
+
+  /**
+   * Expands an encoded log line.
+   *
+   * @param line the encoded line
+   * @return the expanded line, or the line itself if it cannot be expanded.
+   */
+  private static String expand(String line) {
+    String[] parts = StringUtil.split(line.substring(ENCODED_PREFIX.length()), "|", 4);
+
+    if (parts.length != 4) {
+      return line;
+    }
+
+    try {
+      int messageId = Integer.parseInt(parts[0]);
+      int level = Integer.parseInt(parts[1]);
+
+      if (messageId < 0 || messageId >= LogMessages.MESSAGES.length || level < 0 ||
+          level >= LogLevelEnum.values().length) {
+        return line;
+      }
+
+      StringBuilder expanded = new StringBuilder();
+      expanded.append(parts[2]);
+      expanded.append(" [").append(LogLevelEnum.values()[level].getLabel());
+      expanded.append("] ");
+      expanded.append(LogMessages.MESSAGES[messageId]);
+      expanded.append(parts[3]);
+
+      return expanded.toString();
+    } catch (NumberFormatException e) {
+      return line;
+    }
+  }
+}
@@ -0,0 +1,236 @@
+package replay;
+
+import domain.event.EventCodec;
+import domain.event.FlightRecorder;
+import domain.event.base.AbstractEvent;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import shared.constants.EventTypeEnum;
+import shared.constants.OrientationEnum;
+import shared.constants.RoboStateEnum;
+
+/**
+ * FlightRecordReader reads the records of a journal written by the FlightRecorder, from the oldest to the newest.
+ * next() advances to the next record, its event is only created by readEvent(), so the caller can set the clock to the
+ * recorded time first. Tick markers and snapshots have no event type, see isTick() and readSnapshot().
+ */
+public final class FlightRecordReader {
+  /**
+   * The journal file.
+   */
+  private final DataInputStream in;
+
+  /**
+   * Wall clock time in milliseconds when the recorder was started.
+   */
+  private final long startMillis;
+
+  /**
+   * Time of the oldest record in microseconds since the recorder was started.
+   */
+  private final long oldestMicros;
+
+  /**
+   * Number of records the recorder overwrote before the journal was written.
+   */
+  private final int overwrittenCount;
+
+  /**
+   * Number of journal bytes that are not read yet.
+   */
+  private int remaining;
+
+  /**
+   * The payload of the current record.
+   */
+  private final byte[] payload = new byte[EventCodec.MAX_PAYLOAD_SIZE];
+
+  /**
+   * The size of the payload of the current record.
+   */
+  private int payloadSize = 0;
+
+  /**
+   * The record type of the current record: an event type ordinal, TICK_RECORD or SNAPSHOT_RECORD.
+   */
+  private int recordType = 0;
+
+  /**
+   * The event type of the current record, null for tick markers and snapshots.
+   */
+  private EventTypeEnum type = null;
+
+  /**
+   * The time of the current record in microseconds since the recorder was started.
+   */
+  private long timeMicros = 0;
+
+  /**
+   * Indicates whether the current record is the oldest one, whose time is stored in the header.
+   */
+  private boolean oldest = true;
+
+  /**
+   * Constructor for the FlightRecordReader class. Reads the header of the journal.
+   *
+   * @param fileName the name of the journal file
+   * @throws IOException if the file cannot be read or is not a journal of a supported version
+   */
+  public FlightRecordReader(String fileName) throws IOException {
+    this.in = new DataInputStream(new FileInputStream(fileName));
+
+    if (this.in.readInt() != FlightRecorder.MAGIC) {
+      throw new IOException("not a flight record: " + fileName);
+    }
+
+    int version = this.in.readUnsignedByte();
+
+    if (version != FlightRecorder.VERSION) {
+      throw new IOException("unsupported flight record version: " + version);
+    }
+
+    this.startMillis = this.in.readLong();
+    this.oldestMicros = this.in.readLong();
+    this.overwrittenCount = this.in.readInt();
+    this.remaining = this.in.readInt();
+  }
+
+  /**
+   * Advances to the next record.
+   *
+   * @return true if there is a next record, false at the end of the journal.
+   * @throws IOException if the record cannot be read
+   */
+  public boolean next() throws IOException {
+    if (this.remaining <= 0) {
+      return false;
+    }
+
+    int length = this.in.readUnsignedByte();
+
+    if (length < FlightRecorder.MIN_HEADER_SIZE || length > this.remaining) {
+      throw new IOException("corrupt record length: " + length);
+    }
+
+    this.recordType = this.in.readUnsignedByte();
+    this.type = this.recordType < EventTypeEnum.values().length ? EventTypeEnum.values()[this.recordType] : null;
+
+    if (this.type == null && !this.isTick() && !this.isSnapshot()) {
+      throw new IOException("corrupt record type: " + this.recordType);
+    }
+
+    int headerSize = 2;
+    long zigzag = 0;
+    int b;
+
+    do {
+      b = this.in.readUnsignedByte();
+      zigzag |= (long)(b & 0x7F) << (7 * (headerSize - 2));
+      headerSize++;
+    } while ((b & 0x80) != 0 && headerSize < length);
+
+    // the delta of the oldest record refers to an overwritten record
+    this.timeMicros = this.oldest ? this.oldestMicros : this.timeMicros + ((zigzag >>> 1) ^ -(zigzag & 1));
+    this.oldest = false;
+    this.payloadSize = length - headerSize;
+
+    if ((b & 0x80) != 0 || this.payloadSize > this.payload.length) {
+      throw new IOException("corrupt record: " + length);
+    }
+
+    this.in.readFully(this.payload, 0, this.payloadSize);
+    this.remaining -= length;
+
+    return true;
+  }
+
+  /**
+   * Creates the event of the current record, timestamped with the current time of the clock.
+   *
+   * @return the event, or null if events of the type cannot be decoded.
+   * @throws IOException if the payload is corrupt
+   */
+  public AbstractEvent readEvent() throws IOException {
+    if (this.type == null) {
+      return null;
+    }
+
+    return EventCodec.decode(this.type,
+                             new DataInputStream(new ByteArrayInputStream(this.payload, 0, this.payloadSize)));
+  }
+
+  /**
+   * Creates the snapshot of the current record.
+   *
+   * @return the snapshot, or null if the current record is no snapshot.
+   * @throws IOException if the payload is corrupt
+   */
+  public FlightSnapshot readSnapshot() throws IOException {
+    if (!this.isSnapshot()) {
+      return null;
+    }
+
+    if (this.payloadSize != FlightRecorder.SNAPSHOT_SIZE) {
+      throw new IOException("corrupt snapshot size: " + this.payloadSize);
+    }
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(this.payload, 0, this.payloadSize));
+    RoboStateEnum state = RoboStateEnum.values()[in.readUnsignedByte()];
+    OrientationEnum orientation = OrientationEnum.values()[in.readUnsignedByte()];
+
+    return new FlightSnapshot(state, orientation, in.readUnsignedShort(), in.readUnsignedShort(),
+                              in.readUnsignedShort(), in.readUnsignedByte() != 0);
+  }
+
+  /**
+   * Returns the event type of the current record.
+   *
+   * @return the event type, or null for tick markers and snapshots.
+   */
+  public EventTypeEnum getType() { return this.type; }
+
+  /**
+   * Returns whether the current record marks a tick of the event loop.
+   *
+   * @return true if the controller was run at the time of the record.
+   */
+  public boolean isTick() { return this.recordType == FlightRecorder.TICK_RECORD; }
+
+  /**
+   * Returns whether the current record holds a snapshot of the controller state.
+   *
+   * @return true if the record is a snapshot.
+   */
+  public boolean isSnapshot() { return this.recordType == FlightRecorder.SNAPSHOT_RECORD; }
+
+  /**
+   * Returns the number of records the recorder overwrote before the journal was written. If it is positive, the
+   * journal does not start with the run and a replay has to start at a snapshot.
+   *
+   * @return the number of overwritten records.
+   */
+  public int getOverwrittenCount() { return this.overwrittenCount; }
+
+  /**
+   * Returns the time of the current record.
+   *
+   * @return the time in microseconds since the recorder was started.
+   */
+  public long getTimeMicros() { return this.timeMicros; }
+
+  /**
+   * Returns the wall clock time when the recorder was started.
+   *
+   * @return the time in milliseconds.
+   */
+  public long getStartMillis() { return this.startMillis; }
+
+  /**
+   * Closes the journal file.
+   *
+   * @throws IOException if the file cannot be closed
+   */
+  public void close() throws IOException { this.in.close(); }
+}
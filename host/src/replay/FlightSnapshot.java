@@ -0,0 +1,101 @@
+package replay;
+
+import shared.constants.OrientationEnum;
+import shared.constants.RoboStateEnum;
+
+/**
+ * FlightSnapshot holds a snapshot of the controller state read from a flight record, see FlightRecorder.
+ */
+public final class FlightSnapshot {
+  /**
+   * The state of the robot.
+   */
+  private final RoboStateEnum state;
+
+  /**
+   * The orientation of the robot.
+   */
+  private final OrientationEnum orientation;
+
+  /**
+   * The calibrated light value of the floor.
+   */
+  private final int floorLight;
+
+  /**
+   * The calibrated light value of the stripe.
+   */
+  private final int stripeLight;
+
+  /**
+   * The self-optimizing light value of the line edge.
+   */
+  private final int lineEdgeLight;
+
+  /**
+   * Indicates whether the robot was on the line.
+   */
+  private final boolean onLine;
+
+  /**
+   * Constructor for the FlightSnapshot class.
+   *
+   * @param state         the state of the robot
+   * @param orientation   the orientation of the robot
+   * @param floorLight    the calibrated light value of the floor
+   * @param stripeLight   the calibrated light value of the stripe
+   * @param lineEdgeLight the self-optimizing light value of the line edge
+   * @param onLine        true if the robot was on the line
+   */
+  public FlightSnapshot(RoboStateEnum state, OrientationEnum orientation, int floorLight, int stripeLight,
+                        int lineEdgeLight, boolean onLine) {
+    this.state = state;
+    this.orientation = orientation;
+    this.floorLight = floorLight;
+    this.stripeLight = stripeLight;
+    this.lineEdgeLight = lineEdgeLight;
+    this.onLine = onLine;
+  }
+
+  /**
+   * Returns the state of the robot.
+   *
+   * @return the state.
+   */
+  public RoboStateEnum getState() { return this.state; }
+
+  /**
+   * Returns the orientation of the robot.
+   *
+   * @return the orientation.
+   */
+  public OrientationEnum getOrientation() { return this.orientation; }
+
+  /**
+   * Returns the calibrated light value of the floor.
+   *
+   * @return the light value.
+   */
+  public int getFloorLight() { return this.floorLight; }
+
+  /**
+   * Returns the calibrated light value of the stripe.
+   *
+   * @return the light value.
+   */
+  public int getStripeLight() { return this.stripeLight; }
+
+  /**
+   * Returns the self-optimizing light value of the line edge.
+   *
+   * @return the light value.
+   */
+  public int getLineEdgeLight() { return this.lineEdgeLight; }
+
+  /**
+   * Returns whether the robot was on the line.
+   *
+   * @return true if the robot was on the line.
+   */
+  public boolean isOnLine() { return this.onLine; }
+}
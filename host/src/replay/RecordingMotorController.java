@@ -0,0 +1,121 @@
+package replay;
+
+import io.actuator.base.IMotorController;
+import java.io.PrintStream;
+import shared.util.Clock;
+
+/**
+ * RecordingMotorController writes every motor command to a stream instead of driving motors, one line per command:
+ * virtual time in microseconds since the start of the replay, the command and its arguments.
+ */
+public final class RecordingMotorController implements IMotorController {
+  /**
+   * The stream the motor commands are written to.
+   */
+  private final PrintStream out;
+
+  /**
+   * Virtual time in nanoseconds when the replay started.
+   */
+  private final long startNanos;
+
+  /**
+   * Number of motor commands written.
+   */
+  private int commandCount = 0;
+
+  /**
+   * The speed of the left motor set by the last command, negative if moving backward.
+   */
+  private int leftSpeed = 0;
+
+  /**
+   * The speed of the right motor set by the last command, negative if moving backward.
+   */
+  private int rightSpeed = 0;
+
+  /**
+   * Indicates whether the motor commands are only applied and not written, while a snapshot is restored.
+   */
+  private boolean muted = false;
+
+  /**
+   * Constructor for the RecordingMotorController class.
+   *
+   * @param out        the stream to write the motor commands to
+   * @param startNanos the virtual time in nanoseconds when the replay started
+   */
+  public RecordingMotorController(PrintStream out, long startNanos) {
+    if (out == null) {
+      throw new NullPointerException();
+    }
+
+    this.out = out;
+    this.startNanos = startNanos;
+  }
+
+  @Override
+  public void forward(int leftSpeed, int rightSpeed) {
+    this.leftSpeed = Math.abs(leftSpeed);
+    this.rightSpeed = Math.abs(rightSpeed);
+    this.write("FORWARD " + leftSpeed + " " + rightSpeed);
+  }
+
+  @Override
+  public void backward(int leftSpeed, int rightSpeed) {
+    this.leftSpeed = -Math.abs(leftSpeed);
+    this.rightSpeed = -Math.abs(rightSpeed);
+    this.write("BACKWARD " + leftSpeed + " " + rightSpeed);
+  }
+
+  @Override
+  public void stopMotors(boolean hardStop) {
+    this.leftSpeed = 0;
+    this.rightSpeed = 0;
+    this.write(hardStop ? "STOP" : "FLOAT");
+  }
+
+  @Override
+  public void close() {
+    this.write("CLOSE");
+  }
+
+  @Override
+  public int getLeftSpeed() {
+    return this.leftSpeed;
+  }
+
+  @Override
+  public int getRightSpeed() {
+    return this.rightSpeed;
+  }
+
+  /**
+   * Returns the number of motor commands written.
+   *
+   * @return the number of motor commands.
+   */
+  public int getCommandCount() { return this.commandCount; }
+
+  /**
+   * Stops or resumes writing the motor commands. The commands issued while a snapshot is restored were not issued by
+   * the recorded run, so they are not written.
+   *
+   * @param muted true to stop writing the motor commands
+   */
+  public void setMuted(boolean muted) { this.muted = muted; }
+
+  /**
+   * Writes a motor command, prefixed with the current virtual time, unless writing is muted.
+   *
+   * @param command the motor command and its arguments
+   */
+  private void write(String command) {
+    if (this.muted) {
+      return;
+    }
+
+    this.out.println((Clock.nanoTime() - this.startNanos) / 1000 + " " + command);
+    this.commandCount++;
+  }
+}
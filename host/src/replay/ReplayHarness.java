@@ -0,0 +1,200 @@
+package replay;
+
+import app.RoboApplication;
+import core.RoboContext;
+import core.RoboController;
+import domain.command.impl.ExitCommand;
+import domain.event.EventManager;
+import domain.event.base.AbstractEvent;
+import domain.event.impl.ButtonEvent;
+import domain.event.impl.CommandEvent;
+import domain.state.impl.AutonomousState;
+import domain.state.impl.IdleState;
+import domain.state.impl.ManualState;
+import io.connection.impl.BluetoothTransmitter;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import shared.constants.EventTypeEnum;
+import shared.util.Clock;
+import shared.util.Logger;
+
+/**
+ * ReplayHarness feeds a flight record through a real RoboController with its states and strategies on a host JVM.
+ * The clock is virtual: it jumps to the time of each record and the controller is ticked at each recorded tick of the
+ * event loop, so a replay is deterministic, reproduces the motor commands of the run and runs as fast as the host
+ * allows. Only the inputs of the run (sensor readings, commands and button presses) are replayed, all other events are
+ * produced by the controller again. The event manager is set up like on the robot, so queued events are coalesced and
+ * delivered at the recorded ticks. The resulting motor commands are written by a RecordingMotorController.
+ * <p>
+ * If the recorder overwrote the start of the run, the records before the oldest snapshot are skipped and the replay
+ * starts from the state, orientation and calibration of the snapshot. The internal state of the strategies, e.g. the
+ * PID terms, is not part of the snapshot and starts fresh.
+ * <p>
+ * Usage: ReplayHarness journal [output]
+ */
+public final class ReplayHarness {
+  /**
+   * Virtual time in nanoseconds when the replay starts. Not 0, so events are never older than the clock start.
+   */
+  private static final long START_NANOS = 1000000000L;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private ReplayHarness() {}
+
+  /**
+   * Replays the given journal.
+   *
+   * @param args the journal file and optionally the output file for the motor commands (default: standard output)
+   * @throws Exception if the journal cannot be read or the output cannot be written
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("usage: ReplayHarness journal [output]");
+      System.exit(2);
+    }
+
+    PrintStream out = args.length > 1 ? new PrintStream(new FileOutputStream(args[1])) : System.out;
+
+    Clock.setVirtualTime(START_NANOS);
+
+    EventManager eventManager = RoboApplication.createEventManager();
+    RecordingMotorController motorController = new RecordingMotorController(out, START_NANOS);
+    BluetoothTransmitter bluetoothTransmitter = new BluetoothTransmitter();
+    RoboController controller = new RoboController(eventManager, motorController, bluetoothTransmitter);
+
+    FlightRecordReader reader = new FlightRecordReader(args[0]);
+    long wallStart = System.nanoTime();
+    boolean started = reader.getOverwrittenCount() == 0;
+    int replayedCount = 0;
+    int skippedCount = 0;
+    int tickCount = 0;
+
+    try {
+      while (reader.next()) {
+        // events may be recorded after a newer event, the virtual clock does not run backward
+        Clock.setVirtualTime(Math.max(Clock.nanoTime(), START_NANOS + reader.getTimeMicros() * 1000L));
+
+        if (!started && reader.isSnapshot()) {
+          restore(controller, motorController, reader.readSnapshot());
+          System.err.println("start of the run overwritten, replay started at " + reader.getTimeMicros() + "us");
+          started = true;
+          continue;
+        }
+
+        if (started && reader.isTick()) {
+          tick(controller, bluetoothTransmitter);
+          tickCount++;
+          continue;
+        }
+
+        if (!started || reader.getType() == null || !isInput(reader.getType())) {
+          skippedCount++;
+          continue;
+        }
+
+        AbstractEvent event = reader.readEvent();
+
+        if (event == null) {
+          skippedCount++;
+          continue;
+        }
+
+        if (isExit(event)) {
+          System.err.println("exit recorded at " + reader.getTimeMicros() + "us, replay stopped");
+          break;
+        }
+
+        eventManager.dispatch(event);
+        replayedCount++;
+      }
+    } finally {
+      reader.close();
+      out.flush();
+      Logger.flush();
+    }
+
+    long wallNanos = System.nanoTime() - wallStart;
+    long virtualNanos = Clock.nanoTime() - START_NANOS;
+
+    System.err.println("replayed " + replayedCount + " events, skipped " + skippedCount + ", " + tickCount +
+                       " ticks, " + motorController.getCommandCount() + " motor commands");
+    System.err.println("virtual " + virtualNanos / 1000000L + "ms in " + wallNanos / 1000000L + "ms wall, " +
+                       (wallNanos > 0 ? virtualNanos / wallNanos : virtualNanos) + "x real-time");
+  }
+
+  /**
+   * Runs one iteration of the event loop that does not touch the hardware.
+   *
+   * @param controller           the controller to run
+   * @param bluetoothTransmitter the transmitter whose queued events are discarded
+   */
+  private static void tick(RoboController controller, BluetoothTransmitter bluetoothTransmitter) {
+    controller.getContext().getEventManager().processQueue();
+    bluetoothTransmitter.exposeEvents();
+    controller.run();
+  }
+
+  /**
+   * Restores the state, the orientation and the calibration of the snapshot. The motor commands issued by entering the
+   * state are not written, as the recorded run did not issue them at this time.
+   *
+   * @param controller      the controller to restore
+   * @param motorController the motor controller writing the motor commands
+   * @param snapshot        the snapshot to restore
+   */
+  private static void restore(RoboController controller, RecordingMotorController motorController,
+                              FlightSnapshot snapshot) {
+    RoboContext context = controller.getContext();
+
+    motorController.setMuted(true);
+
+    // restored first, the strategies read the line edge light value when they are created
+    context.getSensorValueStore().restoreSnapshot(snapshot.getFloorLight(), snapshot.getStripeLight(),
+                                                  snapshot.getLineEdgeLight(), snapshot.isOnLine());
+    context.setOrientation(snapshot.getOrientation());
+
+    switch (snapshot.getState()) {
+    case IDLE:
+      controller.setState(new IdleState());
+      break;
+    case MANUAL:
+      controller.setState(new ManualState());
+      break;
+    case AUTONOMOUS:
+      controller.setState(new AutonomousState());
+      break;
+    default:
+      // the controller starts in the calibration state
+      break;
+    }
+
+    motorController.setMuted(false);
+  }
+
+  /**
+   * Returns whether events of the given type are inputs of a run, which are replayed.
+   *
+   * @param type the event type
+   * @return true if the events are replayed, false if the controller produces them itself.
+   */
+  private static boolean isInput(EventTypeEnum type) {
+    return type == EventTypeEnum.SENSOR || type == EventTypeEnum.COMMAND || type == EventTypeEnum.MOVE_COMMAND ||
+        type == EventTypeEnum.BUTTON;
+  }
+
+  /**
+   * Returns whether the event ended the recorded run. These events stop the event loop, so they are not replayed.
+   *
+   * @param event the event to check
+   * @return true if the event ends the run.
+   */
+  private static boolean isExit(AbstractEvent event) {
+    if (event instanceof CommandEvent) {
+      return ((CommandEvent)event).getCommand() instanceof ExitCommand;
+    }
+
+    return event instanceof ButtonEvent && ButtonEvent.ESCAPE.equals(((ButtonEvent)event).getButtonId());
+  }
+}
@@ -0,0 +1,60 @@
+package lejos.nxt;
+
+/**
+ * Host stand-in for the leJOS Button class. It provides the buttons used by the application, none of them is ever
+ * pressed, as button presses are replayed from the recorded events.
+ */
+public class Button {
+  /**
+   * The orange ENTER button.
+   */
+  public static final Button ENTER = new Button(1);
+
+  /**
+   * The LEFT arrow button.
+   */
+  public static final Button LEFT = new Button(2);
+
+  /**
+   * The RIGHT arrow button.
+   */
+  public static final Button RIGHT = new Button(4);
+
+  /**
+   * The dark grey ESCAPE button.
+   */
+  public static final Button ESCAPE = new Button(8);
+
+  /**
+   * The ID of the button, same as on the brick.
+   */
+  private final int id;
+
+  /**
+   * Constructor for the Button class.
+   *
+   * @param id the ID of the button
+   */
+  private Button(int id) { this.id = id; }
+
+  /**
+   * Returns the ID of the button.
+   *
+   * @return the ID of the button.
+   */
+  public final int getId() { return this.id; }
+
+  /**
+   * Returns whether the button is pressed.
+   *
+   * @return always false.
+   */
+  public final boolean isDown() { return false; }
+
+  /**
+   * Returns whether the button is released.
+   *
+   * @return always true.
+   */
+  public final boolean isUp() { return true; }
+}
@@ -0,0 +1,25 @@
+package lejos.nxt;
+
+/**
+ * Host stand-in for the leJOS LCD class. There is no screen on the host, so all drawing calls are ignored.
+ */
+public class LCD {
+  /**
+   * Ignores the string that would be drawn at the given character position.
+   *
+   * @param str the string to draw
+   * @param x   the column
+   * @param y   the line
+   */
+  public static void drawString(String str, int x, int y) {}
+
+  /**
+   * Ignores the refresh of the screen.
+   */
+  public static void refresh() {}
+
+  /**
+   * Ignores the clearing of the screen.
+   */
+  public static void clear() {}
+}
@@ -0,0 +1,132 @@
+package lejos.util;
+
+import shared.util.Clock;
+
+/**
+ * Host stand-in for the leJOS PIDController. The brick's controller measures the cycle time with the system clock,
+ * which makes a replay depend on the speed of the host. This one follows the same integer arithmetic, but takes the
+ * cycle time from the application Clock, so a replay with a virtual clock is deterministic. Only the proportional,
+ * integral and derivative gains can be set, ramping, deadband and limits keep the brick's defaults.
+ */
+public class PIDController {
+  /**
+   * Parameter ID of the proportional gain, same value as on the brick.
+   */
+  public static final int PID_KP = 0;
+
+  /**
+   * Parameter ID of the integral gain.
+   */
+  public static final int PID_KI = 1;
+
+  /**
+   * Parameter ID of the derivative gain.
+   */
+  public static final int PID_KD = 2;
+
+  /**
+   * Upper and lower output limit, same default as on the brick.
+   */
+  private static final int LIMIT = 900;
+
+  /**
+   * The setpoint the process variable is controlled to.
+   */
+  private final int setpoint;
+
+  /**
+   * The proportional gain.
+   */
+  private float kp = 1f;
+
+  /**
+   * The integral gain.
+   */
+  private float ki = 0f;
+
+  /**
+   * The derivative gain.
+   */
+  private float kd = 0f;
+
+  /**
+   * The integral term.
+   */
+  private int integral = 0;
+
+  /**
+   * The error of the previous cycle.
+   */
+  private int previousError = 0;
+
+  /**
+   * The duration of the previous cycle in milliseconds.
+   */
+  private int dt = 0;
+
+  /**
+   * The start time of the current cycle in milliseconds, 0 before the first cycle.
+   */
+  private long cycleTime = 0;
+
+  /**
+   * Constructor for the PIDController class.
+   *
+   * @param setpoint the setpoint the process variable is controlled to
+   * @param msdelay  the minimum cycle time, ignored on the host
+   */
+  public PIDController(int setpoint, int msdelay) { this.setpoint = setpoint; }
+
+  /**
+   * Sets one of the gains.
+   *
+   * @param paramID PID_KP, PID_KI or PID_KD
+   * @param value   the gain
+   * @throws IllegalArgumentException if the parameter is not supported on the host
+   */
+  public void setPIDParam(int paramID, float value) {
+    switch (paramID) {
+    case PID_KP:
+      this.kp = value;
+      break;
+    case PID_KI:
+      this.ki = value;
+      break;
+    case PID_KD:
+      this.kd = value;
+      break;
+    default:
+      throw new IllegalArgumentException("unsupported PID parameter: " + paramID);
+    }
+  }
+
+  /**
+   * Runs one cycle of the controller. The first cycle only starts the cycle timer and returns 0, like on the brick.
+   *
+   * @param processVariable the current value of the controlled variable
+   * @return the controller output, limited to +-900.
+   */
+  public int doPID(int processVariable) {
+    if (this.cycleTime == 0) {
+      this.cycleTime = Clock.currentTimeMillis();
+      return 0;
+    }
+
+    int error = this.setpoint - processVariable;
+
+    this.integral = (int)(this.integral + this.ki * error * this.dt);
+
+    float derivative = (error - this.previousError) / (float)this.dt;
+    int output = (int)(this.kp * error + this.integral + this.kd * derivative);
+
+    output = Math.max(-LIMIT, Math.min(LIMIT, output));
+    this.previousError = error;
+
+    long now = Clock.currentTimeMillis();
+
+    this.dt = (int)(now - this.cycleTime);
+    this.cycleTime = now;
+
+    return output;
+  }
+}
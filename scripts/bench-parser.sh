@@ -0,0 +1,22 @@
+#!/bin/bash
+
+BLUE='\033[0;34m'
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+NC='\033[0m'
+
+echo -e "${BLUE}Compiling command parser benchmark...${NC}"
+mkdir -p out/host
+javac -nowarn -cp lib/nxt/classes.jar -d out/host $(find host/stubs host/src src -name '*.java')
+
+if [ $? -ne 0 ]; then
+  echo -e "${RED}Compilation failed. Exiting.${NC}"
+  exit 1
+fi
+
+echo -e "${GREEN}Compilation successful.${NC}"
+
+# the NXT has no escape analysis, so allocations are not optimized away; the young generation holds the counted pass
+java -XX:-DoEscapeAnalysis -Xms1g -Xmn768m -cp out/host:lib/nxt/classes.jar bench.CommandParserBenchmark "$@"
+
+exit $?
@@ -5,6 +5,13 @@ GREEN='\033[0;32m'
 RED='\033[0;31m'
 NC='\033[0m'
 
+./scripts/gen-log-dictionary.sh
+
+if [ $? -ne 0 ]; then
+  echo -e "${RED}Generating the log message dictionary failed. Exiting.${NC}"
+  exit 1
+fi
+
 echo -e "${BLUE}Compiling RoboApplication.java...${NC}"
 nxjc -sourcepath src -d out src/app/RoboApplication.java
 
@@ -0,0 +1,21 @@
+#!/bin/bash
+
+BLUE='\033[0;34m'
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+NC='\033[0m'
+
+echo -e "${BLUE}Compiling log expander...${NC}" >&2
+mkdir -p out/host
+javac -nowarn -cp lib/nxt/classes.jar -d out/host $(find host/stubs host/src src -name '*.java')
+
+if [ $? -ne 0 ]; then
+  echo -e "${RED}Compilation failed. Exiting.${NC}" >&2
+  exit 1
+fi
+
+echo -e "${GREEN}Compilation successful.${NC}" >&2
+
+java -cp out/host:lib/nxt/classes.jar logview.LogExpander "$@"
+
+exit $?
@@ -0,0 +1,60 @@
+#!/bin/bash
+
+BLUE='\033[0;34m'
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+NC='\033[0m'
+
+# Collects the constant messages of all Logger calls and writes them to LogMessages, so the robot can send a message
+# ID instead of the message and the host can expand it again. Run from the root of the repository.
+#
+# The messages are sorted byte-wise, which matches String.compareTo() for the UTF-8 source, so the Logger finds them
+# by binary search. Messages with escape sequences would sort differently and are left out, they are sent as text.
+
+TARGET=src/shared/util/LogMessages.java
+
+echo -e "${BLUE}Generating log message dictionary...${NC}"
+
+MESSAGES=$(grep -rhoE 'Logger\.(info|warning|error)\("([^"\\]|\\.)*"' src --include='*.java' |
+  sed -E 's/^Logger\.[a-z]+\("//; s/"$//' | grep -v '\\' | LC_ALL=C sort -u)
+
+if [ $? -ne 0 ] || [ -z "$MESSAGES" ]; then
+  echo -e "${RED}No log messages found. Exiting.${NC}"
+  exit 1
+fi
+
+HASH=$(printf '0x%08X' "$(echo "$MESSAGES" | cksum | cut -d ' ' -f 1)")
+
+{
+  echo "package shared.util;"
+  echo ""
+  echo "/**"
+  echo " * LogMessages is the dictionary of the constant messages passed to the Logger. A message is sent to the remote"
+  echo " * client as its index in MESSAGES, the client expands it with the dictionary of the same build. The robot"
+  echo " * announces HASH to the client, so the client can tell whether its dictionary matches."
+  echo " * <p>"
+  echo " * Generated by scripts/gen-log-dictionary.sh, do not edit."
+  echo " */"
+  echo "public final class LogMessages {"
+  echo "  /**"
+  echo "   * Checksum of the messages, changes with every change of the dictionary."
+  echo "   */"
+  echo "  public static final int HASH = $HASH;"
+  echo ""
+  echo "  /**"
+  echo "   * The messages, indexed by their message ID and sorted, so they can be found by binary search."
+  echo "   */"
+  echo "  public static final String[] MESSAGES = {"
+  echo "$MESSAGES" | sed -E 's/^/      "/; s/$/",/'
+  echo "  };"
+  echo ""
+  echo "  /**"
+  echo "   * Private constructor to prevent instantiation."
+  echo "   */"
+  echo "  private LogMessages() {}"
+  echo "}"
+} > "$TARGET"
+
+echo -e "${GREEN}Wrote $(echo "$MESSAGES" | wc -l) messages to $TARGET.${NC}"
+
+exit 0
@@ -0,0 +1,27 @@
+#!/bin/bash
+
+BLUE='\033[0;34m'
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+NC='\033[0m'
+
+if [ -z "$1" ]; then
+  echo -e "${RED}Usage: ./scripts/replay.sh <flight.rec> [output]${NC}"
+  exit 1
+fi
+
+echo -e "${BLUE}Compiling replay harness...${NC}"
+mkdir -p out/host
+javac -nowarn -cp lib/nxt/classes.jar -d out/host $(find host/stubs host/src src -name '*.java')
+
+if [ $? -ne 0 ]; then
+  echo -e "${RED}Compilation failed. Exiting.${NC}"
+  exit 1
+fi
+
+echo -e "${GREEN}Compilation successful.${NC}"
+echo -e "${BLUE}Replaying $1...${NC}"
+
+java -cp out/host:lib/nxt/classes.jar replay.ReplayHarness "$@"
+
+exit $?
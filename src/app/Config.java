@@ -9,6 +9,46 @@ public enum Config {
   LOOP_DELAY(0),
   SENSOR_REPORT_THRESHOLD(1),
   SYSTEM_MONITOR_LOG_DELAY(1000),
+  DISPATCH_STATS_DELAY(5000), // see RoboApplication.PROFILE_DISPATCH
+  LOG_BUFFER_CAPACITY(32),    // log records buffered until the drainer writes them
+  LOG_DRAIN_BATCH(4),         // log records the drainer writes at most per LOG_DRAIN_INTERVAL
+  LOG_DRAIN_INTERVAL(20),     // ms between two batches of the drainer, which preempts the event loop
+  EVENT_DEADLINE(1000), // staleness deadline in ms, 0 never expires
+  MOVE_COMMAND_DEADLINE(100),
+  FLIGHT_RECORDER_CAPACITY(8192), // journal size in bytes, see RoboApplication.RECORD_FLIGHT
+
+  // start remote log
+  REMOTE_LOG_RATE(5),             // lines per second on average
+  REMOTE_LOG_BURST(10),           // lines sent at once after a quiet period
+  REMOTE_LOG_SUMMARY_DELAY(2000), // ms between two "N lines dropped" summaries
+  // end remote log
+
+  // start telemetry
+  TELEMETRY_FRAME_SIZE(256),             // bytes per Bluetooth frame including its length, the rest waits a tick
+  TELEMETRY_QUEUE_CAPACITY(32),          // events per outbound buffer, the drop policy applies when full
+  SENSOR_TELEMETRY_INTERVAL(50),         // ms between two readings of a sensor sent to the remote client
+  STATE_TELEMETRY_DELAY(100),            // ms between two state samples, see RoboApplication.STATE_TELEMETRY
+  STATE_TELEMETRY_KEYFRAME_INTERVAL(20), // samples from one full state sample to the next in the binary protocol
+  TELEMETRY_SENDER_STOP_TIMEOUT(500),    // ms to wait for the sender thread on shutdown, see THREADED_TRANSMITTER
+  // end telemetry
+
+  // start command input
+  COMMAND_TICK_BUDGET(16),     // commands read per tick at most, the rest waits in the stream
+  COMMAND_TICK_TIME_BUDGET(5), // ms spent reading commands per tick at most
+  COMMAND_MAX_LENGTH(64),      // bytes per command, longer commands are skipped
+  MOVE_COMMAND_CACHE_SIZE(16), // recent moves reused by MoveCommand.valueOf(), rounded down to a power of two
+  // end command input
+
+  // start connection
+  BT_ACCEPT_TIMEOUT(1000), // ms one wait for a client lasts, the accept thread checks for shutdown in between
+  // end connection
+
+  // start event queue (see RoboApplication.QUEUED_DISPATCH)
+  EVENT_QUEUE_SAFETY_CAPACITY(8),
+  EVENT_QUEUE_CONTROL_CAPACITY(16),
+  EVENT_QUEUE_TELEMETRY_CAPACITY(8),
+  EVENT_QUEUE_TICK_BUDGET(24), // 0 delivers all queued events every tick
+  // end event queue
 
   DEFAULT_FLOOR_LIGHT(50f),
   DEFAULT_STRIPE_LIGHT(30f),
@@ -2,15 +2,21 @@ package app;
 
 import core.EventLoop;
 import core.RoboController;
+import domain.event.DispatchProfiler;
 import domain.event.EventManager;
+import domain.event.FlightRecorder;
 import io.actuator.impl.NxtMotorController;
+import io.connection.impl.BluetoothConnector;
 import io.connection.impl.BluetoothReceiver;
 import io.connection.impl.BluetoothTransmitter;
 import io.sensor.impl.LightSensorReader;
 import io.sensor.impl.UltrasonicSensorReader;
 import lejos.nxt.SensorPort;
 import lejos.util.Delay;
+import shared.constants.EventPriorityEnum;
+import shared.constants.EventTypeEnum;
 import shared.util.Logger;
+import shared.util.SystemMonitor;
 
 /**
  * Main class for the Megamen Robo Application.
@@ -19,16 +25,117 @@ import shared.util.Logger;
 public final class RoboApplication {
   public static final boolean DEBUG = true;
 
+  /**
+   * If true, events are queued in priority lanes and delivered once per tick, otherwise they are delivered
+   * synchronously. Coalescing only applies to queued events, so with synchronous delivery every sensor reading and
+   * move command of a tick reaches the controller.
+   */
+  public static final boolean QUEUED_DISPATCH = true;
+
+  /**
+   * If true, the time spent per event type and listener is recorded and streamed to the remote client.
+   */
+  public static final boolean PROFILE_DISPATCH = false;
+
+  /**
+   * If true, every dispatched event is journaled and the journal is written to flash when the event loop stops.
+   */
+  public static final boolean RECORD_FLIGHT = true;
+
+  /**
+   * If true, log lines with a constant message are sent to the remote client as the ID of the message in LogMessages
+   * and the argument, otherwise as formatted text. The remote client needs the dictionary of the same build.
+   */
+  public static final boolean ENCODE_REMOTE_LOG = false;
+
+  /**
+   * If true, the light and distance readings, the state, the orientation and the motor speeds are sampled periodically
+   * and streamed to the remote client, with the binary protocol as deltas to the last sample.
+   */
+  public static final boolean STATE_TELEMETRY = true;
+
+  /**
+   * If true, the queued telemetry is sent by a background thread with a priority below the event loop, otherwise by the
+   * event loop itself. The sender thread only runs while the event loop sleeps, so it is not started with a LOOP_DELAY
+   * of 0, and the event loop sends the events itself whenever the thread did not take them in time.
+   */
+  public static final boolean THREADED_TRANSMITTER = false;
+
+  /**
+   * Creates the event manager with the dispatch mode, the priority lanes, coalescing and staleness deadlines per event
+   * type. Also used by the replay harness, so a replay delivers the events like the recorded run.
+   *
+   * @return The new EventManager instance.
+   */
+  public static EventManager createEventManager() {
+    EventManager eventManager = QUEUED_DISPATCH ? new EventManager(getLaneCapacities()) : new EventManager();
+    eventManager.setTickBudget(Config.EVENT_QUEUE_TICK_BUDGET.getIntValue());
+
+    eventManager.setCoalescing(EventTypeEnum.SENSOR, true);
+    eventManager.setCoalescing(EventTypeEnum.MOVE_COMMAND, true);
+
+    EventTypeEnum[] eventTypes = EventTypeEnum.values();
+
+    for (int i = 0; i < eventTypes.length; i++) {
+      eventManager.setDeadline(eventTypes[i], Config.EVENT_DEADLINE.getIntValue());
+    }
+
+    eventManager.setDeadline(EventTypeEnum.MOVE_COMMAND, Config.MOVE_COMMAND_DEADLINE.getIntValue());
+    eventManager.setDeadline(EventTypeEnum.CHANGE_STATE, 0);
+
+    return eventManager;
+  }
+
+  /**
+   * Sets up the event manager with the dispatch profiler and the flight recorder, if enabled.
+   *
+   * @return The initialized EventManager instance.
+   */
+  private static EventManager setupEventManager() {
+    EventManager eventManager = createEventManager();
+
+    if (PROFILE_DISPATCH) {
+      eventManager.setProfiler(new DispatchProfiler());
+    }
+
+    if (RECORD_FLIGHT) {
+      eventManager.setRecorder(new FlightRecorder(Config.FLIGHT_RECORDER_CAPACITY.getIntValue()));
+    }
+
+    return eventManager;
+  }
+
+  /**
+   * Returns the capacity of each priority lane of the event queue.
+   *
+   * @return The capacities, indexed by the ordinal of the priority.
+   */
+  private static int[] getLaneCapacities() {
+    int[] laneCapacities = new int[EventPriorityEnum.values().length];
+
+    laneCapacities[EventPriorityEnum.SAFETY.ordinal()] = Config.EVENT_QUEUE_SAFETY_CAPACITY.getIntValue();
+    laneCapacities[EventPriorityEnum.CONTROL.ordinal()] = Config.EVENT_QUEUE_CONTROL_CAPACITY.getIntValue();
+    laneCapacities[EventPriorityEnum.TELEMETRY.ordinal()] = Config.EVENT_QUEUE_TELEMETRY_CAPACITY.getIntValue();
+
+    return laneCapacities;
+  }
+
   /**
    * Sets up the event loop and initializes the necessary parts for the robot.
    *
    * @return The initialized EventLoop instance.
    */
   private static EventLoop setupEventLoop() {
-    EventManager eventManager = new EventManager();
-    Logger.setEventManager(eventManager);
+    EventManager eventManager = setupEventManager();
+    SystemMonitor.setEventManager(eventManager);
     NxtMotorController nxtMotorController = new NxtMotorController();
     BluetoothTransmitter bluetoothTransmitter = new BluetoothTransmitter();
+    Logger.setTransmitter(bluetoothTransmitter);
+    SystemMonitor.setTransmitter(bluetoothTransmitter);
+
+    if (THREADED_TRANSMITTER) {
+      bluetoothTransmitter.startSender();
+    }
 
     RoboController roboController = new RoboController(eventManager, nxtMotorController, bluetoothTransmitter);
 
@@ -36,9 +143,13 @@ public final class RoboApplication {
     UltrasonicSensorReader ultrasonicSensorReader = new UltrasonicSensorReader(SensorPort.S4, eventManager);
 
     BluetoothReceiver bluetoothReceiver = new BluetoothReceiver(eventManager);
+    SystemMonitor.setReceiver(bluetoothReceiver);
+
+    BluetoothConnector bluetoothConnector = new BluetoothConnector(eventManager, bluetoothReceiver,
+                                                                   bluetoothTransmitter);
 
     return new EventLoop(roboController, lightSensorReader, ultrasonicSensorReader, bluetoothReceiver,
-                         bluetoothTransmitter);
+                         bluetoothTransmitter, bluetoothConnector);
   }
 
   /**
@@ -58,11 +169,13 @@ public final class RoboApplication {
 
         // wait for the event loop to finish
         Delay.msDelay(100);
+        Logger.flush();
       }
     });
 
     eventLoop.run();
 
     Logger.info("megamen out.");
+    Logger.flush();
   }
 }
\ No newline at end of file
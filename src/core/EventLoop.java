@@ -1,8 +1,12 @@
 package core;
 
 import app.Config;
+import app.RoboApplication;
+import domain.event.FlightRecorder;
+import io.connection.impl.BluetoothConnector;
 import io.connection.impl.BluetoothReceiver;
 import io.connection.impl.BluetoothTransmitter;
+import io.sensor.SensorValueStore;
 import io.sensor.impl.LightSensorReader;
 import io.sensor.impl.UltrasonicSensorReader;
 import lejos.util.Delay;
@@ -13,9 +17,11 @@ import shared.util.SystemMonitor;
  * The main event loop for the robot.
  * This class is responsible for managing the Bluetooth connection,
  * reading sensor values, and controlling the motors. The event loop
- * runs continuously until stopped, processing commands and sensor data
+ * runs continuously until stopped or the controller asks to exit, processing commands and sensor data
  * with a fixed delay between iterations. It also handles resource
- * cleanup when the loop is terminated.
+ * cleanup when the loop is terminated. The loop starts at once and runs
+ * without a link, connections are accepted and reattached in the
+ * background by the BluetoothConnector.
  */
 public final class EventLoop implements Runnable {
   /**
@@ -43,6 +49,12 @@ public final class EventLoop implements Runnable {
    */
   private final BluetoothTransmitter bluetoothTransmitter;
 
+  /**
+   * The BluetoothConnector instance that accepts the connections in the background. It attaches a new
+   * connection to the receiver and the transmitter each time the remote device connects.
+   */
+  private final BluetoothConnector bluetoothConnector;
+
   /**
    * The LightSensorReader instance that reads values from the light sensor. It is responsible for
    * checking the light sensor's value and providing it to the RoboController for processing.
@@ -69,12 +81,14 @@ public final class EventLoop implements Runnable {
    * @param lightSensorReader      The LightSensorReader instance for reading light sensor values.
    * @param ultrasonicSensorReader The UltrasonicSensorReader instance for reading ultrasonic sensor values.
    * @param bluetoothReceiver      The BluetoothReceiver instance for managing Bluetooth connections and commands.
+   * @param bluetoothTransmitter   The BluetoothTransmitter instance for sending data to the remote device.
+   * @param bluetoothConnector     The BluetoothConnector instance for accepting connections in the background.
    */
   public EventLoop(RoboController controller, LightSensorReader lightSensorReader,
                    UltrasonicSensorReader ultrasonicSensorReader, BluetoothReceiver bluetoothReceiver,
-                   BluetoothTransmitter bluetoothTransmitter) {
+                   BluetoothTransmitter bluetoothTransmitter, BluetoothConnector bluetoothConnector) {
     if (controller == null || lightSensorReader == null || ultrasonicSensorReader == null ||
-        bluetoothReceiver == null) {
+        bluetoothReceiver == null || bluetoothConnector == null) {
       throw new NullPointerException();
     }
 
@@ -83,43 +97,55 @@ public final class EventLoop implements Runnable {
     this.ultrasonicSensorReader = ultrasonicSensorReader;
     this.bluetoothReceiver = bluetoothReceiver;
     this.bluetoothTransmitter = bluetoothTransmitter;
+    this.bluetoothConnector = bluetoothConnector;
   }
 
   @Override
   public void run() {
     Logger.info("start loop");
 
-    if (!this.bluetoothReceiver.waitForConnection()) {
-      Logger.error("BT failed");
-      return;
-    }
+    this.bluetoothConnector.start();
+    this.running = true;
 
-    this.bluetoothTransmitter.setupConnection(this.bluetoothReceiver.getConnection());
+    try {
+      while (this.running) {
+        try {
+          this.lightSensorReader.checkValue();
+          this.ultrasonicSensorReader.checkValue();
 
-    Logger.info("BT connected");
-    this.running = true;
+          this.bluetoothConnector.checkConnection();
+          this.bluetoothReceiver.checkForCommands();
+          this.controller.checkForPressedButtons();
 
-    while (this.running) {
-      try {
-        this.lightSensorReader.checkValue();
-        this.ultrasonicSensorReader.checkValue();
+          this.controller.getContext().getEventManager().processQueue();
 
-        this.bluetoothReceiver.checkForCommands();
-        this.bluetoothTransmitter.exposeEvents();
+          if (this.controller.isExitRequested()) {
+            // the ESCAPE button or an EXIT command, unwinds to cleanup() so the flight record is written
+            break;
+          }
 
-        this.controller.checkForPressedButtons();
-        this.controller.run();
+          this.bluetoothTransmitter.requestExpose();
 
-        SystemMonitor.logMemoryUsage();
-        Delay.msDelay(LOOP_DELAY);
-      } catch (Exception e) {
-        Logger.error("loop error", e);
+          this.recordTick();
+          this.controller.run();
+
+          if (RoboApplication.STATE_TELEMETRY) {
+            this.controller.exposeStateTelemetry();
+          }
+
+          SystemMonitor.logMemoryUsage();
+          SystemMonitor.exposeDispatchStats();
+          Delay.msDelay(LOOP_DELAY);
+        } catch (Exception e) {
+          Logger.error("loop error", e);
+        }
       }
+    } finally {
+      // also reached on errors escaping the loop, so the flight record survives a crash
+      Logger.info("loop stopped");
+      this.cleanup();
+      Logger.info("loop cleaned");
     }
-
-    Logger.info("loop stopped");
-    this.cleanup();
-    Logger.info("loop cleaned");
   }
 
   /**
@@ -128,11 +154,16 @@ public final class EventLoop implements Runnable {
   public void stop() { this.running = false; }
 
   /**
-   * Cleans up resources used by the event loop. This includes closing the Bluetooth connection,
-   * stopping the motor controller, and closing the light sensor reader.
+   * Cleans up resources used by the event loop. This includes writing the flight record to flash,
+   * stopping the accept thread of the connector and the sender thread of the transmitter, closing the
+   * Bluetooth connection, stopping the motor controller, and closing the light sensor reader.
    */
   private void cleanup() {
+    this.flushFlightRecord();
+
     try {
+      this.bluetoothConnector.stop();
+      this.bluetoothTransmitter.stopSender();
       this.bluetoothReceiver.closeConnection();
       this.bluetoothTransmitter.closeConnection();
       this.controller.getContext().getMotorController().close();
@@ -141,4 +172,43 @@ public final class EventLoop implements Runnable {
       Logger.error("cleanup error", e);
     }
   }
+
+  /**
+   * Records a tick marker with the flight recorder, preceded by a snapshot of the controller state if one is due, so
+   * a replay runs the controller at the same times and can start after the oldest records were overwritten. Does
+   * nothing if events are not recorded.
+   */
+  private void recordTick() {
+    FlightRecorder recorder = this.controller.getContext().getEventManager().getRecorder();
+
+    if (recorder == null) {
+      return;
+    }
+
+    if (recorder.isSnapshotDue()) {
+      RoboContext context = this.controller.getContext();
+      SensorValueStore store = context.getSensorValueStore();
+
+      recorder.recordSnapshot(context.getCurrentState().getState(), context.getOrientation(),
+                              store.getFloorCalibrationLightValue(), store.getStripeCalibrationLightValue(),
+                              store.getLineEdgeLightValue(), store.isOnLine());
+    }
+
+    recorder.recordTick();
+  }
+
+  /**
+   * Writes the journal of the flight recorder to flash, if events are recorded.
+   */
+  private void flushFlightRecord() {
+    FlightRecorder recorder = this.controller.getContext().getEventManager().getRecorder();
+
+    if (recorder == null) {
+      return;
+    }
+
+    if (recorder.flush(FlightRecorder.FILE_NAME)) {
+      Logger.info("flight record saved");
+    }
+  }
 }
@@ -1,8 +1,12 @@
 package core;
 
+import app.Config;
 import domain.command.base.ICommand;
 import domain.command.impl.ExitCommand;
+import domain.command.impl.LogLevelCommand;
 import domain.command.impl.OrientationCommand;
+import domain.command.impl.ProtocolCommand;
+import domain.command.impl.SubscribeCommand;
 import domain.event.EventManager;
 import domain.event.base.AbstractEvent;
 import domain.event.base.IEventListener;
@@ -11,6 +15,7 @@ import domain.event.impl.ButtonEvent;
 import domain.event.impl.ChangeStateEvent;
 import domain.event.impl.CommandEvent;
 import domain.event.impl.SensorEvent;
+import domain.event.impl.StateTelemetryEvent;
 import domain.state.base.AbstractRoboState;
 import domain.state.impl.CalibrationState;
 import domain.strategy.base.IDrivingStrategy;
@@ -18,7 +23,11 @@ import io.actuator.base.IMotorController;
 import io.connection.impl.BluetoothTransmitter;
 import io.sensor.SensorValueStore;
 import lejos.nxt.Button;
+import shared.constants.LogLevelEnum;
 import shared.constants.OrientationEnum;
+import shared.constants.TelemetryProtocolEnum;
+import shared.constants.TelemetryTopicEnum;
+import shared.util.Clock;
 import shared.util.Logger;
 
 /**
@@ -26,11 +35,31 @@ import shared.util.Logger;
  * the robot's driving strategy, using RoboContext to store and access state.
  */
 public final class RoboController implements IEventListener {
+  /**
+   * The delay in milliseconds between two state telemetry samples.
+   */
+  private static final int STATE_TELEMETRY_DELAY = Config.STATE_TELEMETRY_DELAY.getIntValue();
+
   /**
    * The context containing all state data for the robot.
    */
   private final RoboContext context;
 
+  /**
+   * The reused event carrying the state telemetry samples.
+   */
+  private final StateTelemetryEvent stateTelemetryEvent = new StateTelemetryEvent(true);
+
+  /**
+   * The last time the state was sampled.
+   */
+  private long lastStateTelemetryTime = 0;
+
+  /**
+   * A flag indicating whether the ESCAPE button or an EXIT command asked the event loop to stop.
+   */
+  private volatile boolean exitRequested = false;
+
   /**
    * Constructor for the RoboController class.
    *
@@ -64,6 +93,37 @@ public final class RoboController implements IEventListener {
     }
   }
 
+  /**
+   * Samples the light and distance readings, the state, the orientation and the motor speeds and queues the sample for
+   * the remote client, at most once per STATE_TELEMETRY_DELAY. The sample is not dispatched, as no listener needs it.
+   * Nothing is sampled while the remote client is not subscribed to the TELEMETRY topic.
+   */
+  public void exposeStateTelemetry() {
+    BluetoothTransmitter transmitter = this.context.getBluetoothTransmitter();
+
+    if (transmitter == null || !transmitter.isSubscribed(TelemetryTopicEnum.TELEMETRY)) {
+      return;
+    }
+
+    long now = Clock.currentTimeMillis();
+
+    if (now - this.lastStateTelemetryTime < STATE_TELEMETRY_DELAY) {
+      return;
+    }
+
+    this.lastStateTelemetryTime = now;
+
+    SensorValueStore sensorValueStore = this.context.getSensorValueStore();
+    AbstractRoboState state = this.context.getCurrentState();
+    IMotorController motorController = this.context.getMotorController();
+
+    this.stateTelemetryEvent.update(sensorValueStore.getLastLightSensorValue(),
+                                    sensorValueStore.getLastDistanceSensorValue(),
+                                    state != null ? state.getState() : null, this.context.getOrientation(),
+                                    motorController.getLeftSpeed(), motorController.getRightSpeed());
+    transmitter.addExposableEvent(this.stateTelemetryEvent);
+  }
+
   /**
    * This method is called to check for pressed buttons. It checks if the ENTER or ESCAPE button
    * is pressed and dispatches the corresponding event.
@@ -72,17 +132,17 @@ public final class RoboController implements IEventListener {
     EventManager eventManager = this.context.getEventManager();
 
     if (Button.ENTER.isDown()) {
-      eventManager.dispatch(new ButtonEvent(Button.ENTER.toString()));
+      eventManager.dispatch(new ButtonEvent(ButtonEvent.ENTER));
     }
 
     if (Button.ESCAPE.isDown()) {
-      eventManager.dispatch(new ButtonEvent(Button.ESCAPE.toString()));
+      eventManager.dispatch(new ButtonEvent(ButtonEvent.ESCAPE));
     }
   }
 
   /**
    * This method is called to handle incoming events. It dispatches the event to the
-   * current state and handles any exceptions that occur.
+   * current state and handles any exceptions that occur. Stale events are already dropped by the event manager.
    *
    * @param event The event to handle.
    */
@@ -92,19 +152,6 @@ public final class RoboController implements IEventListener {
       throw new IllegalArgumentException("Event cannot be null");
     }
 
-    if (event.getTimestamp() < 0) {
-      Logger.warning("event timestamp invalid");
-      return;
-    }
-
-    long currentTime = System.currentTimeMillis();
-    long timeDifference = Math.abs(currentTime - event.getTimestamp());
-
-    if (timeDifference > 1000) {
-      Logger.warning("ignore old event");
-      return;
-    }
-
     if (event instanceof ButtonEvent) {
       this.handleButtonEvent((ButtonEvent)event);
     }
@@ -141,8 +188,8 @@ public final class RoboController implements IEventListener {
       return;
     }
 
-    if (buttonId.equals(Button.ESCAPE.toString())) {
-      System.exit(0);
+    if (buttonId.equals(ButtonEvent.ESCAPE)) {
+      this.exitRequested = true;
     }
   }
 
@@ -162,8 +209,30 @@ public final class RoboController implements IEventListener {
       this.handleOrientationCommand((OrientationCommand)command);
     }
 
+    if (command instanceof LogLevelCommand) {
+      LogLevelEnum level = ((LogLevelCommand)command).getLevel();
+
+      Logger.setRemoteLevel(level);
+      Logger.info("remote log level set to: ", level);
+    }
+
+    if (command instanceof ProtocolCommand) {
+      TelemetryProtocolEnum protocol = ((ProtocolCommand)command).getProtocol();
+
+      this.context.getBluetoothTransmitter().setProtocol(protocol);
+      Logger.info("telemetry protocol set to: ", protocol);
+      Logger.announceDictionary();
+    }
+
+    if (command instanceof SubscribeCommand) {
+      SubscribeCommand subscription = (SubscribeCommand)command;
+
+      this.context.getBluetoothTransmitter().setSubscription(subscription.getTopic(), subscription.getMaxRate());
+      Logger.info("telemetry rate set to: ", subscription.getMaxRate());
+    }
+
     if (command instanceof ExitCommand) {
-      ((ExitCommand)command).execute();
+      this.exitRequested = true;
     }
   }
 
@@ -190,7 +259,7 @@ public final class RoboController implements IEventListener {
     }
 
     this.context.setOrientation(orientation);
-    Logger.info("orientation set to: " + orientation);
+    Logger.info("orientation set to: ", orientation);
   }
 
   /**
@@ -237,7 +306,7 @@ public final class RoboController implements IEventListener {
       currentStrategy.deactivate(this);
     }
 
-    Logger.info("new strategy: " + (strategy != null ? strategy.getClass() : "null"));
+    Logger.info("new strategy: ", strategy != null ? strategy.getClass() : null);
     this.context.setCurrentDrivingStrategy(strategy);
 
     if (strategy != null) {
@@ -245,6 +314,14 @@ public final class RoboController implements IEventListener {
     }
   }
 
+  /**
+   * Returns whether the ESCAPE button or an EXIT command asked to exit. The event loop then stops and cleans up,
+   * instead of the application exiting from within an event handler.
+   *
+   * @return true if the event loop should stop.
+   */
+  public boolean isExitRequested() { return this.exitRequested; }
+
   /**
    * This method is called to get the current driving strategy.
    *
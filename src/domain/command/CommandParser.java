@@ -3,17 +3,93 @@ package domain.command;
 import domain.command.base.ICommand;
 import domain.command.impl.*;
 import shared.constants.CalibrationStepEnum;
+import shared.constants.LogLevelEnum;
 import shared.constants.OrientationEnum;
 import shared.constants.RoboStateEnum;
+import shared.constants.TelemetryProtocolEnum;
+import shared.constants.TelemetryTopicEnum;
 import shared.util.Logger;
-import shared.util.StringUtil;
 
 /**
  * CommandParser is responsible for parsing command strings into ICommand objects.
  * It recognizes various commands such as move commands, state switch commands, and calibration commands.
  * The command strings should follow a specific format to be correctly parsed.
+ * <p>
+ * A command is a keyword followed by up to two arguments, separated by '|', e.g. "MOVE|300|-20". Keywords and
+ * arguments are case-insensitive and surrounding whitespace is ignored. The command is scanned once: the field bounds
+ * are recorded in place, the keyword is looked up in a table indexed by its first letter, and enum names and integers
+ * are matched directly in the input. No strings are created, except for the warning of an invalid command.
  */
 public class CommandParser {
+  /**
+   * Maximum number of fields of a command, the keyword included.
+   */
+  private static final int MAX_FIELDS = 3;
+
+  private static final int KEYWORD_EXIT = 0;        // EXIT
+  private static final int KEYWORD_STATE = 1;       // STATE|state
+  private static final int KEYWORD_MOVE = 2;        // MOVE|speed|turnAngle
+  private static final int KEYWORD_CALIBRATE = 3;   // CALIBRATE|step
+  private static final int KEYWORD_ORIENT = 4;      // ORIENT|orientation
+  private static final int KEYWORD_LOG = 5;         // LOG|level
+  private static final int KEYWORD_PROTOCOL = 6;    // PROTOCOL|protocol
+  private static final int KEYWORD_SUBSCRIBE = 7;   // SUBSCRIBE|topic or SUBSCRIBE|topic|rate
+  private static final int KEYWORD_UNSUBSCRIBE = 8; // UNSUBSCRIBE|topic
+
+  /**
+   * The keywords, indexed by the KEYWORD constants.
+   */
+  private static final String[] KEYWORDS = {
+      "EXIT", "STATE", "MOVE", "CALIBRATE", "ORIENT", "LOG", "PROTOCOL", "SUBSCRIBE", "UNSUBSCRIBE",
+  };
+
+  /**
+   * The KEYWORD constants of the keywords starting with a letter, indexed by the letter - 'A'.
+   */
+  private static final int[][] KEYWORD_TABLE = new int['Z' - 'A' + 1][];
+
+  /**
+   * Topic argument of a subscription command that stands for all topics.
+   */
+  private static final String ALL_TOPICS = "ALL";
+
+  // enum values, cached to avoid copying the values array on every parsed command
+  private static final RoboStateEnum[] ROBO_STATES = RoboStateEnum.values();
+  private static final CalibrationStepEnum[] CALIBRATION_STEPS = CalibrationStepEnum.values();
+  private static final OrientationEnum[] ORIENTATIONS = OrientationEnum.values();
+  private static final LogLevelEnum[] LOG_LEVELS = LogLevelEnum.values();
+  private static final TelemetryProtocolEnum[] PROTOCOLS = TelemetryProtocolEnum.values();
+  private static final TelemetryTopicEnum[] TOPICS = TelemetryTopicEnum.values();
+
+  /**
+   * Index of the first character of each field of the command being parsed. Guarded by the class lock.
+   */
+  private static final int[] fieldStarts = new int[MAX_FIELDS];
+
+  /**
+   * Index after the last character of each field of the command being parsed. Guarded by the class lock.
+   */
+  private static final int[] fieldEnds = new int[MAX_FIELDS];
+
+  static {
+    int[] counts = new int[KEYWORD_TABLE.length];
+
+    for (int i = 0; i < KEYWORDS.length; i++) {
+      counts[KEYWORDS[i].charAt(0) - 'A']++;
+    }
+
+    for (int i = 0; i < KEYWORD_TABLE.length; i++) {
+      KEYWORD_TABLE[i] = new int[counts[i]];
+      counts[i] = 0;
+    }
+
+    for (int i = 0; i < KEYWORDS.length; i++) {
+      int letter = KEYWORDS[i].charAt(0) - 'A';
+
+      KEYWORD_TABLE[letter][counts[letter]++] = i;
+    }
+  }
+
   /**
    * Parses a command string and returns the corresponding ICommand object.
    * It recognizes move commands (FORWARD, BACKWARD, LEFT, RIGHT, STOP) and state switch commands (IDLE, AUTONOMOUS,
@@ -27,164 +103,383 @@ public class CommandParser {
       return null;
     }
 
-    String command = commandString.trim().toUpperCase();
+    return parse(commandString.toCharArray(), 0, commandString.length());
+  }
 
-    if (command.equals("EXIT")) {
-      return new ExitCommand();
+  /**
+   * Parses a command from the given characters and returns the corresponding ICommand object. The characters are not
+   * copied, so a caller reading commands into a reused buffer parses them without allocating anything but the command.
+   *
+   * @param chars  The buffer holding the command.
+   * @param offset The index of the first character of the command.
+   * @param length The number of characters of the command.
+   * @return The corresponding ICommand object or null if the command is not recognized.
+   */
+  public static synchronized ICommand parse(char[] chars, int offset, int length) {
+    if (chars == null || length <= 0) {
+      return null;
     }
 
-    // switch state commands
-    ICommand result;
-    result = parseStateCommand(command);
-    if (result != null) {
-      return result;
-    }
+    int fieldCount = split(chars, offset, offset + length);
+    int keyword = fieldCount <= MAX_FIELDS ? findKeyword(chars, fieldStarts[0], fieldEnds[0]) : -1;
+    ICommand command = keyword >= 0 ? parseFields(keyword, chars, fieldCount) : null;
 
-    // move commands
-    result = parseMoveCommand(command);
-    if (result != null) {
-      return result;
+    if (command == null) {
+      Logger.warning("unknown command: ", new String(chars, offset, length));
     }
 
-    // calibration command
-    result = parseCalibrationCommand(command);
-    if (result != null) {
-      return result;
-    }
+    return command;
+  }
 
-    result = parseOrientationCommand(command);
-    if (result != null) {
-      return result;
+  /**
+   * Parses the arguments of a command with the given keyword. Must be called while holding the class lock.
+   *
+   * @param keyword    The KEYWORD constant of the command.
+   * @param chars      The buffer holding the command.
+   * @param fieldCount The number of fields of the command.
+   * @return The corresponding ICommand object or null if the arguments are invalid.
+   */
+  private static ICommand parseFields(int keyword, char[] chars, int fieldCount) {
+    switch (keyword) {
+    case KEYWORD_EXIT:
+      return fieldCount == 1 ? ExitCommand.INSTANCE : null;
+    case KEYWORD_STATE:
+      return fieldCount == 2 ? parseStateCommand(chars) : null;
+    case KEYWORD_MOVE:
+      return fieldCount == 3 ? parseMoveCommand(chars) : null;
+    case KEYWORD_CALIBRATE:
+      return fieldCount == 2 ? parseCalibrationCommand(chars) : null;
+    case KEYWORD_ORIENT:
+      return fieldCount == 2 ? parseOrientationCommand(chars) : null;
+    case KEYWORD_LOG:
+      return fieldCount == 2 ? parseLogLevelCommand(chars) : null;
+    case KEYWORD_PROTOCOL:
+      return fieldCount == 2 ? parseProtocolCommand(chars) : null;
+    case KEYWORD_SUBSCRIBE:
+      return fieldCount >= 2 ? parseSubscribeCommand(chars, fieldCount, true) : null;
+    case KEYWORD_UNSUBSCRIBE:
+      return fieldCount == 2 ? parseSubscribeCommand(chars, fieldCount, false) : null;
+    default:
+      return null;
     }
+  }
+
+  /**
+   * Parses an orientation command. The command should be in the format "ORIENT|orientation".
+   *
+   * @param chars The buffer holding the command.
+   * @return The corresponding OrientationCommand object or null if the orientation is unknown.
+   */
+  private static ICommand parseOrientationCommand(char[] chars) {
+    int index = findName(ORIENTATIONS, chars, fieldStarts[1], fieldEnds[1]);
 
-    Logger.warning("unknown command: " + command);
+    if (index < 0) {
+      Logger.warning("unknown orientation in command: ", fieldString(chars, 1));
+      return null;
+    }
 
-    return null;
+    return OrientationCommand.valueOf(ORIENTATIONS[index]);
   }
 
-  private static ICommand parseOrientationCommand(String command) {
-    if (command == null || command.isEmpty()) {
+  /**
+   * Parses a log level command. The command should be in the format "LOG|level".
+   *
+   * @param chars The buffer holding the command.
+   * @return The corresponding LogLevelCommand object or null if the level is unknown.
+   */
+  private static ICommand parseLogLevelCommand(char[] chars) {
+    int index = findName(LOG_LEVELS, chars, fieldStarts[1], fieldEnds[1]);
+
+    if (index < 0) {
+      Logger.warning("unknown log level in command: ", fieldString(chars, 1));
       return null;
     }
 
-    String[] parts = StringUtil.split(command, "|");
+    return LogLevelCommand.valueOf(LOG_LEVELS[index]);
+  }
+
+  /**
+   * Parses a protocol command. The command should be in the format "PROTOCOL|protocol".
+   *
+   * @param chars The buffer holding the command.
+   * @return The corresponding ProtocolCommand object or null if the protocol is unknown.
+   */
+  private static ICommand parseProtocolCommand(char[] chars) {
+    int index = findName(PROTOCOLS, chars, fieldStarts[1], fieldEnds[1]);
 
-    if (parts.length != 2 || !parts[0].trim().equals("ORIENT")) {
+    if (index < 0) {
+      Logger.warning("unknown protocol in command: ", fieldString(chars, 1));
       return null;
     }
 
-    String orientationString = parts[1].trim();
+    return ProtocolCommand.valueOf(PROTOCOLS[index]);
+  }
+
+  /**
+   * Parses a subscription command. The command should be in the format "SUBSCRIBE|topic", "SUBSCRIBE|topic|rate" or
+   * "UNSUBSCRIBE|topic", where the topic ALL stands for all topics and the rate is the maximum number of messages per
+   * second.
+   *
+   * @param chars      The buffer holding the command.
+   * @param fieldCount The number of fields of the command.
+   * @param subscribe  true for SUBSCRIBE, false for UNSUBSCRIBE.
+   * @return The corresponding SubscribeCommand object or null if the topic or the rate is invalid.
+   */
+  private static ICommand parseSubscribeCommand(char[] chars, int fieldCount, boolean subscribe) {
+    TelemetryTopicEnum topic = null;
+
+    if (!matches(ALL_TOPICS, chars, fieldStarts[1], fieldEnds[1])) {
+      int index = findName(TOPICS, chars, fieldStarts[1], fieldEnds[1]);
+
+      if (index < 0) {
+        Logger.warning("invalid subscription: ", fieldString(chars, 1));
+        return null;
+      }
+
+      topic = TOPICS[index];
+    }
+
+    if (!subscribe) {
+      return new SubscribeCommand(topic, SubscribeCommand.UNSUBSCRIBED);
+    }
+
     try {
-      return new OrientationCommand(OrientationEnum.valueOf(orientationString));
+      int rate = fieldCount == 3 ? parseInt(chars, fieldStarts[2], fieldEnds[2]) : SubscribeCommand.UNLIMITED;
+
+      return new SubscribeCommand(topic, Math.min(rate, SubscribeCommand.UNLIMITED));
     } catch (IllegalArgumentException e) {
-      Logger.warning("unknown orientation in command: " + command);
+      // also thrown for rates that are no number
+      Logger.warning("invalid subscription: ", fieldString(chars, 2));
       return null;
     }
   }
 
   /**
-   * Parses a calibration command string and returns the corresponding CalibrationCommand object.
-   * The command should be in the format "CALIBRATE(step)".
+   * Parses a calibration command. The command should be in the format "CALIBRATE|step".
    *
-   * @param command The command string to parse.
-   * @return The corresponding CalibrationCommand object or null if the command is not recognized.
+   * @param chars The buffer holding the command.
+   * @return The corresponding CalibrationCommand object or null if the step is unknown.
    */
-  private static ICommand parseCalibrationCommand(String command) {
-    if (command == null || command.isEmpty()) {
-      return null;
-    }
+  private static ICommand parseCalibrationCommand(char[] chars) {
+    int index = findName(CALIBRATION_STEPS, chars, fieldStarts[1], fieldEnds[1]);
 
-    String[] parts = StringUtil.split(command, "|");
-
-    if (parts.length != 2 || !parts[0].trim().equals("CALIBRATE")) {
+    if (index < 0) {
+      Logger.warning("unknown calibration step in command: ", fieldString(chars, 1));
       return null;
     }
 
-    String stepString = parts[1].trim();
+    return CalibrationCommand.valueOf(CALIBRATION_STEPS[index]);
+  }
 
+  /**
+   * Parses a move command. The command should be in the format "MOVE|speed|turnAngle".
+   *
+   * @param chars The buffer holding the command.
+   * @return The corresponding MoveCommand object or null if the values are invalid.
+   */
+  private static ICommand parseMoveCommand(char[] chars) {
     try {
-      return new CalibrationCommand(CalibrationStepEnum.valueOf(stepString));
+      int speed = parseInt(chars, fieldStarts[1], fieldEnds[1]);
+      int turnAngle = parseInt(chars, fieldStarts[2], fieldEnds[2]);
+
+      return MoveCommand.valueOf(speed, turnAngle);
+    } catch (NumberFormatException e) {
+      Logger.warning("invalid command value: ", fieldString(chars, 1));
+      return null;
     } catch (IllegalArgumentException e) {
-      Logger.warning("unknown calibration step in command: " + command);
+      Logger.warning("invalid command param: ", fieldString(chars, 1));
       return null;
     }
   }
 
   /**
-   * Parses a move command string and returns the corresponding MoveCommand object.
-   * The command should be in the format "MOVE(speed, turnAngle)".
+   * Parses a state switch command. The command should be in the format "STATE|state", where the state is IDLE,
+   * AUTONOMOUS or MANUAL.
    *
-   * @param command The command string to parse.
-   * @return The corresponding MoveCommand object or null if the command is not recognized.
+   * @param chars The buffer holding the command.
+   * @return The corresponding SwitchStateCommand object or null if the state is unknown or cannot be switched to.
    */
-  private static ICommand parseMoveCommand(String command) {
-    if (command == null || command.isEmpty()) {
+  private static ICommand parseStateCommand(char[] chars) {
+    int index = findName(ROBO_STATES, chars, fieldStarts[1], fieldEnds[1]);
+
+    if (index < 0 || ROBO_STATES[index] == RoboStateEnum.CALIBRATION) {
+      Logger.warning("unknown state in command: ", fieldString(chars, 1));
       return null;
     }
 
-    String[] parts = StringUtil.split(command, "|");
+    return SwitchStateCommand.valueOf(ROBO_STATES[index]);
+  }
 
-    if (parts.length != 3) {
-      return null;
+  /**
+   * Records the bounds of the fields of the command in fieldStarts and fieldEnds, without surrounding whitespace.
+   * Must be called while holding the class lock.
+   *
+   * @param chars The buffer holding the command.
+   * @param start The index of the first character of the command.
+   * @param end   The index after the last character of the command.
+   * @return The number of fields, MAX_FIELDS + 1 if there are more than MAX_FIELDS.
+   */
+  private static int split(char[] chars, int start, int end) {
+    int count = 0;
+    int fieldStart = start;
+
+    for (int i = start; i <= end; i++) {
+      if (i < end && chars[i] != '|') {
+        continue;
+      }
+
+      if (count == MAX_FIELDS) {
+        return MAX_FIELDS + 1;
+      }
+
+      int fieldEnd = i;
+
+      while (fieldStart < fieldEnd && chars[fieldStart] <= ' ') {
+        fieldStart++;
+      }
+
+      while (fieldEnd > fieldStart && chars[fieldEnd - 1] <= ' ') {
+        fieldEnd--;
+      }
+
+      fieldStarts[count] = fieldStart;
+      fieldEnds[count] = fieldEnd;
+      count++;
+      fieldStart = i + 1;
     }
 
-    String cmd = parts[0].trim();
-    if (!cmd.equals("MOVE")) {
-      return null;
+    return count;
+  }
+
+  /**
+   * Looks up the keyword in the given range in the keyword table.
+   *
+   * @param chars The buffer holding the keyword.
+   * @param start The index of the first character of the keyword.
+   * @param end   The index after the last character of the keyword.
+   * @return The KEYWORD constant, or -1 if the keyword is unknown.
+   */
+  private static int findKeyword(char[] chars, int start, int end) {
+    if (start == end) {
+      return -1;
     }
 
-    try {
-      String speedString = parts[1].trim();
-      String turnAngleString = parts[2].trim();
+    int letter = toUpperCase(chars[start]) - 'A';
 
-      int speed = Integer.parseInt(speedString);
-      int turnAngle = Integer.parseInt(turnAngleString);
+    if (letter < 0 || letter >= KEYWORD_TABLE.length) {
+      return -1;
+    }
 
-      return new MoveCommand(speed, turnAngle);
-    } catch (NumberFormatException e) {
-      Logger.warning("invalid command value: " + command);
-      return null;
-    } catch (IllegalArgumentException e) {
-      Logger.warning("invalid command param: " + command);
-      return null;
+    int[] keywords = KEYWORD_TABLE[letter];
+
+    for (int i = 0; i < keywords.length; i++) {
+      if (matches(KEYWORDS[keywords[i]], chars, start, end)) {
+        return keywords[i];
+      }
     }
+
+    return -1;
   }
 
   /**
-   * Parses an orientation command string and returns the corresponding OrientationCommand object.
-   * The command should be in the format "ORIENT(angle)".
+   * Returns the index of the enum constant whose name is in the given range, ignoring the case.
    *
-   * @param command The command string to parse.
-   * @return The corresponding OrientationCommand object or null if the command is not recognized.
+   * @param values The constants to search.
+   * @param chars  The buffer holding the name.
+   * @param start  The index of the first character of the name.
+   * @param end    The index after the last character of the name.
+   * @return The index in the values, or -1 if no constant has the name.
    */
-  private static ICommand parseStateCommand(String command) {
-    if (command == null || command.isEmpty()) {
-      return null;
+  private static int findName(Enum<?>[] values, char[] chars, int start, int end) {
+    for (int i = 0; i < values.length; i++) {
+      if (matches(values[i].name(), chars, start, end)) {
+        return i;
+      }
     }
 
-    String[] parts = StringUtil.split(command, "|");
+    return -1;
+  }
 
-    if (parts.length != 2) {
-      return null;
+  /**
+   * Returns whether the given range holds the upper case word, ignoring the case of the range.
+   *
+   * @param word  The upper case word.
+   * @param chars The buffer to compare.
+   * @param start The index of the first character to compare.
+   * @param end   The index after the last character to compare.
+   * @return true if the range holds the word.
+   */
+  private static boolean matches(String word, char[] chars, int start, int end) {
+    if (end - start != word.length()) {
+      return false;
     }
 
-    String cmd = parts[0].trim();
-    if (!cmd.equals("STATE")) {
-      return null;
+    for (int i = start; i < end; i++) {
+      if (toUpperCase(chars[i]) != word.charAt(i - start)) {
+        return false;
+      }
     }
 
-    String stateString = parts[1].trim();
+    return true;
+  }
 
-    switch (stateString) {
-    case "IDLE":
-      return new SwitchStateCommand(RoboStateEnum.IDLE);
-    case "AUTONOMOUS":
-      return new SwitchStateCommand(RoboStateEnum.AUTONOMOUS);
-    case "MANUAL":
-      return new SwitchStateCommand(RoboStateEnum.MANUAL);
-    default:
-      Logger.warning("unknown state in command: " + command);
-      return null;
+  /**
+   * Parses the decimal integer in the given range, with an optional sign.
+   *
+   * @param chars The buffer holding the integer.
+   * @param start The index of the first character of the integer.
+   * @param end   The index after the last character of the integer.
+   * @return The integer.
+   * @throws NumberFormatException if the range is no integer or out of the int range
+   */
+  private static int parseInt(char[] chars, int start, int end) {
+    boolean negative = start < end && chars[start] == '-';
+    int i = negative || (start < end && chars[start] == '+') ? start + 1 : start;
+
+    if (i == end) {
+      throw new NumberFormatException();
+    }
+
+    long value = 0;
+
+    for (; i < end; i++) {
+      int digit = chars[i] - '0';
+
+      if (digit < 0 || digit > 9) {
+        throw new NumberFormatException();
+      }
+
+      value = value * 10 + digit;
+
+      if (value > (long)Integer.MAX_VALUE + 1) {
+        throw new NumberFormatException();
+      }
     }
+
+    if (!negative && value > Integer.MAX_VALUE) {
+      throw new NumberFormatException();
+    }
+
+    return (int)(negative ? -value : value);
+  }
+
+  /**
+   * Converts a lower case ASCII letter to upper case, other characters are returned unchanged.
+   *
+   * @param c The character to convert.
+   * @return The upper case character.
+   */
+  private static char toUpperCase(char c) { return c >= 'a' && c <= 'z' ? (char)(c - 'a' + 'A') : c; }
+
+  /**
+   * Returns the field of the command being parsed as a string, for a warning. Must be called while holding the class
+   * lock.
+   *
+   * @param chars The buffer holding the command.
+   * @param field The index of the field.
+   * @return The field.
+   */
+  private static String fieldString(char[] chars, int field) {
+    return new String(chars, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
   }
 }
@@ -3,5 +3,7 @@ package domain.command.base;
 /**
  * This interface represents a command in the system.
  * That will be used as content in a CommandEvent
+ * Commands are immutable, so the parsers hand out shared instances (see the valueOf() methods) instead of allocating
+ * a command per message.
  */
 public interface ICommand {}
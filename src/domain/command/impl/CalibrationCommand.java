@@ -14,13 +14,26 @@ public class CalibrationCommand implements ICommand {
    */
   private final CalibrationStepEnum step;
 
+  /**
+   * The shared instances, indexed by the ordinal of the calibration step.
+   */
+  private static final CalibrationCommand[] INSTANCES = new CalibrationCommand[CalibrationStepEnum.values().length];
+
+  static {
+    CalibrationStepEnum[] values = CalibrationStepEnum.values();
+
+    for (int i = 0; i < values.length; i++) {
+      INSTANCES[i] = new CalibrationCommand(values[i]);
+    }
+  }
+
   /**
    * Constructor for the CalibrationCommand class.
    *
    * @param step The calibration step to be executed.
    * @throws NullPointerException if a step is null.
    */
-  public CalibrationCommand(CalibrationStepEnum step) {
+  private CalibrationCommand(CalibrationStepEnum step) {
     if (step == null) {
       throw new NullPointerException();
     }
@@ -28,6 +41,15 @@ public class CalibrationCommand implements ICommand {
     this.step = step;
   }
 
+  /**
+   * Returns the shared instance for the given calibration step.
+   *
+   * @param step The calibration step to be executed.
+   * @return The command.
+   * @throws NullPointerException if the calibration step is null.
+   */
+  public static CalibrationCommand valueOf(CalibrationStepEnum step) { return INSTANCES[step.ordinal()]; }
+
   /**
    * Returns the calibration step associated with this command.
    *
@@ -6,11 +6,17 @@ import domain.command.base.ICommand;
  * Command to exit the application.
  * This command is used to terminate the program or application.
  * It is part of the command pattern implementation for the robot's state management.
+ * RoboController handles it by stopping the event loop, which writes the flight record and releases the motors,
+ * sensors and connection before main() returns.
  */
 public class ExitCommand implements ICommand {
   /**
-   * Executes the exit command.
-   * This method will typically be called to terminate the program or application.
+   * The shared instance.
    */
-  public void execute() { System.exit(0); }
+  public static final ExitCommand INSTANCE = new ExitCommand();
+
+  /**
+   * Private constructor, use INSTANCE.
+   */
+  private ExitCommand() {}
 }
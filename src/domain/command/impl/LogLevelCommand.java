@@ -0,0 +1,58 @@
+package domain.command.impl;
+
+import domain.command.base.ICommand;
+import shared.constants.LogLevelEnum;
+
+/**
+ * LogLevelCommand represents a command to change the lowest level of the log lines sent to the remote client.
+ * It is used to quiet the log stream on a slow link or to see more while debugging.
+ */
+public class LogLevelCommand implements ICommand {
+  /**
+   * The minimum level of the log lines sent to the remote client.
+   */
+  private final LogLevelEnum level;
+
+  /**
+   * The shared instances, indexed by the ordinal of the level.
+   */
+  private static final LogLevelCommand[] INSTANCES = new LogLevelCommand[LogLevelEnum.values().length];
+
+  static {
+    LogLevelEnum[] values = LogLevelEnum.values();
+
+    for (int i = 0; i < values.length; i++) {
+      INSTANCES[i] = new LogLevelCommand(values[i]);
+    }
+  }
+
+  /**
+   * Constructor for the LogLevelCommand class.
+   *
+   * @param level The minimum level of the log lines sent to the remote client.
+   * @throws NullPointerException if the level is null.
+   */
+  private LogLevelCommand(LogLevelEnum level) {
+    if (level == null) {
+      throw new NullPointerException("Level cannot be null");
+    }
+
+    this.level = level;
+  }
+
+  /**
+   * Returns the shared instance for the given level.
+   *
+   * @param level The minimum level of the log lines sent to the remote client.
+   * @return The command.
+   * @throws NullPointerException if the level is null.
+   */
+  public static LogLevelCommand valueOf(LogLevelEnum level) { return INSTANCES[level.ordinal()]; }
+
+  /**
+   * Returns the minimum level of the log lines sent to the remote client.
+   *
+   * @return The minimum level.
+   */
+  public LogLevelEnum getLevel() { return this.level; }
+}
@@ -1,12 +1,24 @@
 package domain.command.impl;
 
+import app.Config;
 import domain.command.base.ICommand;
 
 /**
  * MoveCommand represents a command to move the robot in a specific direction.
  * It encapsulates the direction of movement and provides a method to retrieve it.
+ * <p>
+ * A joystick held steady sends the same move many times per second, so valueOf() keeps the recent moves in a small
+ * two-way set-associative cache keyed by speed and turn angle and returns the cached instance for a repeated move.
  */
 public class MoveCommand implements ICommand {
+  /**
+   * Recently created moves, indexed by the hash of speed and turn angle masked to the cache size, a power of two. A
+   * move is stored at its index or at the neighbouring index (index ^ 1). Races between threads only cost an extra
+   * instance, as references are written atomically.
+   */
+  private static final MoveCommand[] CACHE = new MoveCommand[Integer.highestOneBit(
+      Math.max(2, Config.MOVE_COMMAND_CACHE_SIZE.getIntValue()))];
+
   /**
    * The direction in which the robot should move.
    */
@@ -18,7 +30,7 @@ public class MoveCommand implements ICommand {
    *
    * @throws IllegalArgumentException if speed is lower then zero
    */
-  public MoveCommand(int speed, int turnAngle) {
+  private MoveCommand(int speed, int turnAngle) {
     if (speed < 0) {
       throw new IllegalArgumentException();
     }
@@ -27,6 +39,52 @@ public class MoveCommand implements ICommand {
     this.turnAngle = turnAngle;
   }
 
+  /**
+   * Returns a move command with the given speed and turn angle, the cached instance if the move was created recently.
+   *
+   * @param speed     the speed at which the robot should move
+   * @param turnAngle the angle at which the robot should turn
+   * @return The command.
+   * @throws IllegalArgumentException if speed is lower then zero
+   */
+  public static MoveCommand valueOf(int speed, int turnAngle) {
+    // speeds and angles are often multiples of 5 or 10, so all bits are mixed into the low bits used as index
+    int hash = (speed << 16) ^ (turnAngle & 0xFFFF);
+
+    hash = (hash ^ (hash >>> 16)) * 0x85EBCA6B;
+    hash = (hash ^ (hash >>> 13)) * 0xC2B2AE35;
+
+    int index = (hash ^ (hash >>> 16)) & (CACHE.length - 1);
+    MoveCommand cached = CACHE[index];
+
+    if (cached != null && cached.is(speed, turnAngle)) {
+      return cached;
+    }
+
+    MoveCommand neighbour = CACHE[index ^ 1];
+
+    if (neighbour != null && neighbour.is(speed, turnAngle)) {
+      return neighbour;
+    }
+
+    MoveCommand command = new MoveCommand(speed, turnAngle);
+
+    // the previous move of the index is kept at the neighbouring index, the older neighbour is evicted
+    CACHE[index ^ 1] = cached;
+    CACHE[index] = command;
+
+    return command;
+  }
+
+  /**
+   * Returns whether the command has the given speed and turn angle.
+   *
+   * @param speed     the speed to compare
+   * @param turnAngle the turn angle to compare
+   * @return true if both are equal.
+   */
+  private boolean is(int speed, int turnAngle) { return this.speed == speed && this.turnAngle == turnAngle; }
+
   /**
    * Sets the speed of the robot.
    *
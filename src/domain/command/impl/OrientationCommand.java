@@ -13,13 +13,26 @@ public class OrientationCommand implements ICommand {
    */
   private final OrientationEnum orientation;
 
+  /**
+   * The shared instances, indexed by the ordinal of the orientation.
+   */
+  private static final OrientationCommand[] INSTANCES = new OrientationCommand[OrientationEnum.values().length];
+
+  static {
+    OrientationEnum[] values = OrientationEnum.values();
+
+    for (int i = 0; i < values.length; i++) {
+      INSTANCES[i] = new OrientationCommand(values[i]);
+    }
+  }
+
   /**
    * Constructor for the OrientationCommand class.
    *
    * @param orientation The orientation to be set for the robot.
    * @throws NullPointerException if the orientation is null.
    */
-  public OrientationCommand(OrientationEnum orientation) {
+  private OrientationCommand(OrientationEnum orientation) {
     if (orientation == null) {
       throw new NullPointerException("Orientation cannot be null");
     }
@@ -27,6 +40,15 @@ public class OrientationCommand implements ICommand {
     this.orientation = orientation;
   }
 
+  /**
+   * Returns the shared instance for the given orientation.
+   *
+   * @param orientation The orientation to be set for the robot.
+   * @return The command.
+   * @throws NullPointerException if the orientation is null.
+   */
+  public static OrientationCommand valueOf(OrientationEnum orientation) { return INSTANCES[orientation.ordinal()]; }
+
   /**
    * Returns the orientation associated with this command.
    *
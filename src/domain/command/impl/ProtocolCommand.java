@@ -0,0 +1,58 @@
+package domain.command.impl;
+
+import domain.command.base.ICommand;
+import shared.constants.TelemetryProtocolEnum;
+
+/**
+ * ProtocolCommand represents a command to change the encoding of the messages sent to the remote client.
+ * A client that understands the binary protocol sends it after connecting, old clients never send it.
+ */
+public class ProtocolCommand implements ICommand {
+  /**
+   * The encoding of the messages sent to the remote client.
+   */
+  private final TelemetryProtocolEnum protocol;
+
+  /**
+   * The shared instances, indexed by the ordinal of the protocol.
+   */
+  private static final ProtocolCommand[] INSTANCES = new ProtocolCommand[TelemetryProtocolEnum.values().length];
+
+  static {
+    TelemetryProtocolEnum[] values = TelemetryProtocolEnum.values();
+
+    for (int i = 0; i < values.length; i++) {
+      INSTANCES[i] = new ProtocolCommand(values[i]);
+    }
+  }
+
+  /**
+   * Constructor for the ProtocolCommand class.
+   *
+   * @param protocol The encoding of the messages sent to the remote client.
+   * @throws NullPointerException if the protocol is null.
+   */
+  private ProtocolCommand(TelemetryProtocolEnum protocol) {
+    if (protocol == null) {
+      throw new NullPointerException("Protocol cannot be null");
+    }
+
+    this.protocol = protocol;
+  }
+
+  /**
+   * Returns the shared instance for the given protocol.
+   *
+   * @param protocol The encoding of the messages sent to the remote client.
+   * @return The command.
+   * @throws NullPointerException if the protocol is null.
+   */
+  public static ProtocolCommand valueOf(TelemetryProtocolEnum protocol) { return INSTANCES[protocol.ordinal()]; }
+
+  /**
+   * Returns the encoding of the messages sent to the remote client.
+   *
+   * @return The protocol.
+   */
+  public TelemetryProtocolEnum getProtocol() { return this.protocol; }
+}
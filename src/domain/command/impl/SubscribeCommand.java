@@ -0,0 +1,60 @@
+package domain.command.impl;
+
+import domain.command.base.ICommand;
+import shared.constants.TelemetryTopicEnum;
+
+/**
+ * SubscribeCommand represents a command to choose which messages are sent to the remote client and how often.
+ * A dashboard that only shows the state unsubscribes from the sensor readings, so they do not take the bandwidth.
+ */
+public class SubscribeCommand implements ICommand {
+  /**
+   * Rate of a topic the remote client unsubscribed from.
+   */
+  public static final int UNSUBSCRIBED = 0;
+
+  /**
+   * Rate of a topic whose messages are all sent, also the highest rate.
+   */
+  public static final int UNLIMITED = 0xFFFF;
+
+  /**
+   * The topic, or null for all topics.
+   */
+  private final TelemetryTopicEnum topic;
+
+  /**
+   * The maximum number of messages of the topic sent per second.
+   */
+  private final int maxRate;
+
+  /**
+   * Constructor for the SubscribeCommand class.
+   *
+   * @param topic   The topic, or null for all topics.
+   * @param maxRate The maximum number of messages sent per second, UNSUBSCRIBED or UNLIMITED.
+   * @throws IllegalArgumentException if the rate is negative or above UNLIMITED.
+   */
+  public SubscribeCommand(TelemetryTopicEnum topic, int maxRate) {
+    if (maxRate < UNSUBSCRIBED || maxRate > UNLIMITED) {
+      throw new IllegalArgumentException("Rate must be between " + UNSUBSCRIBED + " and " + UNLIMITED);
+    }
+
+    this.topic = topic;
+    this.maxRate = maxRate;
+  }
+
+  /**
+   * Returns the topic.
+   *
+   * @return The topic, or null for all topics.
+   */
+  public TelemetryTopicEnum getTopic() { return this.topic; }
+
+  /**
+   * Returns the maximum number of messages of the topic sent per second.
+   *
+   * @return The rate, UNSUBSCRIBED or UNLIMITED.
+   */
+  public int getMaxRate() { return this.maxRate; }
+}
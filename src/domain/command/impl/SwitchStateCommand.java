@@ -15,13 +15,26 @@ public class SwitchStateCommand implements ICommand {
    */
   private final RoboStateEnum targetState;
 
+  /**
+   * The shared instances, indexed by the ordinal of the target state.
+   */
+  private static final SwitchStateCommand[] INSTANCES = new SwitchStateCommand[RoboStateEnum.values().length];
+
+  static {
+    RoboStateEnum[] values = RoboStateEnum.values();
+
+    for (int i = 0; i < values.length; i++) {
+      INSTANCES[i] = new SwitchStateCommand(values[i]);
+    }
+  }
+
   /**
    * Constructor for the SwitchStateCommand class.
    *
    * @param targetState The state to switch to.
    * @throws NullPointerException if targetState is null.
    */
-  public SwitchStateCommand(RoboStateEnum targetState) {
+  private SwitchStateCommand(RoboStateEnum targetState) {
     if (targetState == null) {
       throw new NullPointerException();
     }
@@ -29,6 +42,15 @@ public class SwitchStateCommand implements ICommand {
     this.targetState = targetState;
   }
 
+  /**
+   * Returns the shared instance for the given target state.
+   *
+   * @param targetState The state to switch to.
+   * @return The command.
+   * @throws NullPointerException if the target state is null.
+   */
+  public static SwitchStateCommand valueOf(RoboStateEnum targetState) { return INSTANCES[targetState.ordinal()]; }
+
   /**
    * Executes the command to switch the robot's state.
    *
@@ -0,0 +1,64 @@
+package domain.event;
+
+import domain.event.base.IEventListener;
+
+/**
+ * DispatchProfiler records how much time the EventManager spends delivering events, per event type and per listener.
+ * It is attached with EventManager.setProfiler() and records into preallocated arrays, so turning it on does not
+ * allocate and does not distort the numbers it records.
+ */
+public final class DispatchProfiler {
+  /**
+   * The statistics recorded so far.
+   */
+  private final DispatchStats stats = new DispatchStats();
+
+  /**
+   * Records the delivery of an event to all listeners of its type.
+   *
+   * @param type         the ordinal of the event type
+   * @param latencyNanos the time between the creation and the delivery of the event
+   * @param costNanos    the time spent delivering the event to all listeners
+   */
+  synchronized void recordDelivery(int type, long latencyNanos, long costNanos) {
+    this.stats.recordDelivery(type, latencyNanos, costNanos);
+  }
+
+  /**
+   * Records a call of a listener. Calls of listeners without a slot are ignored, their time is still included in the
+   * delivery of the event.
+   *
+   * @param type      the ordinal of the event type
+   * @param slot      the slot of the listener, or -1 if the listener has no slot
+   * @param costNanos the time spent in the listener
+   */
+  synchronized void recordListenerCall(int type, int slot, long costNanos) {
+    if (slot < 0) {
+      return;
+    }
+
+    this.stats.recordListenerCall(type, slot, costNanos);
+  }
+
+  /**
+   * Assigns a slot to a listener. Called by the EventManager when a listener is registered.
+   *
+   * @param slot     the slot to assign
+   * @param listener the new owner of the slot
+   */
+  synchronized void assignSlot(int slot, IEventListener listener) { this.stats.assignSlot(slot, listener); }
+
+  /**
+   * Copies the statistics recorded so far into the given instance, without allocating.
+   *
+   * @param target the instance to copy the statistics into
+   * @throws NullPointerException if the target is null
+   */
+  public synchronized void snapshot(DispatchStats target) {
+    if (target == null) {
+      throw new NullPointerException();
+    }
+
+    target.copyFrom(this.stats);
+  }
+}
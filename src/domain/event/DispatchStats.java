@@ -0,0 +1,242 @@
+package domain.event;
+
+import domain.event.base.IEventListener;
+import shared.constants.EventTypeEnum;
+
+/**
+ * DispatchStats holds the dispatch statistics recorded by the DispatchProfiler: per event type the number of
+ * deliveries, the total and maximum time spent delivering and a latency histogram, and per event type and listener
+ * slot the number of calls and the total and maximum time spent in the listener.
+ * All arrays are allocated once, so recording and copying statistics does not allocate.
+ */
+public final class DispatchStats {
+  /**
+   * Maximum number of listeners that are profiled individually. Listeners registered beyond that are only included
+   * in the statistics per event type.
+   */
+  public static final int LISTENER_SLOTS = 8;
+
+  /**
+   * Upper bounds of the latency histogram buckets in nanoseconds. The last bucket counts all larger latencies.
+   */
+  private static final long[] LATENCY_BUCKET_BOUNDS = {
+      100000L,   // 0.1 ms
+      500000L,   // 0.5 ms
+      1000000L,  // 1 ms
+      5000000L,  // 5 ms
+      10000000L, // 10 ms
+      50000000L, // 50 ms
+      100000000L // 100 ms
+  };
+
+  /**
+   * Number of buckets of the latency histogram.
+   */
+  public static final int LATENCY_BUCKETS = LATENCY_BUCKET_BOUNDS.length + 1;
+
+  /**
+   * Number of event types.
+   */
+  private static final int TYPES = EventTypeEnum.values().length;
+
+  /**
+   * Number of delivered events, indexed by the ordinal of the event type.
+   */
+  private final long[] deliveryCounts = new long[TYPES];
+
+  /**
+   * Total time in nanoseconds spent delivering events to all listeners, indexed by the ordinal of the event type.
+   */
+  private final long[] deliveryTotalNanos = new long[TYPES];
+
+  /**
+   * Maximum time in nanoseconds spent delivering one event to all listeners, indexed by the ordinal of the event type.
+   */
+  private final long[] deliveryMaxNanos = new long[TYPES];
+
+  /**
+   * Number of events per latency bucket, indexed by the ordinal of the event type and the bucket. The latency is the
+   * time between the creation and the delivery of an event, so it includes the time spent in the queue.
+   */
+  private final long[][] latencyHistogram = new long[TYPES][LATENCY_BUCKETS];
+
+  /**
+   * Number of listener calls, indexed by the ordinal of the event type and the listener slot.
+   */
+  private final long[][] listenerCalls = new long[TYPES][LISTENER_SLOTS];
+
+  /**
+   * Total time in nanoseconds spent in the listener, indexed by the ordinal of the event type and the listener slot.
+   */
+  private final long[][] listenerTotalNanos = new long[TYPES][LISTENER_SLOTS];
+
+  /**
+   * Maximum time in nanoseconds spent in one listener call, indexed by the ordinal of the event type and the listener
+   * slot.
+   */
+  private final long[][] listenerMaxNanos = new long[TYPES][LISTENER_SLOTS];
+
+  /**
+   * The listener owning each slot, null if the slot is unused.
+   */
+  private final IEventListener[] listeners = new IEventListener[LISTENER_SLOTS];
+
+  /**
+   * Records the delivery of an event to all listeners of its type.
+   *
+   * @param type         the ordinal of the event type
+   * @param latencyNanos the time between the creation and the delivery of the event
+   * @param costNanos    the time spent delivering the event to all listeners
+   */
+  void recordDelivery(int type, long latencyNanos, long costNanos) {
+    this.deliveryCounts[type]++;
+    this.deliveryTotalNanos[type] += costNanos;
+
+    if (costNanos > this.deliveryMaxNanos[type]) {
+      this.deliveryMaxNanos[type] = costNanos;
+    }
+
+    int bucket = 0;
+
+    while (bucket < LATENCY_BUCKET_BOUNDS.length && latencyNanos >= LATENCY_BUCKET_BOUNDS[bucket]) {
+      bucket++;
+    }
+
+    this.latencyHistogram[type][bucket]++;
+  }
+
+  /**
+   * Records a call of a listener.
+   *
+   * @param type      the ordinal of the event type
+   * @param slot      the slot of the listener
+   * @param costNanos the time spent in the listener
+   */
+  void recordListenerCall(int type, int slot, long costNanos) {
+    this.listenerCalls[type][slot]++;
+    this.listenerTotalNanos[type][slot] += costNanos;
+
+    if (costNanos > this.listenerMaxNanos[type][slot]) {
+      this.listenerMaxNanos[type][slot] = costNanos;
+    }
+  }
+
+  /**
+   * Assigns a slot to a listener. If the slot was owned by another listener before, its statistics are reset.
+   *
+   * @param slot     the slot to assign
+   * @param listener the new owner of the slot
+   */
+  void assignSlot(int slot, IEventListener listener) {
+    if (this.listeners[slot] == listener) {
+      return;
+    }
+
+    this.listeners[slot] = listener;
+
+    for (int type = 0; type < TYPES; type++) {
+      this.listenerCalls[type][slot] = 0;
+      this.listenerTotalNanos[type][slot] = 0;
+      this.listenerMaxNanos[type][slot] = 0;
+    }
+  }
+
+  /**
+   * Copies all statistics from the given instance into this one.
+   *
+   * @param other the statistics to copy
+   */
+  public void copyFrom(DispatchStats other) {
+    System.arraycopy(other.deliveryCounts, 0, this.deliveryCounts, 0, TYPES);
+    System.arraycopy(other.deliveryTotalNanos, 0, this.deliveryTotalNanos, 0, TYPES);
+    System.arraycopy(other.deliveryMaxNanos, 0, this.deliveryMaxNanos, 0, TYPES);
+    System.arraycopy(other.listeners, 0, this.listeners, 0, LISTENER_SLOTS);
+
+    for (int type = 0; type < TYPES; type++) {
+      System.arraycopy(other.latencyHistogram[type], 0, this.latencyHistogram[type], 0, LATENCY_BUCKETS);
+      System.arraycopy(other.listenerCalls[type], 0, this.listenerCalls[type], 0, LISTENER_SLOTS);
+      System.arraycopy(other.listenerTotalNanos[type], 0, this.listenerTotalNanos[type], 0, LISTENER_SLOTS);
+      System.arraycopy(other.listenerMaxNanos[type], 0, this.listenerMaxNanos[type], 0, LISTENER_SLOTS);
+    }
+  }
+
+  /**
+   * Returns the number of deliveries of events of the given type.
+   *
+   * @param type the event type
+   * @return the number of deliveries.
+   */
+  public long getDeliveryCount(EventTypeEnum type) { return this.deliveryCounts[type.ordinal()]; }
+
+  /**
+   * Returns the total time spent delivering events of the given type to all listeners.
+   *
+   * @param type the event type
+   * @return the total time in nanoseconds.
+   */
+  public long getDeliveryTotalNanos(EventTypeEnum type) { return this.deliveryTotalNanos[type.ordinal()]; }
+
+  /**
+   * Returns the maximum time spent delivering one event of the given type to all listeners.
+   *
+   * @param type the event type
+   * @return the maximum time in nanoseconds.
+   */
+  public long getDeliveryMaxNanos(EventTypeEnum type) { return this.deliveryMaxNanos[type.ordinal()]; }
+
+  /**
+   * Returns the number of events of the given type whose latency fell into the given histogram bucket.
+   *
+   * @param type   the event type
+   * @param bucket the index of the bucket, from 0 to LATENCY_BUCKETS - 1
+   * @return the number of events in the bucket.
+   */
+  public long getLatencyCount(EventTypeEnum type, int bucket) { return this.latencyHistogram[type.ordinal()][bucket]; }
+
+  /**
+   * Returns the upper bound of the given latency histogram bucket.
+   *
+   * @param bucket the index of the bucket, from 0 to LATENCY_BUCKETS - 1
+   * @return the upper bound in nanoseconds, or Long.MAX_VALUE for the last bucket.
+   */
+  public static long getLatencyBucketBound(int bucket) {
+    return bucket < LATENCY_BUCKET_BOUNDS.length ? LATENCY_BUCKET_BOUNDS[bucket] : Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns the listener owning the given slot.
+   *
+   * @param slot the slot, from 0 to LISTENER_SLOTS - 1
+   * @return the listener, or null if the slot is unused.
+   */
+  public IEventListener getListener(int slot) { return this.listeners[slot]; }
+
+  /**
+   * Returns the number of calls of the listener in the given slot for events of the given type.
+   *
+   * @param type the event type
+   * @param slot the slot of the listener
+   * @return the number of calls.
+   */
+  public long getListenerCalls(EventTypeEnum type, int slot) { return this.listenerCalls[type.ordinal()][slot]; }
+
+  /**
+   * Returns the total time spent in the listener in the given slot for events of the given type.
+   *
+   * @param type the event type
+   * @param slot the slot of the listener
+   * @return the total time in nanoseconds.
+   */
+  public long getListenerTotalNanos(EventTypeEnum type, int slot) {
+    return this.listenerTotalNanos[type.ordinal()][slot];
+  }
+
+  /**
+   * Returns the maximum time spent in one call of the listener in the given slot for events of the given type.
+   *
+   * @param type the event type
+   * @param slot the slot of the listener
+   * @return the maximum time in nanoseconds.
+   */
+  public long getListenerMaxNanos(EventTypeEnum type, int slot) { return this.listenerMaxNanos[type.ordinal()][slot]; }
+}
@@ -0,0 +1,383 @@
+package domain.event;
+
+import domain.command.base.ICommand;
+import domain.command.impl.CalibrationCommand;
+import domain.command.impl.ExitCommand;
+import domain.command.impl.LogLevelCommand;
+import domain.command.impl.MoveCommand;
+import domain.command.impl.OrientationCommand;
+import domain.command.impl.ProtocolCommand;
+import domain.command.impl.SubscribeCommand;
+import domain.command.impl.SwitchStateCommand;
+import domain.event.base.AbstractEvent;
+import domain.event.impl.ButtonEvent;
+import domain.event.impl.ChangeStateEvent;
+import domain.event.impl.CommandEvent;
+import domain.event.impl.LineStatusEvent;
+import domain.event.impl.SensorEvent;
+import java.io.DataInput;
+import java.io.IOException;
+import shared.constants.CalibrationStepEnum;
+import shared.constants.EventTypeEnum;
+import shared.constants.LogLevelEnum;
+import shared.constants.OrientationEnum;
+import shared.constants.RoboStateEnum;
+import shared.constants.SensorTypeEnum;
+import shared.constants.TelemetryProtocolEnum;
+import shared.constants.TelemetryTopicEnum;
+
+/**
+ * EventCodec converts the primitive payload of events to a compact binary form and back. The payload does not contain
+ * the event type, the caller stores it next to the payload.
+ * <p>
+ * Payload per event type, multi-byte values are big-endian:
+ * <ul>
+ * <li>SENSOR: sensor type ordinal (1 byte), value (2 bytes, unsigned, clamped)</li>
+ * <li>BUTTON: length (1 byte), button ID as ASCII characters (truncated to MAX_BUTTON_ID_LENGTH)</li>
+ * <li>COMMAND, MOVE_COMMAND: command kind (1 byte), followed by speed and turn angle (2 bytes each) for MOVE, or the
+ * ordinal of the target state, calibration step, orientation, log level or protocol (1 byte), or for SUBSCRIBE the
+ * topic ordinal or ALL_TOPICS (1 byte) and the rate (2 bytes)</li>
+ * <li>CHANGE_STATE: state ordinal (1 byte)</li>
+ * <li>LINE_STATUS: 1 if on the line, else 0 (1 byte)</li>
+ * <li>REMOTE_LOG, DISPATCH_STATS, STATE_TELEMETRY: no payload, these events are derived and not needed to reproduce a
+ * run</li>
+ * </ul>
+ * Encoding writes into a caller-provided array and does not allocate. The command payload is also the format of the
+ * binary command protocol, see decodeCommand(byte[], int, int).
+ */
+public final class EventCodec {
+  /**
+   * Maximum number of characters of a button ID that are encoded.
+   */
+  public static final int MAX_BUTTON_ID_LENGTH = 32;
+
+  /**
+   * Maximum size of an encoded payload in bytes.
+   */
+  public static final int MAX_PAYLOAD_SIZE = MAX_BUTTON_ID_LENGTH + 1;
+
+  /**
+   * Maximum size of a varint written by writeVarint().
+   */
+  public static final int MAX_VARINT_SIZE = 10;
+
+  private static final int COMMAND_MOVE = 0;          // speed and turn angle follow
+  private static final int COMMAND_SWITCH_STATE = 1;  // target state ordinal follows
+  private static final int COMMAND_CALIBRATION = 2;   // calibration step ordinal follows
+  private static final int COMMAND_ORIENTATION = 3;   // orientation ordinal follows
+  private static final int COMMAND_EXIT = 4;          // no arguments
+  private static final int COMMAND_LOG_LEVEL = 5;     // log level ordinal follows
+  private static final int COMMAND_PROTOCOL = 6;      // telemetry protocol ordinal follows
+  private static final int COMMAND_SUBSCRIBE = 7;     // telemetry topic ordinal and rate follow
+  private static final int COMMAND_UNKNOWN = 0xFF;    // command without a binary form, cannot be decoded
+
+  /**
+   * Topic of a SUBSCRIBE command that applies to all topics.
+   */
+  private static final int ALL_TOPICS = 0xFF;
+
+  // enum values, cached to avoid copying the values array on every decoded event
+  private static final SensorTypeEnum[] SENSOR_TYPES = SensorTypeEnum.values();
+  private static final RoboStateEnum[] ROBO_STATES = RoboStateEnum.values();
+  private static final CalibrationStepEnum[] CALIBRATION_STEPS = CalibrationStepEnum.values();
+  private static final OrientationEnum[] ORIENTATIONS = OrientationEnum.values();
+  private static final LogLevelEnum[] LOG_LEVELS = LogLevelEnum.values();
+  private static final TelemetryProtocolEnum[] PROTOCOLS = TelemetryProtocolEnum.values();
+  private static final TelemetryTopicEnum[] TOPICS = TelemetryTopicEnum.values();
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private EventCodec() {}
+
+  /**
+   * Writes the payload of the given event into the buffer.
+   *
+   * @param event  the event to encode
+   * @param buffer the buffer to write to, with at least MAX_PAYLOAD_SIZE bytes free after the offset
+   * @param offset the index to start writing at
+   * @return the index after the last written byte.
+   */
+  public static int encode(AbstractEvent event, byte[] buffer, int offset) {
+    switch (event.getType()) {
+    case SENSOR:
+      SensorEvent sensorEvent = (SensorEvent)event;
+
+      buffer[offset++] = (byte)sensorEvent.getSensorType().ordinal();
+      return writeShort(buffer, offset, Math.min(sensorEvent.getValue(), 0xFFFF));
+    case BUTTON:
+      String buttonId = ((ButtonEvent)event).getButtonId();
+      int length = Math.min(buttonId.length(), MAX_BUTTON_ID_LENGTH);
+
+      buffer[offset++] = (byte)length;
+
+      for (int i = 0; i < length; i++) {
+        buffer[offset++] = (byte)buttonId.charAt(i);
+      }
+
+      return offset;
+    case COMMAND:
+    case MOVE_COMMAND:
+      return encodeCommand(((CommandEvent)event).getCommand(), buffer, offset);
+    case CHANGE_STATE:
+      buffer[offset++] = (byte)((ChangeStateEvent)event).getNewState().ordinal();
+      return offset;
+    case LINE_STATUS:
+      buffer[offset++] = (byte)(((LineStatusEvent)event).isOnLine() ? 1 : 0);
+      return offset;
+    default:
+      return offset;
+    }
+  }
+
+  /**
+   * Returns whether events of the given type have a binary payload. Events of other types are encoded without payload.
+   *
+   * @param type the event type
+   * @return true if the payload of the events is encoded.
+   */
+  public static boolean hasPayload(EventTypeEnum type) {
+    switch (type) {
+    case SENSOR:
+    case BUTTON:
+    case COMMAND:
+    case MOVE_COMMAND:
+    case CHANGE_STATE:
+    case LINE_STATUS:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  /**
+   * Reads the payload of an event of the given type and creates the event. The timestamp of the created event is the
+   * time it is decoded, the caller keeps the recorded timestamp.
+   *
+   * @param type the type of the encoded event
+   * @param in   the input to read the payload from
+   * @return the decoded event, or null if events of the type cannot be decoded.
+   * @throws IOException if the payload cannot be read
+   */
+  public static AbstractEvent decode(EventTypeEnum type, DataInput in) throws IOException {
+    switch (type) {
+    case SENSOR:
+      SensorTypeEnum sensorType = SENSOR_TYPES[in.readUnsignedByte()];
+
+      return new SensorEvent(sensorType.getName(), sensorType, in.readUnsignedShort());
+    case BUTTON:
+      char[] buttonId = new char[in.readUnsignedByte()];
+
+      for (int i = 0; i < buttonId.length; i++) {
+        buttonId[i] = (char)in.readUnsignedByte();
+      }
+
+      return new ButtonEvent(new String(buttonId));
+    case COMMAND:
+    case MOVE_COMMAND:
+      ICommand command = decodeCommand(in);
+
+      return command != null ? new CommandEvent(command) : null;
+    case CHANGE_STATE:
+      return new ChangeStateEvent(ROBO_STATES[in.readUnsignedByte()]);
+    case LINE_STATUS:
+      return new LineStatusEvent(in.readUnsignedByte() != 0);
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * Writes the kind and the arguments of the given command into the buffer.
+   *
+   * @param command the command to encode
+   * @param buffer  the buffer to write to
+   * @param offset  the index to start writing at
+   * @return the index after the last written byte.
+   */
+  private static int encodeCommand(ICommand command, byte[] buffer, int offset) {
+    if (command instanceof MoveCommand) {
+      buffer[offset++] = COMMAND_MOVE;
+      offset = writeShort(buffer, offset, ((MoveCommand)command).getSpeed());
+
+      return writeShort(buffer, offset, ((MoveCommand)command).getTurnAngle());
+    }
+
+    if (command instanceof SwitchStateCommand) {
+      buffer[offset++] = COMMAND_SWITCH_STATE;
+      buffer[offset++] = (byte)((SwitchStateCommand)command).getTargetState().ordinal();
+
+      return offset;
+    }
+
+    if (command instanceof CalibrationCommand) {
+      buffer[offset++] = COMMAND_CALIBRATION;
+      buffer[offset++] = (byte)((CalibrationCommand)command).getStep().ordinal();
+
+      return offset;
+    }
+
+    if (command instanceof OrientationCommand) {
+      buffer[offset++] = COMMAND_ORIENTATION;
+      buffer[offset++] = (byte)((OrientationCommand)command).getOrientation().ordinal();
+
+      return offset;
+    }
+
+    if (command instanceof LogLevelCommand) {
+      buffer[offset++] = COMMAND_LOG_LEVEL;
+      buffer[offset++] = (byte)((LogLevelCommand)command).getLevel().ordinal();
+
+      return offset;
+    }
+
+    if (command instanceof ProtocolCommand) {
+      buffer[offset++] = COMMAND_PROTOCOL;
+      buffer[offset++] = (byte)((ProtocolCommand)command).getProtocol().ordinal();
+
+      return offset;
+    }
+
+    if (command instanceof SubscribeCommand) {
+      TelemetryTopicEnum topic = ((SubscribeCommand)command).getTopic();
+
+      buffer[offset++] = COMMAND_SUBSCRIBE;
+      buffer[offset++] = (byte)(topic != null ? topic.ordinal() : ALL_TOPICS);
+
+      return writeShort(buffer, offset, ((SubscribeCommand)command).getMaxRate());
+    }
+
+    buffer[offset++] = (byte)(command instanceof ExitCommand ? COMMAND_EXIT : COMMAND_UNKNOWN);
+
+    return offset;
+  }
+
+  /**
+   * Reads the kind and the arguments of a command and creates the command.
+   *
+   * @param in the input to read the command from
+   * @return the decoded command, or null if the command kind is unknown.
+   * @throws IOException if the command cannot be read
+   */
+  private static ICommand decodeCommand(DataInput in) throws IOException {
+    switch (in.readUnsignedByte()) {
+    case COMMAND_MOVE:
+      int speed = in.readShort();
+
+      return MoveCommand.valueOf(speed, in.readShort());
+    case COMMAND_SWITCH_STATE:
+      return SwitchStateCommand.valueOf(ROBO_STATES[in.readUnsignedByte()]);
+    case COMMAND_CALIBRATION:
+      return CalibrationCommand.valueOf(CALIBRATION_STEPS[in.readUnsignedByte()]);
+    case COMMAND_ORIENTATION:
+      return OrientationCommand.valueOf(ORIENTATIONS[in.readUnsignedByte()]);
+    case COMMAND_LOG_LEVEL:
+      return LogLevelCommand.valueOf(LOG_LEVELS[in.readUnsignedByte()]);
+    case COMMAND_PROTOCOL:
+      return ProtocolCommand.valueOf(PROTOCOLS[in.readUnsignedByte()]);
+    case COMMAND_SUBSCRIBE:
+      int topic = in.readUnsignedByte();
+
+      return new SubscribeCommand(topic != ALL_TOPICS ? TOPICS[topic] : null, in.readUnsignedShort());
+    case COMMAND_EXIT:
+      return ExitCommand.INSTANCE;
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * Decodes a command of the binary command protocol: the command kind followed by its fixed-width arguments, as
+   * written by encode(). Does not create any strings. The input comes from the remote client, so commands with a wrong
+   * length or an unknown kind or ordinal are rejected.
+   *
+   * @param buffer the buffer holding the command
+   * @param offset the index of the command kind
+   * @param length the number of bytes of the command
+   * @return the decoded command, or null if the command is invalid.
+   * @throws IllegalArgumentException if the arguments are rejected by the command, like a negative speed
+   */
+  public static ICommand decodeCommand(byte[] buffer, int offset, int length) {
+    if (length < 1) {
+      return null;
+    }
+
+    int kind = buffer[offset] & 0xFF;
+    int argument = length > 1 ? buffer[offset + 1] & 0xFF : -1;
+
+    switch (kind) {
+    case COMMAND_MOVE:
+      return length == 5 ? MoveCommand.valueOf(readShort(buffer, offset + 1), readShort(buffer, offset + 3)) : null;
+    case COMMAND_SWITCH_STATE:
+      return length == 2 && argument < ROBO_STATES.length ? SwitchStateCommand.valueOf(ROBO_STATES[argument]) : null;
+    case COMMAND_CALIBRATION:
+      return length == 2 && argument < CALIBRATION_STEPS.length
+          ? CalibrationCommand.valueOf(CALIBRATION_STEPS[argument]) : null;
+    case COMMAND_ORIENTATION:
+      return length == 2 && argument < ORIENTATIONS.length ? OrientationCommand.valueOf(ORIENTATIONS[argument]) : null;
+    case COMMAND_LOG_LEVEL:
+      return length == 2 && argument < LOG_LEVELS.length ? LogLevelCommand.valueOf(LOG_LEVELS[argument]) : null;
+    case COMMAND_PROTOCOL:
+      return length == 2 && argument < PROTOCOLS.length ? ProtocolCommand.valueOf(PROTOCOLS[argument]) : null;
+    case COMMAND_SUBSCRIBE:
+      if (length != 4 || (argument >= TOPICS.length && argument != ALL_TOPICS)) {
+        return null;
+      }
+
+      return new SubscribeCommand(argument != ALL_TOPICS ? TOPICS[argument] : null,
+                                  readShort(buffer, offset + 2) & 0xFFFF);
+    case COMMAND_EXIT:
+      return length == 1 ? ExitCommand.INSTANCE : null;
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * Writes a signed value into the buffer as a zigzag varint: 7 bits per byte, least significant first, with the
+   * highest bit set on all bytes but the last. Small positive and negative values take a single byte.
+   *
+   * @param buffer the buffer to write to, with at least MAX_VARINT_SIZE bytes free after the offset
+   * @param offset the index to start writing at
+   * @param value  the value to write
+   * @return the index after the last written byte.
+   */
+  public static int writeVarint(byte[] buffer, int offset, long value) {
+    long zigzag = (value << 1) ^ (value >> 63);
+
+    while ((zigzag & ~0x7FL) != 0) {
+      buffer[offset++] = (byte)((zigzag & 0x7F) | 0x80);
+      zigzag >>>= 7;
+    }
+
+    buffer[offset++] = (byte)zigzag;
+
+    return offset;
+  }
+
+  /**
+   * Writes the lower 16 bits of the value into the buffer, big-endian.
+   *
+   * @param buffer the buffer to write to
+   * @param offset the index to start writing at
+   * @param value  the value to write
+   * @return the index after the last written byte.
+   */
+  private static int writeShort(byte[] buffer, int offset, int value) {
+    buffer[offset++] = (byte)(value >> 8);
+    buffer[offset++] = (byte)value;
+
+    return offset;
+  }
+
+  /**
+   * Reads a signed 16 bit value from the buffer, big-endian.
+   *
+   * @param buffer the buffer to read from
+   * @param offset the index of the first byte
+   * @return the value.
+   */
+  private static int readShort(byte[] buffer, int offset) {
+    return (short)((buffer[offset] << 8) | (buffer[offset + 1] & 0xFF));
+  }
+}
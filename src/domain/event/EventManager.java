@@ -2,22 +2,177 @@ package domain.event;
 
 import domain.event.base.AbstractEvent;
 import domain.event.base.IEventListener;
-import java.util.Vector;
+import shared.constants.EventPriorityEnum;
+import shared.constants.EventTypeEnum;
+import shared.util.Clock;
 import shared.util.Logger;
 
 /**
  * EventManager is responsible for managing event listeners and dispatching events to them.
- * It allows adding and removing listeners and ensures thread-safe operations using CopyOnWriteArrayList.
+ * Listeners subscribe to the event types they are interested in. For every event type a listener array is
+ * precomputed on registration, so dispatching an event only calls the listeners that care about it.
+ * <p>
+ * The listener arrays are copied on write: adding or removing a listener builds new arrays and swaps them in as one
+ * table, so dispatching takes no lock and iterates a stable snapshot. A listener removed while an event is delivered
+ * may still receive that event, a listener added while an event is delivered receives the next one.
+ * <p>
+ * By default, events are delivered synchronously while dispatch() is called. In queued mode, dispatch() appends the
+ * event to a preallocated ring buffer instead, and the event loop delivers the queued events once per tick by calling
+ * processQueue(). This bounds the stack depth, as listeners that dispatch new events no longer re-enter other
+ * listeners, and makes the cost per tick predictable.
+ * <p>
+ * In queued mode, every priority lane (see EventPriorityEnum) has its own ring buffer with its own capacity. The lanes
+ * are delivered from the highest to the lowest priority, each in FIFO order, and the number of events delivered per
+ * tick can be limited. The event queue holds up to the sum of the lane capacities. The TELEMETRY lane is shed: a
+ * full shed lane drops its oldest event, and when the event queue is full, the oldest event of the lowest
+ * non-empty lane at or below the new event is dropped, or the new event itself if there is none. The SAFETY and
+ * CONTROL lanes are kept: their events take the room of shed events and are never dropped to make room for another
+ * event. They are only queued beyond the sum of the capacities when no shed event is left, which is reported as an
+ * error if even the ring buffer of the lane overflows. Under overload, the lower lanes are therefore left behind and
+ * shed first, while commands and safety events like obstacle readings are still delivered.
+ * <p>
+ * Coalescing can be enabled per event type. In queued mode, a queued event of such a type is then removed when a newer
+ * event with the same coalescing key is dispatched, so only the latest value of a tick reaches the listeners. The newer
+ * event is appended at the tail, so it is never delivered before an event dispatched between the two, e.g. a move
+ * after a state switch.
+ * <p>
+ * A staleness deadline can be set per event type. An event that is older than the deadline of its type when it is
+ * delivered is dropped and counted instead.
+ * <p>
+ * A DispatchProfiler can be attached to record the delivery latency and the time spent per event type and listener.
+ * Without a profiler, delivering an event does not read the clock more than the deadline check requires.
+ * <p>
+ * A FlightRecorder can be attached to journal every dispatched event, before it is queued or delivered.
  */
 public class EventManager {
   /**
-   * List of event listeners.
-   * Using Vector for thread-safe operations (it's an older implementation of CopyOnWriteArrayList).
+   * All event types, cached to avoid copying the values array on every registration.
    */
-  private final Vector<IEventListener> listeners = new Vector<>();
+  private static final EventTypeEnum[] EVENT_TYPES = EventTypeEnum.values();
 
   /**
-   * Dispatches the given event to all registered listeners.
+   * All priority lanes, from the highest to the lowest priority.
+   */
+  private static final EventPriorityEnum[] PRIORITIES = EventPriorityEnum.values();
+
+  /**
+   * Ordinal of the lowest kept lane. Events of this lane and the higher lanes are never dropped to make room.
+   */
+  private static final int LOWEST_KEPT_LANE = EventPriorityEnum.CONTROL.ordinal();
+
+  /**
+   * The current subscriptions. Replaced by a new table on every registration change, so dispatching reads the listener
+   * list and the index per event type of the same registration state without locking.
+   */
+  private volatile SubscriptionTable table = new SubscriptionTable(new Subscription[0]);
+
+  /**
+   * Queue per priority lane, indexed by the ordinal of the priority. Null if events are delivered synchronously.
+   */
+  private final EventQueue[] lanes;
+
+  /**
+   * Capacity per priority lane, indexed by the ordinal of the priority. Null if events are delivered synchronously.
+   */
+  private final int[] laneCapacities;
+
+  /**
+   * Maximum number of queued events before shed events are dropped, the sum of the lane capacities.
+   */
+  private final int capacity;
+
+  /**
+   * Number of queued events per lane when processing starts, indexed by the ordinal of the priority. Preallocated, so
+   * processing the queue does not allocate.
+   */
+  private final int[] laneSnapshot = new int[PRIORITIES.length];
+
+  /**
+   * Lock guarding the queues and the counters, as events may be dispatched from other threads.
+   */
+  private final Object queueLock = new Object();
+
+  /**
+   * Maximum number of events delivered per call to processQueue(), 0 if unlimited.
+   */
+  private int tickBudget = 0;
+
+  /**
+   * Flags indexed by the ordinal of the event type, true if queued events of the type are coalesced.
+   */
+  private final boolean[] coalescing = new boolean[EVENT_TYPES.length];
+
+  /**
+   * Number of events merged into a newer event, indexed by the ordinal of the event type.
+   */
+  private final int[] coalescedEventCounts = new int[EVENT_TYPES.length];
+
+  /**
+   * Staleness deadline in nanoseconds, indexed by the ordinal of the event type. Events of types with a deadline of 0
+   * never expire. The array is replaced on every change and never modified afterward, so the dispatching thread reads
+   * a deadline set from another thread completely or not at all.
+   */
+  private volatile long[] deadlines = new long[EVENT_TYPES.length];
+
+  /**
+   * Number of events dropped because they were older than their deadline, indexed by the ordinal of the event type.
+   */
+  private final int[] expiredEventCounts = new int[EVENT_TYPES.length];
+
+  /**
+   * The profiler recording the dispatch statistics, null if dispatching is not profiled.
+   */
+  private volatile DispatchProfiler profiler = null;
+
+  /**
+   * The recorder journaling every dispatched event, null if events are not recorded.
+   */
+  private volatile FlightRecorder recorder = null;
+
+  /**
+   * Constructor for an EventManager that delivers events synchronously.
+   */
+  public EventManager() {
+    this.lanes = null;
+    this.laneCapacities = null;
+    this.capacity = 0;
+  }
+
+  /**
+   * Constructor for an EventManager that queues events and delivers them in processQueue().
+   *
+   * @param laneCapacities the capacity per priority lane, indexed by the ordinal of the priority
+   * @throws IllegalArgumentException if there is no positive capacity for every priority lane
+   */
+  public EventManager(int[] laneCapacities) {
+    if (laneCapacities == null || laneCapacities.length != PRIORITIES.length) {
+      throw new IllegalArgumentException("A capacity is required for every priority lane");
+    }
+
+    int capacity = 0;
+
+    for (int i = 0; i < PRIORITIES.length; i++) {
+      if (laneCapacities[i] <= 0) {
+        throw new IllegalArgumentException("Capacity must be positive");
+      }
+
+      capacity += laneCapacities[i];
+    }
+
+    this.lanes = new EventQueue[PRIORITIES.length];
+    this.laneCapacities = laneCapacities.clone();
+    this.capacity = capacity;
+
+    for (int i = 0; i < PRIORITIES.length; i++) {
+      // a kept lane can take the room of all shed lanes
+      this.lanes[i] = new EventQueue(i <= LOWEST_KEPT_LANE ? capacity : laneCapacities[i]);
+    }
+  }
+
+  /**
+   * Dispatches the given event to all listeners subscribed to its type. In queued mode, the event is only appended to
+   * the lane of its priority and delivered during the next call to processQueue(). If the queue is full, a shed event
+   * is dropped, see the class description.
    *
    * @param event the event to dispatch
    * @throws IllegalArgumentException if the event is null
@@ -27,9 +182,157 @@ public class EventManager {
       throw new IllegalArgumentException("Event cannot be null");
     }
 
-    for (int i = 0; i < this.listeners.size(); i++) {
+    FlightRecorder recorder = this.recorder;
+
+    if (recorder != null) {
+      recorder.record(event);
+    }
+
+    if (this.lanes == null) {
+      this.deliver(event);
+      return;
+    }
+
+    this.enqueue(event);
+  }
+
+  /**
+   * Delivers the events that are queued when this method is called, lane by lane from the highest to the lowest
+   * priority and in FIFO order within a lane. Stops when the tick budget is used up, the remaining events stay queued.
+   * Events dispatched by listeners while the queue is processed are delivered during the next call. Does nothing if
+   * events are delivered synchronously. This method is called once per tick from the event loop.
+   */
+  public void processQueue() {
+    if (this.lanes == null) {
+      return;
+    }
+
+    synchronized (this.queueLock) {
+      for (int i = 0; i < this.lanes.length; i++) {
+        this.laneSnapshot[i] = this.lanes[i].getDepth();
+      }
+    }
+
+    int remaining = this.tickBudget > 0 ? this.tickBudget : Integer.MAX_VALUE;
+
+    for (int lane = 0; lane < this.lanes.length && remaining > 0; lane++) {
+      for (int i = 0; i < this.laneSnapshot[lane] && remaining > 0; i++) {
+        AbstractEvent event;
+
+        synchronized (this.queueLock) {
+          event = this.lanes[lane].poll();
+        }
+
+        if (event == null) {
+          break;
+        }
+
+        remaining--;
+        this.deliver(event);
+      }
+    }
+  }
+
+  /**
+   * Appends the event to the lane of its priority. A pooled event that is still queued is moved to the tail, as its
+   * producer already updated the queued instance in place. If coalescing is enabled for the type of the event, a
+   * queued event with the same coalescing key is removed. Both cases are counted as merged events.
+   *
+   * @param event the event to append
+   */
+  private void enqueue(AbstractEvent event) {
+    int type = event.getType().ordinal();
+    int priority = event.getPriority().ordinal();
+    EventQueue lane = this.lanes[priority];
+
+    synchronized (this.queueLock) {
+      int index = -1;
+
+      if (this.coalescing[type]) {
+        index = lane.indexOfSuperseded(event);
+      } else if (event.isPooled()) {
+        index = lane.indexOf(event);
+      }
+
+      if (index >= 0) {
+        lane.remove(index);
+        this.coalescedEventCounts[type]++;
+      }
+
+      if (!this.makeRoom(priority)) {
+        lane.countDropped();
+        return;
+      }
+
+      if (lane.offer(event)) {
+        Logger.error("event queue overflow: ", event.getType());
+      }
+    }
+  }
+
+  /**
+   * Makes room for an event of the given lane, if the lane or the event queue is full. A full shed lane drops its
+   * oldest event. If the event queue is full, the oldest event of the lowest non-empty shed lane at or below the given
+   * lane is dropped. Must be called while holding the queue lock.
+   *
+   * @param priority the ordinal of the lane of the new event
+   * @return false if the new event is a shed event and there is no room for it.
+   */
+  private boolean makeRoom(int priority) {
+    if (priority > LOWEST_KEPT_LANE && this.lanes[priority].getDepth() >= this.laneCapacities[priority]) {
+      this.lanes[priority].dropOldest();
+      return true;
+    }
+
+    int depth = 0;
+
+    for (int i = 0; i < this.lanes.length; i++) {
+      depth += this.lanes[i].getDepth();
+    }
+
+    if (depth < this.capacity) {
+      return true;
+    }
+
+    for (int i = this.lanes.length - 1; i > LOWEST_KEPT_LANE && i >= priority; i--) {
+      if (this.lanes[i].getDepth() > 0) {
+        this.lanes[i].dropOldest();
+        return true;
+      }
+    }
+
+    // only events of higher lanes are left, a kept event is queued beyond the capacity
+    return priority <= LOWEST_KEPT_LANE;
+  }
+
+  /**
+   * Delivers the event to all listeners subscribed to its type, unless it is older than the deadline of its type.
+   *
+   * @param event the event to deliver
+   */
+  private void deliver(AbstractEvent event) {
+    int type = event.getType().ordinal();
+    long deadline = this.deadlines[type];
+
+    if (deadline > 0 && Clock.nanoTime() - event.getTimestamp() > deadline) {
+      synchronized (this.queueLock) {
+        this.expiredEventCounts[type]++;
+      }
+
+      return;
+    }
+
+    Subscription[] subscriptions = this.table.byType[type];
+    DispatchProfiler profiler = this.profiler;
+
+    if (profiler != null) {
+      this.deliverProfiled(event, type, subscriptions, profiler);
+      return;
+    }
+
+    for (int i = 0; i < subscriptions.length; i++) {
       try {
-        this.listeners.elementAt(i).onEvent(event);
+        subscriptions[i].listener.onEvent(event);
       } catch (Exception e) {
         Logger.error("dispatching error: ", e);
       }
@@ -37,21 +340,107 @@ public class EventManager {
   }
 
   /**
-   * Adds a new listener to the list of listeners.
+   * Delivers the event to the given subscriptions and records the latency of the event and the time spent per listener
+   * with the profiler.
+   *
+   * @param event         the event to deliver
+   * @param type          the ordinal of the event type
+   * @param subscriptions the subscriptions to the event type
+   * @param profiler      the profiler recording the statistics
+   */
+  private void deliverProfiled(AbstractEvent event, int type, Subscription[] subscriptions, DispatchProfiler profiler) {
+    long start = Clock.nanoTime();
+    long before = start;
+
+    for (int i = 0; i < subscriptions.length; i++) {
+      try {
+        subscriptions[i].listener.onEvent(event);
+      } catch (Exception e) {
+        Logger.error("dispatching error: ", e);
+      }
+
+      long after = Clock.nanoTime();
+
+      profiler.recordListenerCall(type, subscriptions[i].slot, after - before);
+      before = after;
+    }
+
+    profiler.recordDelivery(type, start - event.getTimestamp(), before - start);
+  }
+
+  /**
+   * Adds a new listener that is subscribed to all event types.
    *
    * @param listener the listener to add
-   * @throws IllegalArgumentException if the listener is null or already exists
+   * @throws IllegalArgumentException if the listener is null
+   */
+  public synchronized void addListener(IEventListener listener) { this.addListener(listener, EVENT_TYPES); }
+
+  /**
+   * Adds a new listener that is subscribed to the given event types.
+   *
+   * @param listener   the listener to add
+   * @param eventTypes the event types the listener is interested in
+   * @throws IllegalArgumentException if the listener is null or no event type is given
    */
-  public synchronized void addListener(IEventListener listener) {
+  public synchronized void addListener(IEventListener listener, EventTypeEnum... eventTypes) {
     if (listener == null) {
       throw new IllegalArgumentException("Listener cannot be null");
     }
 
-    this.listeners.addElement(listener);
+    if (eventTypes == null || eventTypes.length == 0) {
+      throw new IllegalArgumentException("Event types cannot be null or empty");
+    }
+
+    boolean[] subscribed = new boolean[EVENT_TYPES.length];
+
+    for (int i = 0; i < eventTypes.length; i++) {
+      if (eventTypes[i] == null) {
+        throw new IllegalArgumentException("Event type cannot be null");
+      }
+
+      subscribed[eventTypes[i].ordinal()] = true;
+    }
+
+    Subscription[] current = this.table.subscriptions;
+    Subscription[] updated = new Subscription[current.length + 1];
+
+    int slot = findFreeSlot(current);
+
+    System.arraycopy(current, 0, updated, 0, current.length);
+    updated[current.length] = new Subscription(listener, subscribed, slot);
+
+    if (slot >= 0 && this.profiler != null) {
+      this.profiler.assignSlot(slot, listener);
+    }
+
+    this.publish(updated);
+  }
+
+  /**
+   * Returns the lowest profiler slot that is not used by any of the given subscriptions.
+   *
+   * @param subscriptions the current subscriptions
+   * @return the free slot, or -1 if all slots are used.
+   */
+  private static int findFreeSlot(Subscription[] subscriptions) {
+    for (int slot = 0; slot < DispatchStats.LISTENER_SLOTS; slot++) {
+      boolean used = false;
+
+      for (int i = 0; i < subscriptions.length && !used; i++) {
+        used = subscriptions[i].slot == slot;
+      }
+
+      if (!used) {
+        return slot;
+      }
+    }
+
+    return -1;
   }
 
   /**
-   * Removes a listener from the list of listeners.
+   * Removes a listener from all of its subscriptions.
    *
    * @param listener the listener to remove
    * @throws IllegalArgumentException if the listener is null or does not exist
@@ -61,18 +450,388 @@ public class EventManager {
       throw new IllegalArgumentException("Listener cannot be null");
     }
 
-    boolean removed = this.listeners.removeElement(listener);
+    Subscription[] current = this.table.subscriptions;
+
+    for (int i = 0; i < current.length; i++) {
+      if (current[i].listener != listener) {
+        continue;
+      }
+
+      Subscription[] updated = new Subscription[current.length - 1];
+
+      System.arraycopy(current, 0, updated, 0, i);
+      System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
 
-    if (!removed) {
-      throw new IllegalArgumentException("Listener does not exist. State inconsistent.");
+      this.publish(updated);
+      return;
     }
+
+    throw new IllegalArgumentException("Listener does not exist. State inconsistent.");
   }
 
   /**
-   * Returns the current number of registered listeners. Note: Due to the nature of CopyOnWriteArrayList, the size might
-   * change immediately after this call if listeners are added or removed concurrently.
+   * Returns the current number of registered listeners. Note: the size might change immediately after this call if
+   * listeners are added or removed concurrently.
    *
    * @return the number of listeners.
    */
-  public int getListenerCount() { return this.listeners.size(); }
+  public int getListenerCount() { return this.table.subscriptions.length; }
+
+  /**
+   * Returns the current number of listeners subscribed to the given event type.
+   *
+   * @param eventType the event type to count the listeners for
+   * @return the number of listeners subscribed to the event type.
+   */
+  public int getListenerCount(EventTypeEnum eventType) {
+    return this.table.byType[eventType.ordinal()].length;
+  }
+
+  /**
+   * Returns the profiler slot of the given listener. The statistics of the listener are recorded under this slot.
+   *
+   * @param listener the listener to look up
+   * @return the slot of the listener, or -1 if it is not registered or all slots were used when it was registered.
+   */
+  public int getListenerSlot(IEventListener listener) {
+    Subscription[] current = this.table.subscriptions;
+
+    for (int i = 0; i < current.length; i++) {
+      if (current[i].listener == listener) {
+        return current[i].slot;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Attaches a profiler that records the dispatch statistics from now on, or detaches the current one.
+   *
+   * @param profiler the profiler to attach, or null to stop profiling
+   */
+  public synchronized void setProfiler(DispatchProfiler profiler) {
+    if (profiler != null) {
+      Subscription[] current = this.table.subscriptions;
+
+      for (int i = 0; i < current.length; i++) {
+        if (current[i].slot >= 0) {
+          profiler.assignSlot(current[i].slot, current[i].listener);
+        }
+      }
+    }
+
+    this.profiler = profiler;
+  }
+
+  /**
+   * Returns the attached profiler.
+   *
+   * @return the profiler, or null if dispatching is not profiled.
+   */
+  public DispatchProfiler getProfiler() { return this.profiler; }
+
+  /**
+   * Attaches a recorder that journals every dispatched event from now on, or detaches the current one.
+   *
+   * @param recorder the recorder to attach, or null to stop recording
+   */
+  public void setRecorder(FlightRecorder recorder) { this.recorder = recorder; }
+
+  /**
+   * Returns the attached recorder.
+   *
+   * @return the recorder, or null if events are not recorded.
+   */
+  public FlightRecorder getRecorder() { return this.recorder; }
+
+  /**
+   * Enables or disables coalescing of queued events of the given type. Has no effect if events are delivered
+   * synchronously.
+   *
+   * @param eventType the event type to configure
+   * @param enabled   true if a queued event should be replaced by a newer one with the same coalescing key
+   * @throws IllegalArgumentException if the event type is null
+   */
+  public void setCoalescing(EventTypeEnum eventType, boolean enabled) {
+    if (eventType == null) {
+      throw new IllegalArgumentException("Event type cannot be null");
+    }
+
+    synchronized (this.queueLock) {
+      this.coalescing[eventType.ordinal()] = enabled;
+    }
+  }
+
+  /**
+   * Returns the number of queued events of the given type that were merged into a newer event.
+   *
+   * @param eventType the event type to count the merged events for
+   * @return the number of merged events of the type.
+   */
+  public int getCoalescedEventCount(EventTypeEnum eventType) {
+    synchronized (this.queueLock) {
+      return this.coalescedEventCounts[eventType.ordinal()];
+    }
+  }
+
+  /**
+   * Returns the number of queued events of all types that were merged into a newer event.
+   *
+   * @return the number of merged events.
+   */
+  public int getCoalescedEventCount() {
+    synchronized (this.queueLock) {
+      int count = 0;
+
+      for (int i = 0; i < this.coalescedEventCounts.length; i++) {
+        count += this.coalescedEventCounts[i];
+      }
+
+      return count;
+    }
+  }
+
+  /**
+   * Sets the staleness deadline of the given event type. Events of the type that are older than the deadline when they
+   * are delivered are dropped. The deadlines are copied on write like the subscriptions, so this may be called while
+   * events are delivered.
+   *
+   * @param eventType  the event type to configure
+   * @param deadlineMs the deadline in milliseconds, or 0 if events of the type never expire
+   * @throws IllegalArgumentException if the event type is null or the deadline is negative
+   */
+  public synchronized void setDeadline(EventTypeEnum eventType, int deadlineMs) {
+    if (eventType == null) {
+      throw new IllegalArgumentException("Event type cannot be null");
+    }
+
+    if (deadlineMs < 0) {
+      throw new IllegalArgumentException("Deadline cannot be negative");
+    }
+
+    long[] updated = new long[EVENT_TYPES.length];
+
+    System.arraycopy(this.deadlines, 0, updated, 0, updated.length);
+    updated[eventType.ordinal()] = deadlineMs * 1000000L;
+
+    this.deadlines = updated;
+  }
+
+  /**
+   * Returns the number of events of the given type that were dropped because they were older than their deadline.
+   *
+   * @param eventType the event type to count the expired events for
+   * @return the number of expired events of the type.
+   */
+  public int getExpiredEventCount(EventTypeEnum eventType) {
+    synchronized (this.queueLock) {
+      return this.expiredEventCounts[eventType.ordinal()];
+    }
+  }
+
+  /**
+   * Returns the number of events of all types that were dropped because they were older than their deadline.
+   *
+   * @return the number of expired events.
+   */
+  public int getExpiredEventCount() {
+    synchronized (this.queueLock) {
+      int count = 0;
+
+      for (int i = 0; i < this.expiredEventCounts.length; i++) {
+        count += this.expiredEventCounts[i];
+      }
+
+      return count;
+    }
+  }
+
+  /**
+   * Sets the maximum number of events delivered per call to processQueue(). Events beyond the budget stay queued,
+   * lower lanes first.
+   *
+   * @param tickBudget the maximum number of events per tick, or 0 if unlimited
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  public void setTickBudget(int tickBudget) {
+    if (tickBudget < 0) {
+      throw new IllegalArgumentException("Tick budget cannot be negative");
+    }
+
+    this.tickBudget = tickBudget;
+  }
+
+  /**
+   * Returns whether events are queued and delivered by processQueue().
+   *
+   * @return true if events are queued, false if they are delivered synchronously.
+   */
+  public boolean isQueued() { return this.lanes != null; }
+
+  /**
+   * Returns the number of events currently queued in the given lane.
+   *
+   * @param priority the priority lane
+   * @return the number of queued events, 0 if events are delivered synchronously.
+   */
+  public int getQueueDepth(EventPriorityEnum priority) {
+    if (this.lanes == null) {
+      return 0;
+    }
+
+    synchronized (this.queueLock) {
+      return this.lanes[priority.ordinal()].getDepth();
+    }
+  }
+
+  /**
+   * Returns the highest number of events that were queued in the given lane at the same time.
+   *
+   * @param priority the priority lane
+   * @return the high-water mark of the lane, 0 if events are delivered synchronously.
+   */
+  public int getMaxQueueDepth(EventPriorityEnum priority) {
+    if (this.lanes == null) {
+      return 0;
+    }
+
+    synchronized (this.queueLock) {
+      return this.lanes[priority.ordinal()].getMaxDepth();
+    }
+  }
+
+  /**
+   * Returns the number of events of the given lane dropped because the lane or the event queue was full.
+   *
+   * @param priority the priority lane
+   * @return the number of dropped events, 0 if events are delivered synchronously.
+   */
+  public int getDroppedEventCount(EventPriorityEnum priority) {
+    if (this.lanes == null) {
+      return 0;
+    }
+
+    synchronized (this.queueLock) {
+      return this.lanes[priority.ordinal()].getDroppedCount();
+    }
+  }
+
+  /**
+   * Returns the number of events currently queued in all lanes.
+   *
+   * @return the number of queued events.
+   */
+  public int getQueueDepth() {
+    int depth = 0;
+
+    for (int i = 0; i < PRIORITIES.length; i++) {
+      depth += this.getQueueDepth(PRIORITIES[i]);
+    }
+
+    return depth;
+  }
+
+  /**
+   * Returns the number of events dropped because their lane was full, summed over all lanes.
+   *
+   * @return the number of dropped events.
+   */
+  public int getDroppedEventCount() {
+    int count = 0;
+
+    for (int i = 0; i < PRIORITIES.length; i++) {
+      count += this.getDroppedEventCount(PRIORITIES[i]);
+    }
+
+    return count;
+  }
+
+  /**
+   * Swaps in a table of the given subscriptions with a single write. Must be called while holding the lock, so
+   * concurrent registration changes are not lost.
+   *
+   * @param subscriptions the new subscriptions in registration order
+   */
+  private void publish(Subscription[] subscriptions) { this.table = new SubscriptionTable(subscriptions); }
+
+  /**
+   * An immutable snapshot of the subscriptions: the subscriptions in registration order and the subscriptions per event
+   * type built from them. Neither array is modified after construction.
+   */
+  private static final class SubscriptionTable {
+    /**
+     * Subscriptions in registration order.
+     */
+    private final Subscription[] subscriptions;
+
+    /**
+     * Subscriptions per event type, indexed by the ordinal of the event type.
+     */
+    private final Subscription[][] byType;
+
+    /**
+     * Constructor for the SubscriptionTable class, builds the subscriptions per event type.
+     *
+     * @param subscriptions the subscriptions in registration order
+     */
+    private SubscriptionTable(Subscription[] subscriptions) {
+      this.subscriptions = subscriptions;
+      this.byType = new Subscription[EVENT_TYPES.length][];
+
+      for (int type = 0; type < EVENT_TYPES.length; type++) {
+        int count = 0;
+
+        for (int i = 0; i < subscriptions.length; i++) {
+          if (subscriptions[i].eventTypes[type]) {
+            count++;
+          }
+        }
+
+        Subscription[] subscribed = new Subscription[count];
+        int next = 0;
+
+        for (int i = 0; i < subscriptions.length; i++) {
+          if (subscriptions[i].eventTypes[type]) {
+            subscribed[next++] = subscriptions[i];
+          }
+        }
+
+        this.byType[type] = subscribed;
+      }
+    }
+  }
+
+  /**
+   * A listener together with the event types it is subscribed to and its profiler slot.
+   */
+  private static final class Subscription {
+    /**
+     * The subscribed listener.
+     */
+    private final IEventListener listener;
+
+    /**
+     * Flags indexed by the ordinal of the event type, true if the listener is subscribed to the type.
+     */
+    private final boolean[] eventTypes;
+
+    /**
+     * The profiler slot of the listener, -1 if the listener is not profiled individually.
+     */
+    private final int slot;
+
+    /**
+     * Constructor for the Subscription class.
+     *
+     * @param listener   the subscribed listener
+     * @param eventTypes flags indexed by the ordinal of the event type
+     * @param slot       the profiler slot of the listener, or -1
+     */
+    private Subscription(IEventListener listener, boolean[] eventTypes, int slot) {
+      this.listener = listener;
+      this.eventTypes = eventTypes;
+      this.slot = slot;
+    }
+  }
 }
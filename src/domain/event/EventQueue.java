@@ -0,0 +1,186 @@
+package domain.event;
+
+import domain.event.base.AbstractEvent;
+import shared.constants.EventTypeEnum;
+
+/**
+ * EventQueue is a preallocated ring buffer of events, used by the EventManager for one priority lane.
+ * The EventManager decides which lane makes room when the event queue is full. If the ring buffer itself is full, the
+ * oldest event is dropped to make room for the new one, so the freshest events are kept.
+ * This class is not thread-safe, the EventManager guards all queues with its queue lock.
+ */
+final class EventQueue {
+  /**
+   * The ring buffer of queued events.
+   */
+  private final AbstractEvent[] events;
+
+  /**
+   * Index of the oldest queued event in the ring buffer.
+   */
+  private int head = 0;
+
+  /**
+   * Number of events currently queued.
+   */
+  private int depth = 0;
+
+  /**
+   * Highest number of events queued at the same time.
+   */
+  private int maxDepth = 0;
+
+  /**
+   * Number of events dropped because the queue or the event queue of the EventManager was full.
+   */
+  private int droppedCount = 0;
+
+  /**
+   * Constructor for the EventQueue class.
+   *
+   * @param capacity the maximum number of queued events
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  EventQueue(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+
+    this.events = new AbstractEvent[capacity];
+  }
+
+  /**
+   * Appends the event to the queue. If the queue is full, the oldest event is dropped.
+   *
+   * @param event the event to append
+   * @return true if the oldest event was dropped to make room.
+   */
+  boolean offer(AbstractEvent event) {
+    boolean dropped = this.depth == this.events.length;
+
+    if (dropped) {
+      this.dropOldest();
+    }
+
+    this.events[(this.head + this.depth) % this.events.length] = event;
+    this.depth++;
+
+    if (this.depth > this.maxDepth) {
+      this.maxDepth = this.depth;
+    }
+
+    return dropped;
+  }
+
+  /**
+   * Removes the oldest queued event and counts it as dropped. Does nothing if the queue is empty.
+   */
+  void dropOldest() {
+    if (this.poll() != null) {
+      this.droppedCount++;
+    }
+  }
+
+  /**
+   * Counts an event that was dropped instead of being appended, because there was no room for it.
+   */
+  void countDropped() { this.droppedCount++; }
+
+  /**
+   * Removes and returns the oldest queued event.
+   *
+   * @return the oldest event, or null if the queue is empty.
+   */
+  AbstractEvent poll() {
+    if (this.depth == 0) {
+      return null;
+    }
+
+    AbstractEvent event = this.events[this.head];
+
+    this.events[this.head] = null;
+    this.head = (this.head + 1) % this.events.length;
+    this.depth--;
+
+    return event;
+  }
+
+  /**
+   * Removes the queued event at the given ring buffer index. The events queued after it move up by one, so the FIFO
+   * order of the remaining events is kept.
+   *
+   * @param index the ring buffer index returned by indexOf() or indexOfSuperseded()
+   */
+  void remove(int index) {
+    int position = (index - this.head + this.events.length) % this.events.length;
+
+    for (int i = position; i < this.depth - 1; i++) {
+      this.events[(this.head + i) % this.events.length] = this.events[(this.head + i + 1) % this.events.length];
+    }
+
+    this.events[(this.head + this.depth - 1) % this.events.length] = null;
+    this.depth--;
+  }
+
+  /**
+   * Returns the ring buffer index of the given event instance.
+   *
+   * @param event the event to look for
+   * @return the index of the instance, or -1 if it is not queued.
+   */
+  int indexOf(AbstractEvent event) {
+    for (int i = 0; i < this.depth; i++) {
+      int index = (this.head + i) % this.events.length;
+
+      if (this.events[index] == event) {
+        return index;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Returns the ring buffer index of a queued event that is superseded by the given event, because it has the same
+   * type and coalescing key.
+   *
+   * @param event the newer event
+   * @return the index of the superseded event, or -1 if there is none.
+   */
+  int indexOfSuperseded(AbstractEvent event) {
+    EventTypeEnum type = event.getType();
+    int key = event.getCoalescingKey();
+
+    for (int i = 0; i < this.depth; i++) {
+      int index = (this.head + i) % this.events.length;
+      AbstractEvent queued = this.events[index];
+
+      if (queued.getType() == type && queued.getCoalescingKey() == key) {
+        return index;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Returns the number of events currently queued.
+   *
+   * @return the number of queued events.
+   */
+  int getDepth() { return this.depth; }
+
+  /**
+   * Returns the highest number of events that were queued at the same time.
+   *
+   * @return the high-water mark of the queue.
+   */
+  int getMaxDepth() { return this.maxDepth; }
+
+  /**
+   * Returns the number of events dropped because the queue or the event queue of the EventManager was full.
+   *
+   * @return the number of dropped events.
+   */
+  int getDroppedCount() { return this.droppedCount; }
+}
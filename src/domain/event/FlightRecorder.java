@@ -0,0 +1,357 @@
+package domain.event;
+
+import domain.event.base.AbstractEvent;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import shared.constants.OrientationEnum;
+import shared.constants.RoboStateEnum;
+import shared.util.Clock;
+import shared.util.Logger;
+
+/**
+ * FlightRecorder journals every dispatched event into a preallocated ring buffer in RAM, so the last events before a
+ * bad run or a crash can be analyzed afterward. If the buffer is full, the oldest records are overwritten. Recording an
+ * event does not allocate, the journal is written to a flash file by flush() when the event loop is cleaned up.
+ * <p>
+ * Record layout: length of the record including this byte (1 byte), event type ordinal (1 byte), microseconds since
+ * the previous record (zigzag varint, see EventCodec.writeVarint()), payload (see EventCodec). The deltas do not wrap
+ * however long the recorder runs, and a delta may be negative, as events are recorded in dispatch order.
+ * The delta of the oldest record refers to an overwritten record and is ignored.
+ * <p>
+ * Besides the events, the event loop records a TICK_RECORD without payload each time it runs the controller, so a
+ * replay runs the controller at the recorded times. Once a quarter of the ring buffer was written since the last one,
+ * it also records a SNAPSHOT_RECORD of the state that outlives the overwritten records: state ordinal (1 byte),
+ * orientation ordinal (1 byte), floor, stripe and line edge light values (2 bytes each, big-endian) and the line
+ * status (1 byte). After the ring buffer wrapped, a replay starts at the oldest snapshot, which lies within the oldest
+ * quarter.
+ * <p>
+ * File layout: MAGIC (4 bytes), VERSION (1 byte), wall clock time of the recorder start in milliseconds (8 bytes),
+ * microseconds from the recorder start to the oldest record (8 bytes), number of overwritten records (4 bytes), number
+ * of journal bytes (4 bytes), records from the oldest to the newest.
+ */
+public final class FlightRecorder {
+  /**
+   * Name of the flash file the journal is written to.
+   */
+  public static final String FILE_NAME = "flight.rec";
+
+  /**
+   * Marker at the start of a journal file, "FREC" in ASCII.
+   */
+  public static final int MAGIC = 0x46524543;
+
+  /**
+   * Version of the journal format.
+   */
+  public static final int VERSION = 3;
+
+  /**
+   * Type of a record marking a tick of the event loop, above the ordinals of the event types.
+   */
+  public static final int TICK_RECORD = 0xFF;
+
+  /**
+   * Type of a record holding a snapshot of the controller state, above the ordinals of the event types.
+   */
+  public static final int SNAPSHOT_RECORD = 0xFE;
+
+  /**
+   * Size of the payload of a snapshot record.
+   */
+  public static final int SNAPSHOT_SIZE = 9;
+
+  /**
+   * Number of snapshots recorded per length of the ring buffer.
+   */
+  private static final int SNAPSHOTS_PER_BUFFER = 4;
+
+  /**
+   * Minimum size of the record header: length, event type and a time delta of a single byte.
+   */
+  public static final int MIN_HEADER_SIZE = 3;
+
+  /**
+   * Maximum size of a record in bytes.
+   */
+  private static final int MAX_RECORD_SIZE =
+      2 + EventCodec.MAX_VARINT_SIZE + Math.max(EventCodec.MAX_PAYLOAD_SIZE, SNAPSHOT_SIZE);
+
+  /**
+   * The ring buffer holding the records.
+   */
+  private final byte[] buffer;
+
+  /**
+   * Preallocated buffer the current record is encoded into before it is copied into the ring buffer.
+   */
+  private final byte[] record = new byte[MAX_RECORD_SIZE];
+
+  /**
+   * Monotonic time in nanoseconds when the recorder was created, the base of the record timestamps.
+   */
+  private final long startNanos = Clock.nanoTime();
+
+  /**
+   * Wall clock time in milliseconds when the recorder was created.
+   */
+  private final long startMillis = Clock.currentTimeMillis();
+
+  /**
+   * Index of the first byte of the oldest record in the ring buffer.
+   */
+  private int tail = 0;
+
+  /**
+   * Number of bytes used by the records in the ring buffer.
+   */
+  private int size = 0;
+
+  /**
+   * Microseconds from the recorder start to the oldest record in the ring buffer.
+   */
+  private long tailMicros = 0;
+
+  /**
+   * Microseconds from the recorder start to the newest record, the base of the delta of the next record.
+   */
+  private long lastMicros = 0;
+
+  /**
+   * Microseconds from the recorder start to the record being encoded.
+   */
+  private long recordMicros = 0;
+
+  /**
+   * Number of bytes recorded since the last snapshot.
+   */
+  private int bytesSinceSnapshot = 0;
+
+  /**
+   * Number of records that were overwritten because the ring buffer was full.
+   */
+  private int overwrittenCount = 0;
+
+  /**
+   * Constructor for the FlightRecorder class.
+   *
+   * @param capacity the size of the ring buffer in bytes
+   * @throws IllegalArgumentException if the capacity cannot hold a single record
+   */
+  public FlightRecorder(int capacity) {
+    if (capacity < MAX_RECORD_SIZE) {
+      throw new IllegalArgumentException("Capacity must hold at least one record");
+    }
+
+    this.buffer = new byte[capacity];
+  }
+
+  /**
+   * Appends a record of the event to the journal, overwriting the oldest records if the ring buffer is full.
+   *
+   * @param event the event to record
+   */
+  public synchronized void record(AbstractEvent event) {
+    int offset = this.beginRecord(event.getType().ordinal(), event.getTimestamp());
+
+    this.appendRecord(EventCodec.encode(event, this.record, offset));
+  }
+
+  /**
+   * Appends a tick marker to the journal. Called by the event loop each time it runs the controller.
+   */
+  public synchronized void recordTick() { this.appendRecord(this.beginRecord(TICK_RECORD, Clock.nanoTime())); }
+
+  /**
+   * Returns whether a quarter of the ring buffer was written since the last snapshot, so the event loop should record
+   * one.
+   *
+   * @return true if a snapshot is due.
+   */
+  public synchronized boolean isSnapshotDue() {
+    return this.bytesSinceSnapshot >= this.buffer.length / SNAPSHOTS_PER_BUFFER;
+  }
+
+  /**
+   * Appends a snapshot of the controller state to the journal, so a replay can start from it after older records were
+   * overwritten.
+   *
+   * @param state          the current state of the robot
+   * @param orientation    the current orientation of the robot
+   * @param floorLight     the calibrated light value of the floor
+   * @param stripeLight    the calibrated light value of the stripe
+   * @param lineEdgeLight  the self-optimizing light value of the line edge
+   * @param onLine         true if the robot is on the line
+   * @throws NullPointerException if the state or the orientation is null
+   */
+  public synchronized void recordSnapshot(RoboStateEnum state, OrientationEnum orientation, int floorLight,
+                                          int stripeLight, int lineEdgeLight, boolean onLine) {
+    int offset = this.beginRecord(SNAPSHOT_RECORD, Clock.nanoTime());
+
+    this.record[offset++] = (byte)state.ordinal();
+    this.record[offset++] = (byte)orientation.ordinal();
+    offset = writeShort(this.record, offset, floorLight);
+    offset = writeShort(this.record, offset, stripeLight);
+    offset = writeShort(this.record, offset, lineEdgeLight);
+    this.record[offset++] = (byte)(onLine ? 1 : 0);
+
+    this.appendRecord(offset);
+    this.bytesSinceSnapshot = 0;
+  }
+
+  /**
+   * Writes the type and the time delta of a record into the record buffer.
+   *
+   * @param type  the event type ordinal, TICK_RECORD or SNAPSHOT_RECORD
+   * @param nanos the monotonic time of the record in nanoseconds
+   * @return the index of the payload in the record buffer.
+   */
+  private int beginRecord(int type, long nanos) {
+    this.recordMicros = (nanos - this.startNanos) / 1000;
+    this.record[1] = (byte)type;
+
+    return EventCodec.writeVarint(this.record, 2, this.recordMicros - this.lastMicros);
+  }
+
+  /**
+   * Copies the record in the record buffer into the ring buffer, overwriting the oldest records if it is full.
+   *
+   * @param length the length of the record
+   */
+  private void appendRecord(int length) {
+    this.record[0] = (byte)length;
+
+    while (this.buffer.length - this.size < length) {
+      this.overwriteOldest();
+    }
+
+    if (this.size == 0) {
+      this.tailMicros = this.recordMicros;
+    }
+
+    this.lastMicros = this.recordMicros;
+    this.bytesSinceSnapshot += length;
+
+    int head = (this.tail + this.size) % this.buffer.length;
+    int firstPart = Math.min(length, this.buffer.length - head);
+
+    System.arraycopy(this.record, 0, this.buffer, head, firstPart);
+    System.arraycopy(this.record, firstPart, this.buffer, 0, length - firstPart);
+
+    this.size += length;
+  }
+
+  /**
+   * Removes the oldest record from the ring buffer. The time of the next record becomes the time of the oldest record.
+   */
+  private void overwriteOldest() {
+    int oldest = this.buffer[this.tail] & 0xFF;
+
+    this.tail = (this.tail + oldest) % this.buffer.length;
+    this.size -= oldest;
+    this.overwrittenCount++;
+
+    if (this.size > 0) {
+      this.tailMicros += this.readDelta((this.tail + 2) % this.buffer.length);
+    }
+  }
+
+  /**
+   * Writes the lower 16 bits of the value into the buffer, big-endian.
+   *
+   * @param buffer the buffer to write to
+   * @param offset the index to start writing at
+   * @param value  the value to write
+   * @return the index after the last written byte.
+   */
+  private static int writeShort(byte[] buffer, int offset, int value) {
+    buffer[offset++] = (byte)(value >> 8);
+    buffer[offset++] = (byte)value;
+
+    return offset;
+  }
+
+  /**
+   * Reads the time delta of a record from the ring buffer.
+   *
+   * @param index the index of the first byte of the delta
+   * @return the delta in microseconds.
+   */
+  private long readDelta(int index) {
+    long zigzag = 0;
+    int shift = 0;
+    int b;
+
+    do {
+      b = this.buffer[index];
+      zigzag |= (long)(b & 0x7F) << shift;
+      shift += 7;
+      index = (index + 1) % this.buffer.length;
+    } while ((b & 0x80) != 0);
+
+    return (zigzag >>> 1) ^ -(zigzag & 1);
+  }
+
+  /**
+   * Writes the journal to the given flash file, replacing an existing file. The journal is kept, so it can be flushed
+   * again later.
+   *
+   * @param fileName the name of the file to write
+   * @return true if the journal was written, false otherwise.
+   */
+  public synchronized boolean flush(String fileName) {
+    DataOutputStream out = null;
+
+    try {
+      File file = new File(fileName);
+
+      if (file.exists()) {
+        file.delete();
+      }
+
+      file.createNewFile();
+      out = new DataOutputStream(new FileOutputStream(file));
+
+      out.writeInt(MAGIC);
+      out.writeByte(VERSION);
+      out.writeLong(this.startMillis);
+      out.writeLong(this.tailMicros);
+      out.writeInt(this.overwrittenCount);
+      out.writeInt(this.size);
+
+      int firstPart = Math.min(this.size, this.buffer.length - this.tail);
+
+      out.write(this.buffer, this.tail, firstPart);
+      out.write(this.buffer, 0, this.size - firstPart);
+      out.flush();
+
+      return true;
+    } catch (Exception e) {
+      Logger.error("flight record error", e);
+
+      return false;
+    } finally {
+      if (out != null) {
+        try {
+          out.close();
+        } catch (Exception e) {
+          Logger.error("flight record close error", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of bytes currently used by the journal.
+   *
+   * @return the size of the journal in bytes.
+   */
+  public synchronized int getSize() { return this.size; }
+
+  /**
+   * Returns the number of records that were overwritten because the ring buffer was full.
+   *
+   * @return the number of overwritten records.
+   */
+  public synchronized int getOverwrittenCount() { return this.overwrittenCount; }
+}
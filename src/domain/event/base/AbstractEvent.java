@@ -1,5 +1,8 @@
 package domain.event.base;
 
+import shared.constants.EventPriorityEnum;
+import shared.util.Clock;
+
 /**
  * This class represents an abstract event with a timestamp. This class is intended to be inherited by specific
  * event classes and later dispatched to the appropriate event handler.* It provides a constructor to
@@ -7,22 +10,52 @@ package domain.event.base;
  */
 abstract public class AbstractEvent implements IEvent {
   /**
-   * The timestamp of the event, representing the time when the event was created.
+   * The timestamp of the event, representing the time when the event was created or last renewed.
    */
-  private final long timestamp;
+  private long timestamp;
 
   /**
-   * Constructor that initializes the timestamp of the event to the current system time in milliseconds.
+   * Constructor that initializes the timestamp of the event to the current value of the monotonic nanosecond clock.
    */
-  public AbstractEvent() { this.timestamp = System.currentTimeMillis(); }
+  public AbstractEvent() { this.timestamp = Clock.nanoTime(); }
 
   /**
-   * Returns the timestamp of the event.
+   * Returns the timestamp of the event. The timestamp is taken from the monotonic nanosecond clock, so it is only
+   * meaningful relative to other timestamps of the same clock.
    *
-   * @return the timestamp of the event in milliseconds.
+   * @return the timestamp of the event in nanoseconds.
    */
   @Override
   public long getTimestamp() {
     return this.timestamp;
   }
+
+  /**
+   * Returns whether the event instance is pooled. A pooled event is reused by its producer for later events, so it is
+   * only valid while it is being dispatched. Listeners must copy the values they need and must not keep a reference.
+   *
+   * @return true if the event instance is pooled, false otherwise.
+   */
+  public boolean isPooled() { return false; }
+
+  /**
+   * Returns the key used to coalesce queued events of the same type. If coalescing is enabled for the type, a queued
+   * event is replaced by a newer one with the same key. By default, all events of a type share the same key.
+   *
+   * @return the coalescing key of the event.
+   */
+  public int getCoalescingKey() { return 0; }
+
+  /**
+   * Returns the priority lane of the event. By default, this is the priority of the event type.
+   *
+   * @return the priority lane of the event.
+   */
+  public EventPriorityEnum getPriority() { return this.getType().getPriority(); }
+
+  /**
+   * Renews the timestamp of the event to the current value of the monotonic nanosecond clock. Used by pooled events
+   * when they are reused for a new event.
+   */
+  protected void renewTimestamp() { this.timestamp = Clock.nanoTime(); }
 }
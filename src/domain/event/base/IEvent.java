@@ -1,14 +1,23 @@
 package domain.event.base;
 
+import shared.constants.EventTypeEnum;
+
 /**
  * IEvent is an interface that defines the methods for an event.
- * It provides a method to retrieve the timestamp of the event.
+ * It provides methods to retrieve the timestamp and the type of the event.
  */
 public interface IEvent {
   /**
-   * Returns the timestamp of the event.
+   * Returns the timestamp of the event, taken from the monotonic nanosecond clock.
    *
-   * @return the timestamp of the event in milliseconds.
+   * @return the timestamp of the event in nanoseconds.
    */
   long getTimestamp();
+
+  /**
+   * Returns the type of the event. The type is used by the EventManager to route the event to subscribed listeners.
+   *
+   * @return the type of the event.
+   */
+  EventTypeEnum getType();
 }
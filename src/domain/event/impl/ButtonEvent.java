@@ -1,12 +1,28 @@
 package domain.event.impl;
 
 import domain.event.base.AbstractEvent;
+import shared.constants.EventTypeEnum;
 
 /**
  * ButtonEvent is an event that represents a button press on the robot.
  * It extends the AbstractEvent class and contains a reference to the button ID that generated the event.
  */
 public class ButtonEvent extends AbstractEvent {
+  /**
+   * The type of the event.
+   */
+  private static final EventTypeEnum TYPE = EventTypeEnum.BUTTON;
+
+  /**
+   * The ID of the ENTER button. Button IDs are fixed names, so recorded runs can be replayed.
+   */
+  public static final String ENTER = "ENTER";
+
+  /**
+   * The ID of the ESCAPE button.
+   */
+  public static final String ESCAPE = "ESCAPE";
+
   /**
    * The ID of the button that generated the event.
    */
@@ -38,4 +54,9 @@ public class ButtonEvent extends AbstractEvent {
    * @return the string representation of the button event
    */
   public String toExposableString() { return "BUTTON:" + this.buttonId; }
+
+  @Override
+  public EventTypeEnum getType() {
+    return TYPE;
+  }
 }
@@ -2,6 +2,7 @@ package domain.event.impl;
 
 import domain.event.base.AbstractEvent;
 import domain.event.base.IExposableEvent;
+import shared.constants.EventTypeEnum;
 import shared.constants.RoboStateEnum;
 
 /**
@@ -9,6 +10,11 @@ import shared.constants.RoboStateEnum;
  * It extends the AbstractEvent class and contains a reference to the new state of the robot.
  */
 public class ChangeStateEvent extends AbstractEvent implements IExposableEvent {
+  /**
+   * The type of the event.
+   */
+  private static final EventTypeEnum TYPE = EventTypeEnum.CHANGE_STATE;
+
   /**
    * The new state of the robot that generated the event.
    */
@@ -43,4 +49,9 @@ public class ChangeStateEvent extends AbstractEvent implements IExposableEvent {
   public String toExposableString() {
     return "NEW_STATE|" + this.newState;
   }
+
+  @Override
+  public EventTypeEnum getType() {
+    return TYPE;
+  }
 }
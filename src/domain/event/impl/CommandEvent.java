@@ -1,31 +1,82 @@
 package domain.event.impl;
 
 import domain.command.base.ICommand;
+import domain.command.impl.MoveCommand;
 import domain.event.base.AbstractEvent;
+import shared.constants.EventTypeEnum;
 
 /**
  * CommandEvent is an event that represents a command that has to be executed in the system.
  * More specifically, the commands are created by the user connected via bluetooth and e.g., want to control the
  * movement or speed of the robot. It extends the AbstractEvent class and contains a reference to the command being
  * executed.
+ * <p>
+ * The receiver uses a pooled instance for move commands that is recycled for every move, so steady manual driving
+ * does not allocate. A pooled instance is only valid while it is dispatched (see isPooled()).
  */
 public class CommandEvent extends AbstractEvent {
   /**
    * The command that has to be executed in the system.
    */
-  private final ICommand command;
+  private ICommand command;
+
+  /**
+   * The type of the event. Move commands get their own type, as they are sent at joystick rate and are only of
+   * interest to the user control strategy.
+   */
+  private final EventTypeEnum type;
+
+  /**
+   * Indicates whether the instance is pooled and will be recycled for later commands.
+   */
+  private final boolean pooled;
+
+  /**
+   * Constructor that initializes the CommandEvent with the command.
+   *
+   * @param command the command that has to be executed in the system
+   */
+  public CommandEvent(ICommand command) { this(command, false); }
 
   /**
    * Constructor that initializes the CommandEvent with the command.
    *
    * @param command the command that has to be executed in the system
+   * @param pooled  true if the instance will be recycled for later commands of the same type
+   */
+  public CommandEvent(ICommand command, boolean pooled) {
+    if (command == null) {
+      throw new NullPointerException();
+    }
+
+    this.command = command;
+    this.type = command instanceof MoveCommand ? EventTypeEnum.MOVE_COMMAND : EventTypeEnum.COMMAND;
+    this.pooled = pooled;
+  }
+
+  /**
+   * Recycles the pooled instance for a new command of the same type. The timestamp is renewed.
+   *
+   * @param command the new command
+   * @throws NullPointerException     if the command is null
+   * @throws IllegalStateException    if the instance is not pooled
+   * @throws IllegalArgumentException if the command is a move command and the previous one was not, or vice versa
    */
-  public CommandEvent(ICommand command) {
+  public void recycle(ICommand command) {
+    if (!this.pooled) {
+      throw new IllegalStateException("Command event is not pooled");
+    }
+
     if (command == null) {
       throw new NullPointerException();
     }
 
+    if ((command instanceof MoveCommand) != (this.type == EventTypeEnum.MOVE_COMMAND)) {
+      throw new IllegalArgumentException("Command type cannot change");
+    }
+
     this.command = command;
+    this.renewTimestamp();
   }
 
   /**
@@ -35,6 +86,16 @@ public class CommandEvent extends AbstractEvent {
    */
   public ICommand getCommand() { return this.command; }
 
+  @Override
+  public EventTypeEnum getType() {
+    return this.type;
+  }
+
+  @Override
+  public boolean isPooled() {
+    return this.pooled;
+  }
+
   /**
    * Returns the string representation of the command event.
    *
@@ -0,0 +1,128 @@
+package domain.event.impl;
+
+import domain.event.DispatchProfiler;
+import domain.event.DispatchStats;
+import domain.event.base.AbstractEvent;
+import domain.event.base.IExposableEvent;
+import shared.constants.EventTypeEnum;
+
+/**
+ * DispatchStatsEvent is an event that carries a snapshot of the dispatch statistics recorded by a DispatchProfiler,
+ * so they can be streamed to the remote client. The instance is pooled: update() copies a new snapshot into the same
+ * preallocated statistics, so it is only valid while it is dispatched. The BluetoothTransmitter queues a copy.
+ */
+public class DispatchStatsEvent extends AbstractEvent implements IExposableEvent {
+  /**
+   * The type of the event.
+   */
+  private static final EventTypeEnum TYPE = EventTypeEnum.DISPATCH_STATS;
+
+  /**
+   * All event types, cached to avoid copying the values array on every exposure.
+   */
+  private static final EventTypeEnum[] EVENT_TYPES = EventTypeEnum.values();
+
+  /**
+   * The snapshot of the dispatch statistics.
+   */
+  private final DispatchStats stats = new DispatchStats();
+
+  /**
+   * Copies the statistics recorded so far by the given profiler into this event and renews its timestamp.
+   *
+   * @param profiler the profiler to take the snapshot from
+   * @throws NullPointerException if the profiler is null
+   */
+  public void update(DispatchProfiler profiler) {
+    if (profiler == null) {
+      throw new NullPointerException();
+    }
+
+    profiler.snapshot(this.stats);
+    this.renewTimestamp();
+  }
+
+  /**
+   * Copies the statistics of the given event into this event and renews the timestamp.
+   *
+   * @param event the event to copy
+   * @throws NullPointerException if the event is null
+   */
+  public void copyFrom(DispatchStatsEvent event) {
+    if (event == null) {
+      throw new NullPointerException();
+    }
+
+    this.stats.copyFrom(event.stats);
+    this.renewTimestamp();
+  }
+
+  /**
+   * Returns the snapshot of the dispatch statistics.
+   *
+   * @return the dispatch statistics.
+   */
+  public DispatchStats getStats() { return this.stats; }
+
+  /**
+   * Returns the statistics of all event types that were delivered at least once, followed by the statistics of all
+   * profiled listeners that were called at least once. Times are in microseconds, the histogram buckets are separated
+   * by slashes.
+   * Format: DISPATCH|TYPE:count,totalUs,maxUs,h0/../h7;L<slot>@TYPE:calls,totalUs,maxUs;
+   *
+   * @return the string representation of the statistics.
+   */
+  @Override
+  public String toExposableString() {
+    StringBuilder builder = new StringBuilder("DISPATCH|");
+
+    for (int i = 0; i < EVENT_TYPES.length; i++) {
+      EventTypeEnum type = EVENT_TYPES[i];
+
+      if (this.stats.getDeliveryCount(type) == 0) {
+        continue;
+      }
+
+      builder.append(type.name()).append(':').append(this.stats.getDeliveryCount(type)).append(',');
+      builder.append(this.stats.getDeliveryTotalNanos(type) / 1000).append(',');
+      builder.append(this.stats.getDeliveryMaxNanos(type) / 1000).append(',');
+
+      for (int bucket = 0; bucket < DispatchStats.LATENCY_BUCKETS; bucket++) {
+        if (bucket > 0) {
+          builder.append('/');
+        }
+
+        builder.append(this.stats.getLatencyCount(type, bucket));
+      }
+
+      builder.append(';');
+    }
+
+    for (int slot = 0; slot < DispatchStats.LISTENER_SLOTS; slot++) {
+      for (int i = 0; i < EVENT_TYPES.length; i++) {
+        EventTypeEnum type = EVENT_TYPES[i];
+
+        if (this.stats.getListenerCalls(type, slot) == 0) {
+          continue;
+        }
+
+        builder.append('L').append(slot).append('@').append(type.name()).append(':');
+        builder.append(this.stats.getListenerCalls(type, slot)).append(',');
+        builder.append(this.stats.getListenerTotalNanos(type, slot) / 1000).append(',');
+        builder.append(this.stats.getListenerMaxNanos(type, slot) / 1000).append(';');
+      }
+    }
+
+    return builder.toString();
+  }
+
+  @Override
+  public boolean isPooled() {
+    return true;
+  }
+
+  @Override
+  public EventTypeEnum getType() {
+    return TYPE;
+  }
+}
@@ -2,12 +2,18 @@ package domain.event.impl;
 
 import domain.event.base.AbstractEvent;
 import domain.event.base.IExposableEvent;
+import shared.constants.EventTypeEnum;
 
 /**
  * LineStatusEvent is an event that represents the status of a line (on or off).
  * It extends the AbstractEvent class and implements the IExposableEvent interface.
  */
 public class LineStatusEvent extends AbstractEvent implements IExposableEvent {
+  /**
+   * The type of the event.
+   */
+  private static final EventTypeEnum TYPE = EventTypeEnum.LINE_STATUS;
+
   /**
    * Indicates whether the line is currently on or off.
    */
@@ -36,4 +42,9 @@ public class LineStatusEvent extends AbstractEvent implements IExposableEvent {
   public String toExposableString() {
     return "LINE_STATUS|" + (onLine ? "ON" : "OFF");
   }
+
+  @Override
+  public EventTypeEnum getType() {
+    return TYPE;
+  }
 }
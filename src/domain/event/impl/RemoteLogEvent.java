@@ -2,32 +2,224 @@ package domain.event.impl;
 
 import domain.event.base.AbstractEvent;
 import domain.event.base.IExposableEvent;
+import shared.constants.EventTypeEnum;
+import shared.constants.LogLevelEnum;
 
 /**
  * RemoteLogEvent is an event that represents a log message generated by the robot.
  * It extends the AbstractEvent class and contains a reference to the log message.
+ * The message is either the formatted log line or, if encoded, the ID of a message in LogMessages with the level, the
+ * time and the argument, which the remote client expands with the dictionary. A third kind announces the hash of the
+ * dictionary, so the remote client can check that it expands the IDs with the dictionary of the same build.
  */
 public class RemoteLogEvent extends AbstractEvent implements IExposableEvent {
   /**
-   * The log message that generated the event.
+   * Argument kind of an encoded message without argument.
+   */
+  public static final int ARG_NONE = 0;
+
+  /**
+   * Argument kind of an encoded message with an int argument.
+   */
+  public static final int ARG_INT = 1;
+
+  /**
+   * Argument kind of an encoded message with a text argument.
+   */
+  public static final int ARG_TEXT = 2;
+
+  /**
+   * The type of the event.
+   */
+  private static final EventTypeEnum TYPE = EventTypeEnum.REMOTE_LOG;
+
+  private static final int KIND_TEXT = 0;       // formatted log line
+  private static final int KIND_ENCODED = 1;    // message ID, level, time and argument
+  private static final int KIND_DICTIONARY = 2; // hash of the dictionary
+
+  /**
+   * The kind of the event.
+   */
+  private final int kind;
+
+  /**
+   * The formatted log line, or the text argument of an encoded message, null if there is none.
    */
   private final String message;
 
+  /**
+   * The ID of the encoded message, or the hash of the dictionary.
+   */
+  private final int messageId;
+
+  /**
+   * The level of the encoded message, null for the other kinds.
+   */
+  private final LogLevelEnum level;
+
+  /**
+   * The time of the encoded message in milliseconds.
+   */
+  private final long time;
+
+  /**
+   * The argument kind of the encoded message.
+   */
+  private final int argKind;
+
+  /**
+   * The int argument of the encoded message.
+   */
+  private final int intArg;
+
   /**
    * Constructor for the RemoteLogEvent class.
    *
-   * @param message the log message that generated the event
+   * @param message the formatted log line
+   * @throws IllegalArgumentException if the message is null or empty
    */
   public RemoteLogEvent(String message) {
     if (message == null || message.isEmpty()) {
       throw new IllegalArgumentException("Message cannot be null or empty");
     }
 
+    this.kind = KIND_TEXT;
     this.message = message;
+    this.messageId = -1;
+    this.level = null;
+    this.time = 0;
+    this.argKind = ARG_NONE;
+    this.intArg = 0;
+  }
+
+  /**
+   * Constructor for the RemoteLogEvent class.
+   *
+   * @param messageId the ID of the message in LogMessages
+   * @param level     the level of the message
+   * @param time      the time of the message in milliseconds
+   * @param argKind   the argument kind, ARG_NONE, ARG_INT or ARG_TEXT
+   * @param intArg    the int argument
+   * @param textArg   the text argument, or null if the kind is not ARG_TEXT
+   * @throws IllegalArgumentException if the message ID is negative or the argument kind is unknown
+   * @throws NullPointerException     if the level is null, or the text argument is null for ARG_TEXT
+   */
+  public RemoteLogEvent(int messageId, LogLevelEnum level, long time, int argKind, int intArg, String textArg) {
+    if (messageId < 0 || argKind < ARG_NONE || argKind > ARG_TEXT) {
+      throw new IllegalArgumentException("Invalid message ID or argument kind");
+    }
+
+    if (level == null || (argKind == ARG_TEXT && textArg == null)) {
+      throw new NullPointerException();
+    }
+
+    this.kind = KIND_ENCODED;
+    this.message = argKind == ARG_TEXT ? textArg : null;
+    this.messageId = messageId;
+    this.level = level;
+    this.time = time;
+    this.argKind = argKind;
+    this.intArg = intArg;
+  }
+
+  /**
+   * Constructor for the RemoteLogEvent class announcing the dictionary.
+   *
+   * @param dictionaryHash the hash of the dictionary, see LogMessages.HASH
+   */
+  private RemoteLogEvent(int dictionaryHash) {
+    this.kind = KIND_DICTIONARY;
+    this.message = null;
+    this.messageId = dictionaryHash;
+    this.level = null;
+    this.time = 0;
+    this.argKind = ARG_NONE;
+    this.intArg = 0;
   }
 
+  /**
+   * Creates an event announcing the dictionary the message IDs refer to.
+   *
+   * @param dictionaryHash the hash of the dictionary, see LogMessages.HASH
+   * @return the event.
+   */
+  public static RemoteLogEvent dictionaryOf(int dictionaryHash) { return new RemoteLogEvent(dictionaryHash); }
+
+  /**
+   * Returns whether the message is encoded with a message ID.
+   *
+   * @return true if the message is encoded.
+   */
+  public boolean isEncoded() { return this.kind == KIND_ENCODED; }
+
+  /**
+   * Returns the ID of the encoded message.
+   *
+   * @return the message ID, or -1 if the message is not encoded.
+   */
+  public int getMessageId() { return this.kind == KIND_ENCODED ? this.messageId : -1; }
+
+  /**
+   * Returns the level of the encoded message.
+   *
+   * @return the level, or null if the message is not encoded.
+   */
+  public LogLevelEnum getLevel() { return this.level; }
+
+  /**
+   * Returns the time of the encoded message.
+   *
+   * @return the time in milliseconds.
+   */
+  public long getTime() { return this.time; }
+
+  /**
+   * Returns the argument kind of the encoded message.
+   *
+   * @return ARG_NONE, ARG_INT or ARG_TEXT.
+   */
+  public int getArgKind() { return this.argKind; }
+
+  /**
+   * Returns the int argument of the encoded message.
+   *
+   * @return the int argument.
+   */
+  public int getIntArg() { return this.intArg; }
+
+  /**
+   * Returns the text argument of the encoded message.
+   *
+   * @return the text argument, or null if the argument kind is not ARG_TEXT.
+   */
+  public String getTextArg() { return this.kind == KIND_ENCODED ? this.message : null; }
+
   @Override
   public String toExposableString() {
-    return "LOG|" + message;
+    if (this.kind == KIND_DICTIONARY) {
+      return "LOGDICT|" + Integer.toHexString(this.messageId);
+    }
+
+    if (this.kind == KIND_TEXT) {
+      return "LOG|" + this.message;
+    }
+
+    StringBuilder line = new StringBuilder("LOGID|");
+    line.append(this.messageId).append('|');
+    line.append(this.level.ordinal()).append('|');
+    line.append(this.time).append('|');
+
+    if (this.argKind == ARG_INT) {
+      line.append(this.intArg);
+    } else if (this.argKind == ARG_TEXT) {
+      line.append(this.message);
+    }
+
+    return line.toString();
+  }
+
+  @Override
+  public EventTypeEnum getType() {
+    return TYPE;
   }
 }
@@ -2,6 +2,8 @@ package domain.event.impl;
 
 import domain.event.base.AbstractEvent;
 import domain.event.base.IExposableEvent;
+import shared.constants.EventPriorityEnum;
+import shared.constants.EventTypeEnum;
 import shared.constants.SensorTypeEnum;
 
 /**
@@ -9,8 +11,17 @@ import shared.constants.SensorTypeEnum;
  * It will contain reading of the SensorReaders (see AbstractSensorReader) and represent e.g., light or distance
  * measurements. It extends the AbstractEvent class and contains a reference to the sensor ID, sensor type, and sensor
  * value.
+ * <p>
+ * Sensor readers use a pooled instance that is recycled for every new reading, so the sensor path does not allocate.
+ * A pooled instance is only valid while it is dispatched. Listeners must copy the values they need and must not keep
+ * a reference to it (see isPooled()).
  */
 public class SensorEvent extends AbstractEvent implements IExposableEvent {
+  /**
+   * The type of the event.
+   */
+  private static final EventTypeEnum TYPE = EventTypeEnum.SENSOR;
+
   /**
    * The ID of the sensor that generated the event.
    */
@@ -21,10 +32,15 @@ public class SensorEvent extends AbstractEvent implements IExposableEvent {
    */
   private final SensorTypeEnum sensorType;
 
+  /**
+   * Indicates whether the instance is pooled and will be recycled for later readings.
+   */
+  private final boolean pooled;
+
   /**
    * The value of the sensor that generated the event.
    */
-  private final int value;
+  private int value;
 
   /**
    * Constructor for the SensorEvent class.
@@ -34,6 +50,18 @@ public class SensorEvent extends AbstractEvent implements IExposableEvent {
    * @param value      the value of the sensor that generated the event
    */
   public SensorEvent(String sensorId, SensorTypeEnum sensorType, int value) {
+    this(sensorId, sensorType, value, false);
+  }
+
+  /**
+   * Constructor for the SensorEvent class.
+   *
+   * @param sensorId   the ID of the sensor that generated the event
+   * @param sensorType the type of the sensor that generated the event
+   * @param value      the value of the sensor that generated the event
+   * @param pooled     true if the instance will be recycled for later readings of the same sensor
+   */
+  public SensorEvent(String sensorId, SensorTypeEnum sensorType, int value, boolean pooled) {
     if (sensorType == null) {
       throw new NullPointerException("Sensor type cannot be null");
     }
@@ -49,6 +77,27 @@ public class SensorEvent extends AbstractEvent implements IExposableEvent {
     this.sensorId = sensorId;
     this.sensorType = sensorType;
     this.value = value;
+    this.pooled = pooled;
+  }
+
+  /**
+   * Recycles the pooled instance for a new reading of the same sensor. The timestamp is renewed.
+   *
+   * @param value the new value of the sensor
+   * @throws IllegalStateException    if the instance is not pooled
+   * @throws IllegalArgumentException if the value is negative
+   */
+  public void recycle(int value) {
+    if (!this.pooled) {
+      throw new IllegalStateException("Sensor event is not pooled");
+    }
+
+    if (value < 0) {
+      throw new IllegalArgumentException("Sensor value cannot be negative");
+    }
+
+    this.value = value;
+    this.renewTimestamp();
   }
 
   /**
@@ -78,4 +127,34 @@ public class SensorEvent extends AbstractEvent implements IExposableEvent {
    * @return a string representation of the sensor event
    */
   public String toExposableString() { return "SENSOR|" + this.sensorType.getName() + "|" + this.value; }
+
+  @Override
+  public boolean isPooled() {
+    return this.pooled;
+  }
+
+  /**
+   * Readings of different sensors are coalesced separately, so the key is the sensor type.
+   *
+   * @return the ordinal of the sensor type.
+   */
+  @Override
+  public int getCoalescingKey() {
+    return this.sensorType.ordinal();
+  }
+
+  /**
+   * The priority of a sensor event depends on the sensor, e.g. ultrasonic readings are safety events.
+   *
+   * @return the priority lane of the sensor type.
+   */
+  @Override
+  public EventPriorityEnum getPriority() {
+    return this.sensorType.getPriority();
+  }
+
+  @Override
+  public EventTypeEnum getType() {
+    return TYPE;
+  }
 }
@@ -0,0 +1,123 @@
+package domain.event.impl;
+
+import domain.event.base.AbstractEvent;
+import domain.event.base.IExposableEvent;
+import shared.constants.EventTypeEnum;
+import shared.constants.OrientationEnum;
+import shared.constants.RoboStateEnum;
+
+/**
+ * StateTelemetryEvent is an event that carries a periodic sample of the robot state for the remote client: the last
+ * light and distance readings, the current state, the orientation and the speeds of both motors. The fields are kept as
+ * ints indexed by the FIELD constants, so the transmitter can send only the fields that changed since the last sample.
+ * <p>
+ * The controller uses a pooled instance that is updated for every sample, so it is only valid until the next sample
+ * (see isPooled()).
+ */
+public class StateTelemetryEvent extends AbstractEvent implements IExposableEvent {
+  public static final int FIELD_LIGHT = 0;       // last light sensor value
+  public static final int FIELD_DISTANCE = 1;    // last distance sensor value
+  public static final int FIELD_STATE = 2;       // ordinal of the current state, -1 if there is none
+  public static final int FIELD_ORIENTATION = 3; // ordinal of the orientation
+  public static final int FIELD_LEFT_SPEED = 4;  // speed of the left motor, negative if moving backward
+  public static final int FIELD_RIGHT_SPEED = 5; // speed of the right motor, negative if moving backward
+  public static final int FIELD_COUNT = 6;
+
+  /**
+   * The type of the event.
+   */
+  private static final EventTypeEnum TYPE = EventTypeEnum.STATE_TELEMETRY;
+
+  /**
+   * The values of the fields, indexed by the FIELD constants.
+   */
+  private final int[] fields = new int[FIELD_COUNT];
+
+  /**
+   * Indicates whether the instance is pooled and will be updated for later samples.
+   */
+  private final boolean pooled;
+
+  /**
+   * Constructor for the StateTelemetryEvent class.
+   *
+   * @param pooled true if the instance will be updated for later samples
+   */
+  public StateTelemetryEvent(boolean pooled) { this.pooled = pooled; }
+
+  /**
+   * Updates the fields with a new sample and renews the timestamp.
+   *
+   * @param light       the last light sensor value
+   * @param distance    the last distance sensor value
+   * @param state       the current state, or null if there is none
+   * @param orientation the orientation
+   * @param leftSpeed   the speed of the left motor, negative if moving backward
+   * @param rightSpeed  the speed of the right motor, negative if moving backward
+   * @throws NullPointerException if the orientation is null
+   */
+  public void update(int light, int distance, RoboStateEnum state, OrientationEnum orientation, int leftSpeed,
+                     int rightSpeed) {
+    if (orientation == null) {
+      throw new NullPointerException("Orientation cannot be null");
+    }
+
+    this.fields[FIELD_LIGHT] = light;
+    this.fields[FIELD_DISTANCE] = distance;
+    this.fields[FIELD_STATE] = state != null ? state.ordinal() : -1;
+    this.fields[FIELD_ORIENTATION] = orientation.ordinal();
+    this.fields[FIELD_LEFT_SPEED] = leftSpeed;
+    this.fields[FIELD_RIGHT_SPEED] = rightSpeed;
+    this.renewTimestamp();
+  }
+
+  /**
+   * Copies the fields of the given event into this event and renews the timestamp.
+   *
+   * @param event the event to copy
+   * @throws NullPointerException if the event is null
+   */
+  public void copyFrom(StateTelemetryEvent event) {
+    if (event == null) {
+      throw new NullPointerException();
+    }
+
+    System.arraycopy(event.fields, 0, this.fields, 0, FIELD_COUNT);
+    this.renewTimestamp();
+  }
+
+  /**
+   * Returns the value of a field.
+   *
+   * @param field the index of the field, one of the FIELD constants
+   * @return the value of the field.
+   */
+  public int getField(int field) { return this.fields[field]; }
+
+  /**
+   * Returns a string representation of the sample.
+   * Format: TELEMETRY|light|distance|state|orientation|leftSpeed|rightSpeed, with the names of the state and the
+   * orientation.
+   *
+   * @return the string representation of the sample.
+   */
+  @Override
+  public String toExposableString() {
+    int state = this.fields[FIELD_STATE];
+
+    return "TELEMETRY|" + this.fields[FIELD_LIGHT] + "|" + this.fields[FIELD_DISTANCE] + "|" +
+        (state >= 0 ? RoboStateEnum.values()[state].name() : "NONE") + "|" +
+        OrientationEnum.values()[this.fields[FIELD_ORIENTATION]].name() + "|" + this.fields[FIELD_LEFT_SPEED] + "|" +
+        this.fields[FIELD_RIGHT_SPEED];
+  }
+
+  @Override
+  public EventTypeEnum getType() {
+    return TYPE;
+  }
+
+  @Override
+  public boolean isPooled() {
+    return this.pooled;
+  }
+}
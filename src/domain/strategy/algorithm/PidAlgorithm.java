@@ -104,7 +104,7 @@ public class PidAlgorithm implements IFollowingAlgorithm {
       throw new IllegalStateException("LINE_EDGE_TARGET is negative");
     }
 
-    Logger.info("PidAlgorithm initialized with LINE_EDGE_TARGET: " + this.sensorValueStore.getLineEdgeLightValue());
+    Logger.info("PidAlgorithm initialized with LINE_EDGE_TARGET: ", this.sensorValueStore.getLineEdgeLightValue());
 
     this.pidController = new PIDController(this.sensorValueStore.getLineEdgeLightValue(), 0);
     this.pidController.setPIDParam(PIDController.PID_KP, KP);
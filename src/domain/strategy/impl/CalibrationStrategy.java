@@ -10,9 +10,10 @@ import domain.event.impl.SensorEvent;
 import domain.state.impl.IdleState;
 import domain.strategy.base.IDrivingStrategy;
 import io.sensor.SensorValueStore;
-import lejos.nxt.Button;
 import shared.constants.CalibrationStepEnum;
+import shared.constants.EventTypeEnum;
 import shared.constants.SensorTypeEnum;
+import shared.util.Clock;
 import shared.util.LcdUtil;
 import shared.util.Logger;
 
@@ -99,7 +100,8 @@ public class CalibrationStrategy implements IDrivingStrategy, IEventListener {
   public void activate(RoboController controller) {
     Logger.info("CalibrationStrategy activated");
 
-    controller.getContext().getEventManager().addListener(this);
+    controller.getContext().getEventManager().addListener(this, EventTypeEnum.SENSOR, EventTypeEnum.BUTTON,
+                                                          EventTypeEnum.COMMAND);
   }
 
   /**
@@ -159,7 +161,7 @@ public class CalibrationStrategy implements IDrivingStrategy, IEventListener {
    * @param event The button event to handle.
    */
   private void handleButtonEvent(ButtonEvent event) {
-    if (!event.getButtonId().equals(Button.ENTER.toString())) {
+    if (!event.getButtonId().equals(ButtonEvent.ENTER)) {
       return;
     }
 
@@ -198,7 +200,7 @@ public class CalibrationStrategy implements IDrivingStrategy, IEventListener {
    * It also updates the calibration values in the sensor value store and transitions to the next step.
    */
   private void handleStateChange() {
-    long now = System.currentTimeMillis();
+    long now = Clock.currentTimeMillis();
 
     if (now - this.lastButtonEventProcessedTime < DEBOUNCE_DELAY) {
       return;
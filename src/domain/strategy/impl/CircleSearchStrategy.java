@@ -7,6 +7,7 @@ import domain.state.impl.IdleState;
 import domain.strategy.base.IDrivingStrategy;
 import io.actuator.base.IMotorController;
 import io.sensor.SensorValueStore;
+import shared.util.Clock;
 import shared.util.Logger;
 
 /**
@@ -95,7 +96,7 @@ public class CircleSearchStrategy implements IDrivingStrategy {
     Logger.info("CircleSearchStrategy initialized");
 
     this.currentRadius = 0;
-    this.currentStepStartTime = System.currentTimeMillis();
+    this.currentStepStartTime = Clock.currentTimeMillis();
     this.isWaiting = false;
     this.waitStartTime = 0;
 
@@ -126,7 +127,7 @@ public class CircleSearchStrategy implements IDrivingStrategy {
       return;
     }
 
-    long now = System.currentTimeMillis();
+    long now = Clock.currentTimeMillis();
 
     if (this.isWaiting) {
       if (now - this.waitStartTime < waitingPeriodMs) {
@@ -156,7 +157,7 @@ public class CircleSearchStrategy implements IDrivingStrategy {
       return;
     }
 
-    Logger.info("Line found in Circle No.: " + this.currentRadius);
+    Logger.info("Line found in Circle No.: ", this.currentRadius);
 
     this.motorController.stopMotors(true);
     controller.getContext().getEventManager().dispatch(new LineStatusEvent(true));
@@ -8,6 +8,7 @@ import domain.event.base.IEventListener;
 import domain.event.impl.CommandEvent;
 import domain.strategy.base.IDrivingStrategy;
 import io.actuator.base.IMotorController;
+import shared.constants.EventTypeEnum;
 import shared.util.Logger;
 
 /**
@@ -49,7 +50,7 @@ public class UserControlStrategy implements IDrivingStrategy, IEventListener {
 
   /**
    * Activates the UserControlStrategy.
-   * This method sets up the event listener for command events and logs the activation.
+   * This method subscribes to move command events and logs the activation.
    *
    * @param controller The RoboController instance used to control the robot.
    */
@@ -57,7 +58,7 @@ public class UserControlStrategy implements IDrivingStrategy, IEventListener {
   public void activate(RoboController controller) {
     Logger.info("UserControlStrategy activated");
 
-    controller.getContext().getEventManager().addListener(this);
+    controller.getContext().getEventManager().addListener(this, EventTypeEnum.MOVE_COMMAND);
   }
 
   /**
@@ -32,4 +32,18 @@ public interface IMotorController {
    * Cleans up the motor controller resources.
    */
   void close();
+
+  /**
+   * Returns the speed of the left motor set by the last command.
+   *
+   * @return The speed of the left motor, negative if moving backward and 0 if stopped.
+   */
+  int getLeftSpeed();
+
+  /**
+   * Returns the speed of the right motor set by the last command.
+   *
+   * @return The speed of the right motor, negative if moving backward and 0 if stopped.
+   */
+  int getRightSpeed();
 }
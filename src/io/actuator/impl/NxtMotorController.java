@@ -21,6 +21,16 @@ public class NxtMotorController implements IMotorController {
    */
   private final NXTRegulatedMotor rightMotor;
 
+  /**
+   * The speed of the left motor set by the last command, negative if moving backward.
+   */
+  private int leftSpeed = 0;
+
+  /**
+   * The speed of the right motor set by the last command, negative if moving backward.
+   */
+  private int rightSpeed = 0;
+
   /**
    * Constructor for the NxtMotorController class.
    * It initializes the left and right motors and sets their speed and acceleration.
@@ -42,6 +52,9 @@ public class NxtMotorController implements IMotorController {
   public void forward(int leftSpeed, int rightSpeed) {
     this.setInternalSpeed(leftSpeed, rightSpeed);
 
+    this.leftSpeed = Math.abs(leftSpeed);
+    this.rightSpeed = Math.abs(rightSpeed);
+
     leftMotor.forward();
     rightMotor.forward();
   }
@@ -56,6 +69,9 @@ public class NxtMotorController implements IMotorController {
   public void backward(int leftSpeed, int rightSpeed) {
     this.setInternalSpeed(leftSpeed, rightSpeed);
 
+    this.leftSpeed = -Math.abs(leftSpeed);
+    this.rightSpeed = -Math.abs(rightSpeed);
+
     leftMotor.backward();
     rightMotor.backward();
   }
@@ -67,6 +83,9 @@ public class NxtMotorController implements IMotorController {
    */
   @Override
   public void stopMotors(boolean hardStop) {
+    this.leftSpeed = 0;
+    this.rightSpeed = 0;
+
     if (hardStop) {
       leftMotor.stop();
       rightMotor.stop();
@@ -86,6 +105,16 @@ public class NxtMotorController implements IMotorController {
     this.stopMotors(true);
   }
 
+  @Override
+  public int getLeftSpeed() {
+    return this.leftSpeed;
+  }
+
+  @Override
+  public int getRightSpeed() {
+    return this.rightSpeed;
+  }
+
   /**
    * Sets the speed and acceleration of the motors. The acceleration is set to a default value.
    *
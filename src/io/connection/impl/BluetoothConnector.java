@@ -0,0 +1,290 @@
+package io.connection.impl;
+
+import app.Config;
+import domain.command.impl.MoveCommand;
+import domain.event.EventManager;
+import domain.event.impl.CommandEvent;
+import lejos.nxt.comm.BTConnection;
+import lejos.nxt.comm.Bluetooth;
+import lejos.nxt.comm.NXTConnection;
+import lejos.util.Delay;
+import shared.util.LcdUtil;
+import shared.util.Logger;
+
+/**
+ * BluetoothConnector accepts the connections of the remote client in the background, so the event loop, calibration
+ * and autonomous driving run without a link.
+ * <p>
+ * A background thread waits for a client while there is no link and hands the accepted connection over. The event
+ * loop calls checkConnection() each tick, which attaches a handed over connection to the BluetoothReceiver and the
+ * BluetoothTransmitter, and detaches both once either of them lost the link, so the thread waits for the next client.
+ * The receiver and the transmitter are only touched by the event loop, so the connection never changes in the middle
+ * of a tick.
+ */
+public final class BluetoothConnector {
+  /**
+   * Priority of the accept thread, above the event loop. The scheduler runs a thread only while no thread of a higher
+   * priority is runnable, so below the event loop the thread would never run with a LOOP_DELAY of 0. It is blocked in
+   * Bluetooth.waitForConnection() or on the lock almost all the time and only takes the CPU to hand a client over.
+   */
+  private static final int ACCEPT_PRIORITY = Thread.NORM_PRIORITY + 1;
+
+  /**
+   * Time in milliseconds one wait for a client lasts, the accept thread checks whether it was stopped in between.
+   */
+  private static final int ACCEPT_TIMEOUT = Config.BT_ACCEPT_TIMEOUT.getIntValue();
+
+  /**
+   * Time in milliseconds the accept thread sleeps after a wait without a client, so it cannot starve the event loop if
+   * a wait fails at once.
+   */
+  private static final int ACCEPT_RETRY_DELAY = 100;
+
+  /**
+   * Used to stop a manually driven robot when the link is lost.
+   */
+  private final EventManager eventManager;
+
+  /**
+   * The receiver the connections are attached to.
+   */
+  private final BluetoothReceiver receiver;
+
+  /**
+   * The transmitter the connections are attached to.
+   */
+  private final BluetoothTransmitter transmitter;
+
+  /**
+   * Lock guarding the fields shared with the accept thread.
+   */
+  private final Object lock = new Object();
+
+  /**
+   * The connection accepted by the accept thread and not attached yet, null if there is none. Guarded by the lock.
+   */
+  private BTConnection acceptedConnection = null;
+
+  /**
+   * Indicates whether the accept thread waits for a client, which is the case while there is no link. Guarded by the
+   * lock.
+   */
+  private boolean accepting = true;
+
+  /**
+   * Indicates whether the accept thread keeps running. Guarded by the lock.
+   */
+  private boolean running = false;
+
+  /**
+   * The background thread accepting the connections, null if it was not started.
+   */
+  private Thread acceptThread = null;
+
+  /**
+   * Indicates whether a connection is attached to the receiver and the transmitter.
+   */
+  private boolean attached = false;
+
+  /**
+   * Number of connections attached since the start, the first one included.
+   */
+  private int connectionCount = 0;
+
+  /**
+   * Constructor for the BluetoothConnector class.
+   *
+   * @param eventManager The event manager to dispatch the stop on a lost link to.
+   * @param receiver     The receiver the connections are attached to.
+   * @param transmitter  The transmitter the connections are attached to.
+   * @throws NullPointerException if any parameter is null.
+   */
+  public BluetoothConnector(EventManager eventManager, BluetoothReceiver receiver, BluetoothTransmitter transmitter) {
+    if (eventManager == null || receiver == null || transmitter == null) {
+      throw new NullPointerException();
+    }
+
+    this.eventManager = eventManager;
+    this.receiver = receiver;
+    this.transmitter = transmitter;
+  }
+
+  /**
+   * Starts the background thread that accepts the connections. Has no effect if the thread is already running. Must be
+   * called from the thread that calls checkConnection().
+   */
+  public void start() {
+    if (this.acceptThread != null) {
+      return;
+    }
+
+    synchronized (this.lock) {
+      this.running = true;
+    }
+
+    this.acceptThread = new Thread() {
+      @Override
+      public void run() {
+        acceptForever();
+      }
+    };
+
+    this.acceptThread.setDaemon(true);
+    this.acceptThread.setPriority(ACCEPT_PRIORITY);
+    this.acceptThread.start();
+
+    LcdUtil.clear();
+    LcdUtil.print("Waiting for BT", LcdUtil.Position.INFO);
+  }
+
+  /**
+   * Stops the accept thread. A connection accepted but not attached yet is closed, an attached connection is left to
+   * the receiver and the transmitter. The thread finishes within ACCEPT_TIMEOUT.
+   */
+  public void stop() {
+    BTConnection connection;
+
+    synchronized (this.lock) {
+      this.running = false;
+      connection = this.acceptedConnection;
+      this.acceptedConnection = null;
+      this.lock.notify();
+    }
+
+    if (connection != null) {
+      connection.close();
+    }
+
+    this.acceptThread = null;
+  }
+
+  /**
+   * Detaches the connection if the receiver or the transmitter lost the link, and attaches the connection accepted
+   * since the last call, if there is one. Called each tick from the event loop.
+   */
+  public void checkConnection() {
+    if (this.attached && (!this.receiver.isConnected() || !this.transmitter.isConnected())) {
+      this.detach();
+    }
+
+    BTConnection connection;
+
+    synchronized (this.lock) {
+      connection = this.acceptedConnection;
+      this.acceptedConnection = null;
+    }
+
+    if (connection != null) {
+      this.attach(connection);
+    }
+  }
+
+  /**
+   * Returns whether a connection is attached to the receiver and the transmitter.
+   *
+   * @return true if there is a link to the remote client.
+   */
+  public boolean isAttached() { return this.attached; }
+
+  /**
+   * Returns the number of connections attached since the start, so a count above one means the client reconnected.
+   *
+   * @return The number of connections.
+   */
+  public int getConnectionCount() { return this.connectionCount; }
+
+  /**
+   * Attaches the connection to the receiver and the transmitter. If either of them cannot open its stream, the
+   * connection is closed and the accept thread waits for the next client.
+   *
+   * @param connection The accepted connection.
+   */
+  private void attach(BTConnection connection) {
+    if (!this.receiver.setupConnection(connection) || !this.transmitter.setupConnection(connection)) {
+      this.receiver.closeConnection();
+      this.transmitter.closeConnection();
+      this.acceptAgain();
+      return;
+    }
+
+    this.attached = true;
+    this.connectionCount++;
+
+    Logger.info("BT connected: ", this.connectionCount);
+    Logger.announceDictionary();
+
+    LcdUtil.clear();
+    LcdUtil.print("Connected", LcdUtil.Position.INFO);
+  }
+
+  /**
+   * Closes the connection of the receiver and the transmitter, stops a manually driven robot and lets the accept
+   * thread wait for the next client. The receiver closes the connection itself, which also ends a write of the
+   * transmitter blocked on it.
+   */
+  private void detach() {
+    this.attached = false;
+
+    this.receiver.closeConnection();
+    this.transmitter.closeConnection();
+
+    Logger.warning("BT link lost");
+
+    // the last move of the remote client would otherwise stay in effect
+    this.eventManager.dispatch(new CommandEvent(MoveCommand.valueOf(0, 0)));
+
+    this.acceptAgain();
+  }
+
+  /**
+   * Lets the accept thread wait for the next client.
+   */
+  private void acceptAgain() {
+    synchronized (this.lock) {
+      this.accepting = true;
+      this.lock.notify();
+    }
+
+    LcdUtil.print("Waiting for BT", LcdUtil.Position.INFO);
+  }
+
+  /**
+   * Waits for a client while there is no link and hands the accepted connection over to checkConnection(), until the
+   * accept thread is stopped.
+   */
+  private void acceptForever() {
+    while (true) {
+      synchronized (this.lock) {
+        while (!this.accepting && this.running) {
+          try {
+            this.lock.wait();
+          } catch (InterruptedException e) {
+            // keep waiting
+          }
+        }
+
+        if (!this.running) {
+          return;
+        }
+      }
+
+      BTConnection connection = Bluetooth.waitForConnection(ACCEPT_TIMEOUT, NXTConnection.PACKET);
+
+      if (connection == null) {
+        Delay.msDelay(ACCEPT_RETRY_DELAY);
+        continue;
+      }
+
+      synchronized (this.lock) {
+        if (this.running) {
+          this.acceptedConnection = connection;
+          this.accepting = false;
+          continue;
+        }
+      }
+
+      connection.close();
+      return;
+    }
+  }
+}
@@ -1,23 +1,100 @@
 package io.connection.impl;
 
+import app.Config;
 import domain.command.CommandParser;
 import domain.command.base.ICommand;
+import domain.command.impl.MoveCommand;
+import domain.event.EventCodec;
 import domain.event.EventManager;
 import domain.event.impl.CommandEvent;
 import io.connection.base.ICommunicationChannel;
 import java.io.DataInputStream;
 import java.io.IOException;
 import lejos.nxt.comm.BTConnection;
-import lejos.nxt.comm.Bluetooth;
+import shared.util.Clock;
 import shared.util.LcdUtil;
 import shared.util.Logger;
 
 /**
  * BluetoothReceiver is responsible for managing the Bluetooth connection and receiving commands
  * from a connected device. It is intended to be used for the robot to receive commands from a remote connection.
- * It listens for incoming commands, parses them, and dispatches them to the event manager.
+ * It listens for incoming commands, parses them, and dispatches them to the event manager. The connections are
+ * accepted by the BluetoothConnector, which sets up a new one after the link is lost.
+ * <p>
+ * Each tick, all complete commands waiting in the stream are read, up to COMMAND_TICK_BUDGET commands and
+ * COMMAND_TICK_TIME_BUDGET milliseconds. Consecutive move commands are collapsed to the newest one, which is
+ * dispatched before the next other command or at the end of the tick, so a joystick streaming faster than the loop
+ * runs does not build up a backlog of stale moves. A command is only read once all of its bytes have arrived, so a
+ * slow client never blocks the event loop.
+ * <p>
+ * Commands are text in the format of DataOutputStream.writeUTF(), e.g. "MOVE|300|-20", or binary: a length prefix
+ * with the highest bit set (BINARY_COMMAND_FLAG) followed by the command kind and its fixed-width arguments as
+ * encoded by EventCodec, e.g. 0x8005 0x00 0x012C 0xFFEC for the same move. Binary commands are decoded without
+ * creating strings, text commands stay available for debugging. Both formats can be mixed on one connection.
  */
 public final class BluetoothReceiver implements ICommunicationChannel {
+  /**
+   * Maximum number of commands read per tick.
+   */
+  private static final int COMMAND_TICK_BUDGET = Config.COMMAND_TICK_BUDGET.getIntValue();
+
+  /**
+   * Maximum time in milliseconds spent reading commands per tick.
+   */
+  private static final int COMMAND_TICK_TIME_BUDGET = Config.COMMAND_TICK_TIME_BUDGET.getIntValue();
+
+  /**
+   * Size of the length prefix of a command in the format of DataOutputStream.writeUTF().
+   */
+  private static final int LENGTH_PREFIX_SIZE = 2;
+
+  /**
+   * Flag in the length prefix marking a binary command. Text commands are far shorter than 32 KiB, so the highest bit
+   * of their length is never set.
+   */
+  private static final int BINARY_COMMAND_FLAG = 0x8000;
+
+  /**
+   * Length prefix of the command whose bytes have not all arrived yet, including BINARY_COMMAND_FLAG, -1 if there is
+   * none.
+   */
+  private int pendingPrefix = -1;
+
+  /**
+   * Buffer the bytes of a command are read into, reused for every command.
+   */
+  private final byte[] commandBytes = new byte[Config.COMMAND_MAX_LENGTH.getIntValue()];
+
+  /**
+   * Buffer the characters of a command are decoded into, reused for every command.
+   */
+  private final char[] commandChars = new char[Config.COMMAND_MAX_LENGTH.getIntValue()];
+
+  /**
+   * The newest move command read in this tick and not dispatched yet, null if there is none.
+   */
+  private MoveCommand pendingMove = null;
+
+  /**
+   * Pooled event the move commands are dispatched with, created with the first move.
+   */
+  private CommandEvent moveEvent = null;
+
+  /**
+   * Number of bytes waiting in the stream after the last tick.
+   */
+  private int backlog = 0;
+
+  /**
+   * Highest number of bytes waiting in the stream after a tick so far.
+   */
+  private int maxBacklog = 0;
+
+  /**
+   * Number of move commands replaced by a newer one before they were dispatched.
+   */
+  private int collapsedMoveCount = 0;
+
   /**
    * Used to send command events to the event manager for processing.
    */
@@ -54,7 +131,8 @@ public final class BluetoothReceiver implements ICommunicationChannel {
 
   /**
    * Called to check for incoming commands from the Bluetooth connection.
-   * If a command is received, it is parsed and dispatched as a CommandEvent to the event manager.
+   * The complete commands received are parsed and dispatched as CommandEvents to the event manager, within the budget
+   * of a tick. Commands beyond the budget stay in the stream for the next tick.
    */
   public void checkForCommands() {
     if (!this.isConnected || this.dataStream == null) {
@@ -62,20 +140,16 @@ public final class BluetoothReceiver implements ICommunicationChannel {
     }
 
     try {
-      if (this.dataStream.available() <= 0) {
-        return;
-      }
+      long deadline = Clock.currentTimeMillis() + COMMAND_TICK_TIME_BUDGET;
 
-      String commandString = this.dataStream.readUTF();
-      ICommand command = CommandParser.parse(commandString);
-
-      if (command == null) {
-        Logger.warning("unknown command: " + commandString);
-        return;
+      for (int i = 0; i < COMMAND_TICK_BUDGET && Clock.currentTimeMillis() <= deadline; i++) {
+        if (!this.readCommand()) {
+          break;
+        }
       }
 
-      CommandEvent event = new CommandEvent(command);
-      this.eventManager.dispatch(event);
+      this.dispatchPendingMove();
+      this.updateBacklog();
     } catch (IOException e) {
       Logger.error("error parsing command", e);
 
@@ -91,32 +165,201 @@ public final class BluetoothReceiver implements ICommunicationChannel {
   }
 
   /**
-   * Establishes a Bluetooth connection and waits for a remote device to connect.
-   * It displays the connection status on the LCD screen.
+   * Returns the number of bytes that were still waiting in the stream after the last tick.
    *
-   * @return true if the connection is established successfully, false otherwise.
+   * @return The backlog in bytes.
    */
-  public boolean waitForConnection() {
-    LcdUtil.clear();
-    LcdUtil.print("Waiting for BT", LcdUtil.Position.INFO);
+  public int getBacklog() { return this.backlog; }
 
-    connection = Bluetooth.waitForConnection();
+  /**
+   * Returns the highest number of bytes waiting in the stream after a tick so far.
+   *
+   * @return The highest backlog in bytes.
+   */
+  public int getMaxBacklog() { return this.maxBacklog; }
 
-    if (connection == null) {
-      LcdUtil.print("No connection", LcdUtil.Position.ERROR);
-      this.isConnected = false;
+  /**
+   * Returns the number of move commands replaced by a newer one before they were dispatched.
+   *
+   * @return The number of collapsed move commands.
+   */
+  public int getCollapsedMoveCount() { return this.collapsedMoveCount; }
+
+  /**
+   * Reads the next command from the stream and handles it, if all of its bytes have arrived. Commands longer than
+   * COMMAND_MAX_LENGTH are skipped.
+   *
+   * @return true if a command was read, false if no complete command is available.
+   * @throws IOException if the stream cannot be read
+   */
+  private boolean readCommand() throws IOException {
+    while (true) {
+      if (this.pendingPrefix < 0) {
+        if (this.dataStream.available() < LENGTH_PREFIX_SIZE) {
+          return false;
+        }
+
+        this.pendingPrefix = this.dataStream.readUnsignedShort();
+      }
+
+      boolean binary = (this.pendingPrefix & BINARY_COMMAND_FLAG) != 0;
+      int length = this.pendingPrefix & ~BINARY_COMMAND_FLAG;
+
+      if (this.dataStream.available() < length) {
+        return false;
+      }
 
+      this.pendingPrefix = -1;
+
+      if (length > this.commandBytes.length) {
+        this.skipBytes(length);
+        Logger.warning("command too long: ", length);
+        continue;
+      }
+
+      this.dataStream.readFully(this.commandBytes, 0, length);
+
+      if (binary) {
+        this.handleCommand(this.decodeBinaryCommand(length), true);
+      } else {
+        this.handleCommand(this.decodeTextCommand(length), false);
+      }
+
+      return true;
+    }
+  }
+
+  /**
+   * Decodes the binary command in the byte buffer.
+   *
+   * @param length The number of bytes of the command.
+   * @return The command, or null if it is invalid.
+   */
+  private ICommand decodeBinaryCommand(int length) {
+    try {
+      return EventCodec.decodeCommand(this.commandBytes, 0, length);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Decodes the text command in the byte buffer. Commands are ASCII text, other characters are replaced by '?', which
+   * no command contains. The characters are parsed in the reused buffer, without creating a string.
+   *
+   * @param length The number of bytes of the command.
+   * @return The command, or null if it is unknown.
+   */
+  private ICommand decodeTextCommand(int length) {
+    for (int i = 0; i < length; i++) {
+      byte b = this.commandBytes[i];
+
+      this.commandChars[i] = b >= 0 ? (char)b : '?';
+    }
+
+    return CommandParser.parse(this.commandChars, 0, length);
+  }
+
+  /**
+   * Reads and discards the given number of bytes, which have all arrived.
+   *
+   * @param count The number of bytes to discard.
+   * @throws IOException if the stream cannot be read
+   */
+  private void skipBytes(int count) throws IOException {
+    while (count > 0) {
+      int chunk = Math.min(count, this.commandBytes.length);
+
+      this.dataStream.readFully(this.commandBytes, 0, chunk);
+      count -= chunk;
+    }
+  }
+
+  /**
+   * Dispatches the command. A move command is held back until the next other command or the end of the tick and
+   * replaced if a newer move command arrives before.
+   *
+   * @param command The command to handle, null if it could not be decoded.
+   * @param binary  true if the command was binary, unknown text commands are already reported by the CommandParser.
+   */
+  private void handleCommand(ICommand command, boolean binary) {
+    if (command == null) {
+      if (binary) {
+        Logger.warning("invalid binary command: ", this.commandBytes[0] & 0xFF);
+      }
+
+      return;
+    }
+
+    if (command instanceof MoveCommand) {
+      if (this.pendingMove != null) {
+        this.collapsedMoveCount++;
+      }
+
+      this.pendingMove = (MoveCommand)command;
+      return;
+    }
+
+    // keeps the order of a move and a later state switch
+    this.dispatchPendingMove();
+    this.eventManager.dispatch(new CommandEvent(command));
+  }
+
+  /**
+   * Dispatches the move command held back in this tick, if there is one, with the pooled move event.
+   */
+  private void dispatchPendingMove() {
+    if (this.pendingMove == null) {
+      return;
+    }
+
+    if (this.moveEvent == null) {
+      this.moveEvent = new CommandEvent(this.pendingMove, true);
+    } else {
+      this.moveEvent.recycle(this.pendingMove);
+    }
+
+    this.pendingMove = null;
+    this.eventManager.dispatch(this.moveEvent);
+  }
+
+  /**
+   * Updates the backlog gauges with the number of bytes still waiting in the stream.
+   *
+   * @throws IOException if the stream cannot be queried
+   */
+  private void updateBacklog() throws IOException {
+    this.backlog = this.dataStream.available();
+
+    if (this.backlog > this.maxBacklog) {
+      this.maxBacklog = this.backlog;
+    }
+  }
+
+  /**
+   * Sets up the Bluetooth connection accepted by the BluetoothConnector and opens the data stream. The commands of a
+   * previous connection that were not complete are discarded.
+   *
+   * @param connection The Bluetooth connection to read the commands from.
+   * @return true if the data stream is opened successfully, false otherwise.
+   */
+  public boolean setupConnection(BTConnection connection) {
+    if (connection == null) {
+      Logger.warning("connection is null");
       return false;
     }
 
-    LcdUtil.print("Connected", LcdUtil.Position.INFO);
+    this.connection = connection;
+    this.pendingPrefix = -1;
+    this.pendingMove = null;
 
     try {
-      dataStream = connection.openDataInputStream();
+      this.dataStream = connection.openDataInputStream();
       this.isConnected = true;
 
       return true;
     } catch (Exception e) {
+      Logger.error("error opening data stream", e);
       LcdUtil.print("Error opening stream", LcdUtil.Position.ERROR);
       this.closeConnection();
 
@@ -128,6 +371,8 @@ public final class BluetoothReceiver implements ICommunicationChannel {
   public void closeConnection() {
     Logger.info("closing connection");
     this.isConnected = false;
+    this.pendingPrefix = -1;
+    this.pendingMove = null;
 
     try {
       if (this.dataStream != null) {
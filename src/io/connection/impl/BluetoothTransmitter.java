@@ -1,23 +1,66 @@
 package io.connection.impl;
 
+import app.Config;
+import domain.command.impl.SubscribeCommand;
 import domain.event.base.IExposableEvent;
 import io.connection.base.ICommunicationChannel;
 import java.io.DataOutputStream;
-import java.util.Vector;
 import lejos.nxt.comm.BTConnection;
+import shared.constants.TelemetryProtocolEnum;
+import shared.constants.TelemetryTopicEnum;
 import shared.util.Logger;
 
 /**
  * BluetoothTransmitter is a class that handles the Bluetooth connection and data transmission.
  * It is intended to be as the remote control for the robot.
  * It provides methods to set up the connection, send data, and close the stream.
+ * <p>
+ * All events queued during a tick are packed into one frame of TELEMETRY_FRAME_SIZE bytes and flushed once, events that
+ * do not fit stay queued for the next tick. An event that does not even fit into an empty frame is sent in a frame of
+ * its own. The frames are packed by TelemetryFrameEncoder in the protocol selected by the remote client: the default
+ * text protocol, the framed text protocol or the binary protocol.
+ * <p>
+ * The events wait in a TelemetryQueue, which applies the drop policy, the sensor decimation and the topics the remote
+ * client subscribed to. Producers never wait for a Bluetooth write.
+ * <p>
+ * The event loop either drains the queue itself or, once startSender() was called, only hands it to a background
+ * sender thread with a priority below the event loop. The handoff sets a flag under the sender lock and never waits for
+ * the transmitter lock, so a slow or retrying Bluetooth write does not delay the control loop. The scheduler of the
+ * NXT is strictly by priority, so the sender thread only runs while the event loop sleeps: it is not started with
+ * a LOOP_DELAY of 0, and if it did not take the previous handoff when the next one is due, the event loop drains the
+ * queue itself.
  */
 public final class BluetoothTransmitter implements ICommunicationChannel {
   /**
-   * A list of events that can be exposed to the Bluetooth connection.
-   * This is used to send events to the connected device.
+   * Priority of the sender thread, below the event loop and above the log drainer.
    */
-  private final Vector<IExposableEvent> exposableEvents = new Vector<>();
+  private static final int SENDER_PRIORITY = Thread.NORM_PRIORITY - 1;
+  /**
+   * The delay in milliseconds the event loop sleeps per tick, the only time the sender thread gets to run.
+   */
+  private static final int LOOP_DELAY = Config.LOOP_DELAY.getIntValue();
+  /**
+   * Lock guarding the handoff to the sender thread.
+   */
+  private final Object senderLock = new Object();
+  /**
+   * The events waiting to be sent. Drained by exposeEvents() only, which holds the transmitter lock.
+   */
+  private final TelemetryQueue queue = new TelemetryQueue(Config.TELEMETRY_QUEUE_CAPACITY.getIntValue());
+  /**
+   * Packs the queued events into frames. Only accessed by the drain, which holds the transmitter lock.
+   */
+  private final TelemetryFrameEncoder encoder = new TelemetryFrameEncoder(
+      Config.TELEMETRY_FRAME_SIZE.getIntValue(), Config.STATE_TELEMETRY_KEYFRAME_INTERVAL.getIntValue());
+  /**
+   * The encoding selected by the remote client, applied by the drain at the start of the next frame.
+   */
+  private volatile TelemetryProtocolEnum requestedProtocol = TelemetryProtocolEnum.TEXT;
+  /**
+   * Set when a protocol is selected, so the drain restarts the entry times and the delta encoding even if the protocol
+   * did not change.
+   */
+  private volatile boolean protocolRequested = false;
   /*
    * The BluetoothTransmitter class is responsible for managing the Bluetooth connection
    * and sending data to the connected device.
@@ -30,21 +73,46 @@ public final class BluetoothTransmitter implements ICommunicationChannel {
   /**
    * Indicates whether the Bluetooth connection is currently active.
    */
-  private boolean isConnected = false;
+  private volatile boolean isConnected = false;
+  /**
+   * The background thread sending the queued events, null if the event loop sends them itself.
+   */
+  private Thread senderThread = null;
+  /**
+   * Indicates whether the sender thread keeps running. Guarded by the sender lock.
+   */
+  private boolean senderRunning = false;
+  /**
+   * Set by the event loop to hand the queued events to the sender thread, cleared by the sender thread. Guarded by the
+   * sender lock.
+   */
+  private boolean exposeRequested = false;
+  /**
+   * Indicates whether the sender thread took the handoff and is draining the queue. Guarded by the sender lock.
+   */
+  private boolean senderBusy = false;
+  /**
+   * Number of handoffs the sender thread did not take in time, so the event loop drained the queue itself.
+   */
+  private int starvedExposeCount = 0;
 
   /**
-   * Sets up the Bluetooth connection and initializes the data stream.
+   * Sets up the Bluetooth connection and initializes the data stream. Synchronized with the sender thread, so a
+   * reconnect never swaps the stream in the middle of a frame.
    *
    * @param connection The Bluetooth connection to set up.
    * @return true if the connection is successfully established, false otherwise.
    */
-  public boolean setupConnection(BTConnection connection) {
+  public synchronized boolean setupConnection(BTConnection connection) {
     if (connection == null) {
       Logger.warning("connection is null");
       return false;
     }
 
     this.connection = connection;
+    // a new client has to select the binary protocol and its subscriptions again
+    this.setProtocol(TelemetryProtocolEnum.TEXT);
+    this.setSubscription(null, SubscribeCommand.UNLIMITED);
 
     try {
       this.dataStream = connection.openDataOutputStream();
@@ -65,47 +133,300 @@ public final class BluetoothTransmitter implements ICommunicationChannel {
   }
 
   /**
-   * Processes and sends all queued events through the Bluetooth connection.
+   * Packs the queued events into one frame and sends it through the Bluetooth connection.
    * Each event is converted to its string representation before sending.
-   * The event queue is cleared after processing all events.
-   * This method is called periodically from the event loop.
+   * Events that do not fit into the frame stay queued in order and are sent first on the next call. Without a
+   * connection, the queued events are discarded.
+   * This method is called periodically from the event loop or the sender thread, see requestExpose(). The queue lock is
+   * only held to swap the buffers, not while the events are packed and sent.
    */
   public synchronized void exposeEvents() {
-    for (int i = 0; i < this.exposableEvents.size(); i++) {
+    this.applyRequestedProtocol();
+
+    if (!this.isConnected || this.dataStream == null) {
+      this.queue.discard();
+      return;
+    }
+
+    IExposableEvent event;
+
+    while ((event = this.queue.peek()) != null) {
       try {
-        IExposableEvent event = this.exposableEvents.elementAt(i);
+        boolean packed = this.encoder.pack(event);
 
-        if (event == null) {
-          Logger.warning("exposable event is null");
-          continue;
+        if (!packed && !this.encoder.isEmpty()) {
+          // frame is full, the event is sent with the next frame
+          break;
         }
 
-        this.sendMessage(event.toExposableString());
+        if (!packed && this.encoder.packOversized(event)) {
+          this.sendFrame();
+        }
       } catch (Exception e) {
         Logger.error("expose error: ", e);
       }
+
+      this.queue.remove();
+    }
+
+    this.queue.carryOver();
+
+    if (!this.encoder.isEmpty()) {
+      this.sendFrame();
+    }
+  }
+
+  /**
+   * Exposes the queued events. Without a sender thread, the events are sent before this method returns. Otherwise, the
+   * sender thread is woken up and this method returns at once, even while the sender thread is blocked by a write. If
+   * the sender thread has not even taken the previous handoff, it is starved by the threads above it and the events
+   * are sent before this method returns, as without a sender thread.
+   */
+  public void requestExpose() {
+    if (this.senderThread == null) {
+      this.exposeEvents();
+      return;
+    }
+
+    synchronized (this.senderLock) {
+      if (!this.exposeRequested || this.senderBusy) {
+        this.exposeRequested = true;
+        this.senderLock.notify();
+        return;
+      }
+
+      this.exposeRequested = false;
+      this.starvedExposeCount++;
+    }
+
+    this.exposeEvents();
+  }
+
+  /**
+   * Starts the background thread that sends the queued events on requestExpose(). Has no effect if the thread is
+   * already running, or if LOOP_DELAY is 0, as the event loop then never sleeps and the thread would never run. Must be
+   * called from the thread that calls requestExpose().
+   */
+  public void startSender() {
+    if (this.senderThread != null) {
+      return;
+    }
+
+    if (LOOP_DELAY <= 0) {
+      Logger.warning("no sender without loop delay");
+      return;
+    }
+
+    synchronized (this.senderLock) {
+      this.senderRunning = true;
+    }
+
+    this.senderThread = new Thread() {
+      @Override
+      public void run() {
+        sendForever();
+      }
+    };
+
+    this.senderThread.setDaemon(true);
+    this.senderThread.setPriority(SENDER_PRIORITY);
+    this.senderThread.start();
+  }
+
+  /**
+   * Stops the sender thread and waits up to SENDER_STOP_TIMEOUT for it to finish its frame. The events still queued
+   * are then sent by the calling thread, unless the sender thread is stuck in a write. Has no effect without a sender
+   * thread. Must be called from the thread that calls requestExpose().
+   */
+  public void stopSender() {
+    Thread sender = this.senderThread;
+
+    if (sender == null) {
+      return;
+    }
+
+    synchronized (this.senderLock) {
+      this.senderRunning = false;
+      this.senderLock.notify();
+    }
+
+    try {
+      sender.join(Config.TELEMETRY_SENDER_STOP_TIMEOUT.getIntValue());
+    } catch (InterruptedException e) {
+      // checked below
+    }
+
+    this.senderThread = null;
+
+    if (sender.isAlive()) {
+      Logger.warning("sender blocked");
+      return;
+    }
+
+    this.exposeEvents();
+  }
+
+  /**
+   * Sends the queued events each time the event loop requests it, until the sender thread is stopped.
+   */
+  private void sendForever() {
+    while (true) {
+      synchronized (this.senderLock) {
+        while (!this.exposeRequested && this.senderRunning) {
+          try {
+            this.senderLock.wait();
+          } catch (InterruptedException e) {
+            // keep waiting
+          }
+        }
+
+        if (!this.senderRunning) {
+          return;
+        }
+
+        this.exposeRequested = false;
+        this.senderBusy = true;
+      }
+
+      try {
+        this.exposeEvents();
+      } finally {
+        synchronized (this.senderLock) {
+          this.senderBusy = false;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of events waiting to be exposed, including the events carried over from the last frame.
+   *
+   * @return The current queue depth.
+   */
+  public int getQueueDepth() {
+    return this.queue.getDepth();
+  }
+
+  /**
+   * Returns the highest number of events that waited to be exposed at the same time.
+   *
+   * @return The high-water mark of the queue depth.
+   */
+  public int getMaxQueueDepth() {
+    return this.queue.getMaxDepth();
+  }
+
+  /**
+   * Returns the number of handoffs the sender thread did not take in time, so the event loop sent the events itself.
+   *
+   * @return The number of starved handoffs.
+   */
+  public int getStarvedExposeCount() {
+    synchronized (this.senderLock) {
+      return this.starvedExposeCount;
     }
+  }
+
+  /**
+   * Returns the number of log lines dropped because the outbound queue was full.
+   *
+   * @return The number of dropped log lines.
+   */
+  public int getDroppedLogCount() {
+    return this.queue.getDroppedLogCount();
+  }
+
+  /**
+   * Returns the number of events other than log lines dropped because the outbound queue was full.
+   *
+   * @return The number of dropped events.
+   */
+  public int getDroppedEventCount() {
+    return this.queue.getDroppedEventCount();
+  }
 
-    this.exposableEvents.clear();
+  /**
+   * Returns the number of sensor readings that were replaced by a newer reading of the same sensor type before they
+   * were queued.
+   *
+   * @return The number of decimated sensor readings.
+   */
+  public int getDecimatedSensorCount() {
+    return this.queue.getDecimatedSensorCount();
   }
 
   /**
    * Adds an event to the queue of events to be exposed over Bluetooth.
-   * Events in this queue will be sent during the next call to exposeEvents().
+   * Events in this queue will be sent during the next call to exposeEvents(). See TelemetryQueue for the drop policy
+   * and the handling of pooled events and subscriptions. Does not wait for a frame being sent.
    *
    * @param event The event to add to the exposure queue
    * @throws IllegalArgumentException if the event is null
    */
-  public synchronized void addExposableEvent(IExposableEvent event) {
-    if (event == null) {
-      throw new IllegalArgumentException("event is null");
+  public void addExposableEvent(IExposableEvent event) {
+    this.queue.add(event);
+  }
+
+  /**
+   * Sets the maximum rate of the given topic, or of all topics. Applies to the events queued from now on.
+   *
+   * @param topic   The topic, or null for all topics.
+   * @param maxRate The maximum number of events sent per second, SubscribeCommand.UNSUBSCRIBED or UNLIMITED.
+   */
+  public void setSubscription(TelemetryTopicEnum topic, int maxRate) {
+    this.queue.setSubscription(topic, maxRate);
+  }
+
+  /**
+   * Returns whether the remote client is subscribed to the given topic. Producers can check this before they prepare
+   * an event.
+   *
+   * @param topic The topic to check.
+   * @return true if events of the topic are queued, possibly rate-limited.
+   */
+  public boolean isSubscribed(TelemetryTopicEnum topic) {
+    return this.queue.isSubscribed(topic);
+  }
+
+  /**
+   * Sets the encoding of the messages. It applies from the next frame on. Does not wait for a frame being sent.
+   *
+   * @param protocol The protocol selected by the remote client.
+   * @throws NullPointerException if the protocol is null
+   */
+  public void setProtocol(TelemetryProtocolEnum protocol) {
+    if (protocol == null) {
+      throw new NullPointerException("protocol is null");
     }
 
-    this.exposableEvents.addElement(event);
+    this.requestedProtocol = protocol;
+    this.protocolRequested = true;
   }
 
   /**
-   * Sends data to the connected Bluetooth device.
+   * Returns the encoding of the messages selected last.
+   *
+   * @return The current protocol.
+   */
+  public TelemetryProtocolEnum getProtocol() { return this.requestedProtocol; }
+
+  /**
+   * Switches to the protocol selected last, if one was selected since the last frame, and restarts the entry times and
+   * the delta encoding of the state telemetry.
+   */
+  private void applyRequestedProtocol() {
+    if (!this.protocolRequested) {
+      return;
+    }
+
+    this.protocolRequested = false;
+    this.encoder.setProtocol(this.requestedProtocol);
+  }
+
+  /**
+   * Sends data to the connected Bluetooth device immediately, in a frame of its own. The message is always sent as
+   * text, with the binary protocol as a TEXT_ENTRY. Empty messages are not sent, as they would leave a TEXT_ENTRY
+   * without its text.
    *
    * @param message The message to send.
    * @return true if the data is successfully sent, false otherwise.
@@ -115,13 +436,19 @@ public final class BluetoothTransmitter implements ICommunicationChannel {
       return false;
     }
 
-    if (message == null || message.isEmpty()) {
-      Logger.warning("empty message");
-      return false;
-    }
+    this.applyRequestedProtocol();
 
+    return this.encoder.packText(message) && this.sendFrame();
+  }
+
+  /**
+   * Sends the packed frame with a single flush.
+   *
+   * @return true if the frame is successfully sent, false otherwise.
+   */
+  private boolean sendFrame() {
     try {
-      this.dataStream.writeUTF(message);
+      this.encoder.writeTo(this.dataStream);
       this.dataStream.flush();
 
       return true;
@@ -134,7 +461,7 @@ public final class BluetoothTransmitter implements ICommunicationChannel {
   }
 
   @Override
-  public void closeConnection() {
+  public synchronized void closeConnection() {
     this.isConnected = false;
 
     if (this.dataStream == null) {
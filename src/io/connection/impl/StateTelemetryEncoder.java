@@ -0,0 +1,93 @@
+package io.connection.impl;
+
+import domain.event.EventCodec;
+import domain.event.impl.StateTelemetryEvent;
+
+/**
+ * StateTelemetryEncoder encodes state telemetry samples for the binary protocol as deltas to the last transmitted
+ * sample. Each encoded sample starts with a bitmask of the fields that changed (1 byte, bit n for field n), followed by
+ * the difference to the last transmitted value of each changed field as a zigzag varint. Every keyframeInterval
+ * samples, a keyframe is sent instead: the highest bit of the mask is set and all fields follow with their absolute
+ * values, so a client can join mid-stream.
+ */
+public final class StateTelemetryEncoder {
+  /**
+   * Maximum size of an encoded sample in bytes.
+   */
+  public static final int MAX_SIZE = 1 + StateTelemetryEvent.FIELD_COUNT * EventCodec.MAX_VARINT_SIZE;
+
+  /**
+   * Flag in the mask marking a keyframe.
+   */
+  private static final int KEYFRAME_FLAG = 0x80;
+
+  /**
+   * Number of samples from one keyframe to the next.
+   */
+  private final int keyframeInterval;
+
+  /**
+   * The last transmitted value of each field.
+   */
+  private final int[] lastValues = new int[StateTelemetryEvent.FIELD_COUNT];
+
+  /**
+   * Number of samples encoded since the last keyframe, 0 if the next sample is a keyframe.
+   */
+  private int samplesSinceKeyframe = 0;
+
+  /**
+   * Constructor for the StateTelemetryEncoder class.
+   *
+   * @param keyframeInterval the number of samples from one keyframe to the next
+   * @throws IllegalArgumentException if the interval is not positive
+   */
+  public StateTelemetryEncoder(int keyframeInterval) {
+    if (keyframeInterval <= 0) {
+      throw new IllegalArgumentException("Keyframe interval must be positive");
+    }
+
+    this.keyframeInterval = keyframeInterval;
+  }
+
+  /**
+   * Writes the sample into the buffer and remembers its values as transmitted.
+   *
+   * @param event  the sample to encode
+   * @param buffer the buffer to write to, with at least MAX_SIZE bytes free after the offset
+   * @param offset the index to start writing at
+   * @return the index after the last written byte.
+   */
+  public int encode(StateTelemetryEvent event, byte[] buffer, int offset) {
+    boolean keyframe = this.samplesSinceKeyframe == 0;
+    int mask = keyframe ? KEYFRAME_FLAG : 0;
+
+    for (int i = 0; i < StateTelemetryEvent.FIELD_COUNT; i++) {
+      if (keyframe || event.getField(i) != this.lastValues[i]) {
+        mask |= 1 << i;
+      }
+    }
+
+    buffer[offset++] = (byte)mask;
+
+    for (int i = 0; i < StateTelemetryEvent.FIELD_COUNT; i++) {
+      if ((mask & (1 << i)) == 0) {
+        continue;
+      }
+
+      int value = event.getField(i);
+
+      offset = EventCodec.writeVarint(buffer, offset, keyframe ? value : (long)value - this.lastValues[i]);
+      this.lastValues[i] = value;
+    }
+
+    this.samplesSinceKeyframe = (this.samplesSinceKeyframe + 1) % this.keyframeInterval;
+
+    return offset;
+  }
+
+  /**
+   * Forces a keyframe for the next sample, e.g. after a new client selected the binary protocol.
+   */
+  public void reset() { this.samplesSinceKeyframe = 0; }
+}
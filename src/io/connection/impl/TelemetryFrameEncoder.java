@@ -0,0 +1,435 @@
+package io.connection.impl;
+
+import domain.event.EventCodec;
+import domain.event.base.AbstractEvent;
+import domain.event.base.IExposableEvent;
+import domain.event.impl.RemoteLogEvent;
+import domain.event.impl.StateTelemetryEvent;
+import java.io.IOException;
+import java.io.OutputStream;
+import shared.constants.TelemetryProtocolEnum;
+import shared.util.Logger;
+
+/**
+ * TelemetryFrameEncoder packs the messages to the remote client into frames of a fixed size, in the encoding of the
+ * selected protocol. The frame is reused for every frame, an event that does not fit into an empty frame is packed
+ * into an oversize frame of its own, grown to the largest of them.
+ * <p>
+ * With the text protocols, each message is packed in the format of DataOutputStream.writeUTF(). A TEXT frame is
+ * written without a header, so the stream is the same as for clients that read one writeUTF() message after the other.
+ * A FRAMED frame starts with the payload length (2 bytes, big-endian).
+ * <p>
+ * With the binary protocol, the frame header is written with the highest bit of the payload length set and each
+ * message is an entry of the event type ordinal (1 byte), the time since the previous entry in milliseconds (zigzag
+ * varint, the first entry after the protocol was selected holds the absolute clock value) and the payload of
+ * EventCodec. State telemetry samples are followed by their changed fields, see StateTelemetryEncoder. Other events
+ * without a binary payload, like log lines, are followed by their text in the format of writeUTF(). Exposable events
+ * that are no AbstractEvent are packed as the tag TEXT_ENTRY followed by their text only, log lines encoded with a
+ * message ID as the tag LOG_ID_ENTRY followed by their fields.
+ */
+public final class TelemetryFrameEncoder {
+  /**
+   * Size of the frame header holding the payload length.
+   */
+  private static final int FRAME_HEADER_SIZE = 2;
+
+  /**
+   * Flag in the frame header marking a frame of the binary protocol. Frames are far shorter than 32 KiB, so the highest
+   * bit of the payload length is free.
+   */
+  private static final int BINARY_FRAME_FLAG = 0x8000;
+
+  /**
+   * Maximum number of bytes besides the text of an entry: the event type or TEXT_ENTRY tag, the time delta and the
+   * text length.
+   */
+  private static final int MAX_ENTRY_OVERHEAD = 1 + EventCodec.MAX_VARINT_SIZE + 2;
+
+  /**
+   * Maximum encoded length of the text of an event packed into a frame of its own, so the payload length does not reach
+   * the binary frame flag.
+   */
+  private static final int MAX_OVERSIZED_TEXT_LENGTH = BINARY_FRAME_FLAG - 1 - MAX_ENTRY_OVERHEAD;
+
+  /**
+   * Tag of a binary entry holding only the text of an event that has no event type.
+   */
+  private static final int TEXT_ENTRY = 0xFF;
+
+  /**
+   * Tag of a binary entry holding a log line encoded with its message ID, see packLogEntry().
+   */
+  private static final int LOG_ID_ENTRY = 0xFE;
+
+  /**
+   * The regular frame, reused for every frame.
+   */
+  private final byte[] regularFrame;
+
+  /**
+   * The frame events that do not fit into an empty frame are packed into, grown to the largest of them. Created with
+   * the first of them.
+   */
+  private byte[] oversizeFrame = null;
+
+  /**
+   * The frame currently packed, the regular or the oversize frame.
+   */
+  private byte[] frame;
+
+  /**
+   * The length of the current frame including the header.
+   */
+  private int length = FRAME_HEADER_SIZE;
+
+  /**
+   * The encoding of the messages.
+   */
+  private TelemetryProtocolEnum protocol = TelemetryProtocolEnum.TEXT;
+
+  /**
+   * Encodes the state telemetry samples of the binary protocol as deltas to the last packed sample.
+   */
+  private final StateTelemetryEncoder stateTelemetryEncoder;
+
+  /**
+   * Time in milliseconds of the last binary entry, the time of the next entry is packed relative to it.
+   */
+  private long lastEntryTime = 0;
+
+  /**
+   * Time in milliseconds of the last LOG_ID_ENTRY, the time of the next one is packed relative to it.
+   */
+  private long lastLogEntryTime = 0;
+
+  /**
+   * Constructor for the TelemetryFrameEncoder class.
+   *
+   * @param frameSize        the size of a regular frame in bytes, including the header
+   * @param keyframeInterval the number of state telemetry samples from one keyframe to the next
+   * @throws IllegalArgumentException if the frame cannot hold a header and an entry, or the interval is not positive
+   */
+  public TelemetryFrameEncoder(int frameSize, int keyframeInterval) {
+    if (frameSize <= FRAME_HEADER_SIZE + MAX_ENTRY_OVERHEAD) {
+      throw new IllegalArgumentException("Frame size too small");
+    }
+
+    this.regularFrame = new byte[frameSize];
+    this.frame = this.regularFrame;
+    this.stateTelemetryEncoder = new StateTelemetryEncoder(keyframeInterval);
+  }
+
+  /**
+   * Sets the encoding of the messages and restarts the entry times and the delta encoding of the state telemetry, even
+   * if the protocol did not change. Must only be called while the frame is empty.
+   *
+   * @param protocol the protocol selected by the remote client
+   * @throws NullPointerException if the protocol is null
+   */
+  public void setProtocol(TelemetryProtocolEnum protocol) {
+    if (protocol == null) {
+      throw new NullPointerException("protocol is null");
+    }
+
+    this.protocol = protocol;
+    this.lastEntryTime = 0;
+    this.lastLogEntryTime = 0;
+    this.stateTelemetryEncoder.reset();
+  }
+
+  /**
+   * Returns the encoding of the messages.
+   *
+   * @return the current protocol.
+   */
+  public TelemetryProtocolEnum getProtocol() { return this.protocol; }
+
+  /**
+   * Returns whether no message was packed into the current frame.
+   *
+   * @return true if the frame is empty.
+   */
+  public boolean isEmpty() { return this.length == FRAME_HEADER_SIZE; }
+
+  /**
+   * Packs an event into the current frame. An event with an empty text is skipped.
+   *
+   * @param event the event to pack
+   * @return true if the event was packed, false if it does not fit into the rest of the frame.
+   */
+  public boolean pack(IExposableEvent event) {
+    int end = this.protocol == TelemetryProtocolEnum.BINARY ? this.packEntry(event, this.length)
+                                                            : this.packMessage(event.toExposableString(), this.length);
+
+    if (end < 0) {
+      return false;
+    }
+
+    this.length = end;
+
+    return true;
+  }
+
+  /**
+   * Packs an event that does not fit into an empty regular frame into the oversize frame, which is written next. Must
+   * only be called while the frame is empty. Events with a text longer than MAX_OVERSIZED_TEXT_LENGTH are dropped.
+   *
+   * @param event the event to pack
+   * @return true if the event was packed, false if it was dropped or has an empty text.
+   */
+  public boolean packOversized(IExposableEvent event) {
+    String message = event.toExposableString();
+
+    if (!this.useFrameFor(message)) {
+      Logger.warning("event exceeds frame");
+      return false;
+    }
+
+    boolean packed = false;
+
+    try {
+      packed = this.pack(event) && !this.isEmpty();
+
+      return packed;
+    } finally {
+      if (!packed) {
+        this.frame = this.regularFrame;
+      }
+    }
+  }
+
+  /**
+   * Packs a message into a frame of its own, with the binary protocol as a TEXT_ENTRY. Must only be called while the
+   * frame is empty. Empty messages are not packed, as they would leave a TEXT_ENTRY without its text.
+   *
+   * @param message the message to pack
+   * @return true if the message was packed, false if it is empty or longer than MAX_OVERSIZED_TEXT_LENGTH.
+   */
+  public boolean packText(String message) {
+    if (message == null || message.isEmpty()) {
+      Logger.warning("empty message");
+      return false;
+    }
+
+    if (!this.useFrameFor(message)) {
+      Logger.warning("message exceeds frame: ", message.length());
+      return false;
+    }
+
+    int end = this.length;
+
+    if (this.protocol == TelemetryProtocolEnum.BINARY) {
+      this.frame[end++] = (byte)TEXT_ENTRY;
+    }
+
+    this.length = this.packMessage(message, end);
+
+    return true;
+  }
+
+  /**
+   * Writes the payload length and the protocol flag into the frame header and writes the frame with a single write.
+   * With the unframed text protocol, only the payload is written. The frame is empty afterward, even if the write
+   * failed.
+   *
+   * @param out the stream to write to
+   * @throws IOException if the frame cannot be written
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    int payloadLength = this.length - FRAME_HEADER_SIZE;
+    int start = this.protocol == TelemetryProtocolEnum.TEXT ? FRAME_HEADER_SIZE : 0;
+
+    if (this.protocol == TelemetryProtocolEnum.BINARY) {
+      payloadLength |= BINARY_FRAME_FLAG;
+    }
+
+    this.frame[0] = (byte)(payloadLength >> 8);
+    this.frame[1] = (byte)payloadLength;
+
+    try {
+      out.write(this.frame, start, this.length - start);
+    } finally {
+      this.frame = this.regularFrame;
+      this.length = FRAME_HEADER_SIZE;
+    }
+  }
+
+  /**
+   * Selects the frame for an entry with the given text: the regular frame if the entry fits into it, the oversize frame
+   * otherwise, grown if needed. Must only be called while the frame is empty.
+   *
+   * @param message the text of the entry, may be null
+   * @return true if a frame was selected, false if the text is longer than MAX_OVERSIZED_TEXT_LENGTH.
+   */
+  private boolean useFrameFor(String message) {
+    int encodedLength = message != null ? getEncodedLength(message) : 0;
+
+    if (encodedLength > MAX_OVERSIZED_TEXT_LENGTH) {
+      return false;
+    }
+
+    int size = FRAME_HEADER_SIZE + MAX_ENTRY_OVERHEAD + encodedLength;
+
+    if (size <= this.regularFrame.length) {
+      this.frame = this.regularFrame;
+      return true;
+    }
+
+    if (this.oversizeFrame == null || this.oversizeFrame.length < size) {
+      this.oversizeFrame = new byte[size];
+    }
+
+    this.frame = this.oversizeFrame;
+
+    return true;
+  }
+
+  /**
+   * Appends an event to the frame as an entry of the binary protocol.
+   *
+   * @param event  the event to append
+   * @param offset the index in the frame to start writing at
+   * @return the index after the last written byte, or -1 if the entry does not fit into the frame.
+   */
+  private int packEntry(IExposableEvent event, int offset) {
+    if (event instanceof RemoteLogEvent && ((RemoteLogEvent)event).isEncoded()) {
+      return this.packLogEntry((RemoteLogEvent)event, offset);
+    }
+
+    if (!(event instanceof AbstractEvent)) {
+      if (offset == this.frame.length) {
+        return -1;
+      }
+
+      this.frame[offset++] = (byte)TEXT_ENTRY;
+      return this.packMessage(event.toExposableString(), offset);
+    }
+
+    AbstractEvent abstractEvent = (AbstractEvent)event;
+    boolean isTelemetry = event instanceof StateTelemetryEvent;
+    boolean hasPayload = EventCodec.hasPayload(abstractEvent.getType());
+    int maxPayloadSize = isTelemetry ? StateTelemetryEncoder.MAX_SIZE : hasPayload ? EventCodec.MAX_PAYLOAD_SIZE : 0;
+
+    if (offset + 1 + EventCodec.MAX_VARINT_SIZE + maxPayloadSize > this.frame.length) {
+      return -1;
+    }
+
+    long time = abstractEvent.getTimestamp() / 1000000L;
+
+    this.frame[offset++] = (byte)abstractEvent.getType().ordinal();
+    offset = EventCodec.writeVarint(this.frame, offset, time - this.lastEntryTime);
+
+    if (isTelemetry) {
+      offset = this.stateTelemetryEncoder.encode((StateTelemetryEvent)event, this.frame, offset);
+    } else if (hasPayload) {
+      offset = EventCodec.encode(abstractEvent, this.frame, offset);
+    } else {
+      offset = this.packMessage(event.toExposableString(), offset);
+    }
+
+    if (offset >= 0) {
+      this.lastEntryTime = time;
+    }
+
+    return offset;
+  }
+
+  /**
+   * Appends a log line encoded with its message ID to the frame as an entry of the binary protocol: the tag
+   * LOG_ID_ENTRY, the time of the line since the previous LOG_ID_ENTRY in milliseconds (zigzag varint, the first entry
+   * after the protocol was selected holds the absolute clock value), the message ID (zigzag varint), the level ordinal
+   * (1 byte), the argument kind (1 byte) and the argument: an int as zigzag varint or a text in the format of
+   * writeUTF(). The line is not formatted on the robot at all.
+   *
+   * @param event  the encoded log line to append
+   * @param offset the index in the frame to start writing at
+   * @return the index after the last written byte, or -1 if the entry does not fit into the frame.
+   */
+  private int packLogEntry(RemoteLogEvent event, int offset) {
+    if (offset + 1 + 3 * EventCodec.MAX_VARINT_SIZE + 2 > this.frame.length) {
+      return -1;
+    }
+
+    this.frame[offset++] = (byte)LOG_ID_ENTRY;
+    offset = EventCodec.writeVarint(this.frame, offset, event.getTime() - this.lastLogEntryTime);
+    offset = EventCodec.writeVarint(this.frame, offset, event.getMessageId());
+    this.frame[offset++] = (byte)event.getLevel().ordinal();
+    this.frame[offset++] = (byte)event.getArgKind();
+
+    if (event.getArgKind() == RemoteLogEvent.ARG_INT) {
+      offset = EventCodec.writeVarint(this.frame, offset, event.getIntArg());
+    } else if (event.getArgKind() == RemoteLogEvent.ARG_TEXT && event.getTextArg().isEmpty()) {
+      // packMessage() skips empty messages, the entry needs the length
+      this.frame[offset++] = 0;
+      this.frame[offset++] = 0;
+    } else if (event.getArgKind() == RemoteLogEvent.ARG_TEXT) {
+      offset = this.packMessage(event.getTextArg(), offset);
+    }
+
+    if (offset >= 0) {
+      this.lastLogEntryTime = event.getTime();
+    }
+
+    return offset;
+  }
+
+  /**
+   * Appends a message to the frame in the format of DataOutputStream.writeUTF(): the length of the encoded message
+   * (2 bytes) followed by the characters in modified UTF-8. Empty messages are skipped.
+   *
+   * @param message the message to append
+   * @param offset  the index in the frame to start writing at
+   * @return the index after the last written byte, or -1 if the message does not fit into the frame.
+   */
+  private int packMessage(String message, int offset) {
+    if (message == null || message.isEmpty()) {
+      Logger.warning("empty message");
+      return offset;
+    }
+
+    int messageLength = message.length();
+    int encodedLength = getEncodedLength(message);
+
+    if (offset + 2 + encodedLength > this.frame.length) {
+      return -1;
+    }
+
+    this.frame[offset++] = (byte)(encodedLength >> 8);
+    this.frame[offset++] = (byte)encodedLength;
+
+    for (int i = 0; i < messageLength; i++) {
+      char c = message.charAt(i);
+
+      if (c >= 0x0001 && c <= 0x007F) {
+        this.frame[offset++] = (byte)c;
+      } else if (c <= 0x07FF) {
+        this.frame[offset++] = (byte)(0xC0 | (c >> 6));
+        this.frame[offset++] = (byte)(0x80 | (c & 0x3F));
+      } else {
+        this.frame[offset++] = (byte)(0xE0 | (c >> 12));
+        this.frame[offset++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+        this.frame[offset++] = (byte)(0x80 | (c & 0x3F));
+      }
+    }
+
+    return offset;
+  }
+
+  /**
+   * Returns the length of the message in modified UTF-8, the encoding of DataOutputStream.writeUTF().
+   *
+   * @param message the message
+   * @return the encoded length in bytes.
+   */
+  private static int getEncodedLength(String message) {
+    int messageLength = message.length();
+    int encodedLength = 0;
+
+    for (int i = 0; i < messageLength; i++) {
+      char c = message.charAt(i);
+      encodedLength += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+    }
+
+    return encodedLength;
+  }
+}
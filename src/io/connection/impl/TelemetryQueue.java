@@ -0,0 +1,670 @@
+package io.connection.impl;
+
+import domain.event.base.IExposableEvent;
+import domain.event.impl.ChangeStateEvent;
+import domain.event.impl.DispatchStatsEvent;
+import domain.event.impl.LineStatusEvent;
+import domain.event.impl.RemoteLogEvent;
+import domain.event.impl.SensorEvent;
+import domain.event.impl.StateTelemetryEvent;
+import shared.constants.SensorTypeEnum;
+import shared.constants.TelemetryTopicEnum;
+import shared.util.Clock;
+
+/**
+ * TelemetryQueue holds the events waiting to be sent to the remote client, see BluetoothTransmitter.
+ * <p>
+ * The queue is double-buffered: producers append to the pending buffer, the drain takes the events from the draining
+ * buffer and only swaps both under the queue lock once the draining buffer is empty. Only one thread drains at a time,
+ * the drain methods are not synchronized with each other. Both buffers have a fixed capacity. If the pending buffer
+ * is full, the oldest log line is dropped first, then the oldest other event, while ChangeStateEvent and
+ * LineStatusEvent are only dropped if nothing else is left. Sensor readings are decimated to one per
+ * SENSOR_TELEMETRY_INTERVAL and sensor type, the latest reading is always sent.
+ * <p>
+ * The remote client chooses the topics it receives and their maximum rate, see TelemetrySubscriptions. Events of
+ * topics it unsubscribed from are not queued at all. Events of a rate-limited topic are held until the interval of the
+ * rate has passed, a newer event replaces the held one. Sensor readings are decimated as above instead. Exposable
+ * events without a topic are always queued.
+ */
+public final class TelemetryQueue {
+  /**
+   * All sensor types, cached to avoid copying the values array on every decimation check.
+   */
+  private static final SensorTypeEnum[] SENSOR_TYPES = SensorTypeEnum.values();
+
+  /**
+   * All telemetry topics, cached to avoid copying the values array each time the held events are checked.
+   */
+  private static final TelemetryTopicEnum[] TOPICS = TelemetryTopicEnum.values();
+
+  /**
+   * Lock guarding the pending buffer, the slot flags, the subscriptions and the counters. Producers only hold it to
+   * append an event and the drain only to swap the buffers.
+   */
+  private final Object lock = new Object();
+
+  /**
+   * The buffer producers append the events to be exposed to.
+   */
+  private IExposableEvent[] pendingEvents;
+
+  /**
+   * Number of events in the pending buffer.
+   */
+  private int pendingCount = 0;
+
+  /**
+   * The buffer the drain sends the events from. Only accessed by the drain.
+   */
+  private IExposableEvent[] drainingEvents;
+
+  /**
+   * Number of events in the draining buffer.
+   */
+  private int drainingCount = 0;
+
+  /**
+   * Index of the next event in the draining buffer to send.
+   */
+  private int drainingIndex = 0;
+
+  /**
+   * Number of events left in the draining buffer after the last drain, carried over to the next frame.
+   */
+  private volatile int carriedCount = 0;
+
+  /**
+   * Highest number of queued events so far.
+   */
+  private int maxQueueDepth = 0;
+
+  /**
+   * Number of log lines dropped because the pending buffer was full.
+   */
+  private int droppedLogCount = 0;
+
+  /**
+   * Number of other events dropped because the pending buffer was full.
+   */
+  private int droppedEventCount = 0;
+
+  /**
+   * Number of sensor readings replaced by a newer reading before they were queued.
+   */
+  private int decimatedSensorCount = 0;
+
+  /**
+   * Queue owned copies of pooled sensor events, indexed by the ordinal of the sensor type. Pooled events are only
+   * valid while they are dispatched, so their values are copied into these slots instead of queueing the event itself.
+   */
+  private final SensorEvent[] sensorEventSlots = new SensorEvent[SensorTypeEnum.values().length];
+
+  /**
+   * Flags indexed by the ordinal of the sensor type, true if the sensor event slot is currently queued.
+   */
+  private final boolean[] sensorEventSlotQueued = new boolean[SensorTypeEnum.values().length];
+
+  /**
+   * Flags indexed by the ordinal of the sensor type, true if the sensor event slot holds a reading that was not queued
+   * yet because of the decimation.
+   */
+  private final boolean[] sensorEventSlotDirty = new boolean[SensorTypeEnum.values().length];
+
+  /**
+   * Time in milliseconds when the sensor event slot was queued last, indexed by the ordinal of the sensor type.
+   */
+  private final long[] sensorEventSlotQueueTime = new long[SensorTypeEnum.values().length];
+
+  /**
+   * The topics the remote client subscribed to. Guarded by the queue lock.
+   */
+  private final TelemetrySubscriptions subscriptions = new TelemetrySubscriptions();
+
+  /**
+   * The latest event held back by the interval of its topic, indexed by the ordinal of the topic, null if there is
+   * none. Queued once the interval has passed, so the last state or line transition always reaches the remote client.
+   * Not used for the slots, which hold their latest values themselves.
+   */
+  private final IExposableEvent[] heldTopicEvents = new IExposableEvent[TelemetryTopicEnum.values().length];
+
+  /**
+   * Queue owned copy of the pooled state telemetry sample, queued instead of the sample itself like the sensor
+   * event slots.
+   */
+  private final StateTelemetryEvent stateTelemetrySlot = new StateTelemetryEvent(true);
+
+  /**
+   * Indicates whether the state telemetry slot is currently queued.
+   */
+  private boolean stateTelemetrySlotQueued = false;
+
+  /**
+   * Queue owned copy of the pooled dispatch statistics, queued instead of the event itself like the sensor event
+   * slots. Created with the first statistics.
+   */
+  private DispatchStatsEvent dispatchStatsSlot = null;
+
+  /**
+   * Indicates whether the dispatch statistics slot is currently in the pending buffer.
+   */
+  private boolean dispatchStatsSlotQueued = false;
+
+  /**
+   * Indicates whether the dispatch statistics slot is in the draining buffer. The drain reads it without the queue
+   * lock, so it is not overwritten until it is sent.
+   */
+  private boolean dispatchStatsSlotDraining = false;
+
+  /**
+   * Constructor for the TelemetryQueue class.
+   *
+   * @param capacity The number of events per buffer.
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public TelemetryQueue(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+
+    this.pendingEvents = new IExposableEvent[capacity];
+    this.drainingEvents = new IExposableEvent[capacity];
+  }
+
+  /**
+   * Returns the next event to drain without removing it. If the draining buffer is empty, it is swapped with the
+   * pending buffer first.
+   *
+   * @return The next event, or null if no event is queued.
+   */
+  public IExposableEvent peek() {
+    if (this.drainingIndex < this.drainingCount || this.swapBuffers()) {
+      return this.drainingEvents[this.drainingIndex];
+    }
+
+    return null;
+  }
+
+  /**
+   * Removes the event returned by peek() from the draining buffer. Must only be called after peek() returned an
+   * event.
+   */
+  public void remove() {
+    this.releaseDrainedEvent(this.drainingEvents[this.drainingIndex]);
+    this.drainingEvents[this.drainingIndex++] = null;
+  }
+
+  /**
+   * Ends a drain. The events left in the draining buffer are carried over to the next drain and count towards the
+   * queue depth.
+   */
+  public void carryOver() {
+    this.carriedCount = this.drainingCount - this.drainingIndex;
+  }
+
+  /**
+   * Drops all queued events, the ones left in the draining buffer and the pending ones.
+   */
+  public void discard() {
+    this.discardDrainingEvents();
+
+    if (this.swapBuffers()) {
+      this.discardDrainingEvents();
+    }
+  }
+
+  /**
+   * Returns the number of events waiting to be exposed, including the events carried over from the last frame.
+   *
+   * @return The current queue depth.
+   */
+  public int getDepth() {
+    synchronized (this.lock) {
+      return this.pendingCount + this.carriedCount;
+    }
+  }
+
+  /**
+   * Returns the highest number of events that waited to be exposed at the same time.
+   *
+   * @return The high-water mark of the queue depth.
+   */
+  public int getMaxDepth() {
+    synchronized (this.lock) {
+      return this.maxQueueDepth;
+    }
+  }
+
+  /**
+   * Returns the number of log lines dropped because the outbound queue was full.
+   *
+   * @return The number of dropped log lines.
+   */
+  public int getDroppedLogCount() {
+    synchronized (this.lock) {
+      return this.droppedLogCount;
+    }
+  }
+
+  /**
+   * Returns the number of events other than log lines dropped because the outbound queue was full.
+   *
+   * @return The number of dropped events.
+   */
+  public int getDroppedEventCount() {
+    synchronized (this.lock) {
+      return this.droppedEventCount;
+    }
+  }
+
+  /**
+   * Returns the number of sensor readings that were replaced by a newer reading of the same sensor type before they
+   * were queued.
+   *
+   * @return The number of decimated sensor readings.
+   */
+  public int getDecimatedSensorCount() {
+    synchronized (this.lock) {
+      return this.decimatedSensorCount;
+    }
+  }
+
+  /**
+   * Adds an event to the pending buffer, it is drained with the next swap of the buffers.
+   * Pooled sensor events are never queued themselves, their values are copied into a slot per sensor type. If the slot
+   * is already queued, it is updated with the newer reading. Pooled state telemetry samples are handled the same way.
+   * A slot that is updated while it is being sent may go out with a mix of the old and the new values, the next
+   * sample corrects it.
+   *
+   * @param event The event to add
+   * @throws IllegalArgumentException if the event is null
+   */
+  public void add(IExposableEvent event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event is null");
+    }
+
+    synchronized (this.lock) {
+      if (event instanceof SensorEvent && ((SensorEvent)event).isPooled()) {
+        this.addPooledSensorEvent((SensorEvent)event);
+        return;
+      }
+
+      if (event instanceof StateTelemetryEvent && ((StateTelemetryEvent)event).isPooled()) {
+        this.stateTelemetrySlot.copyFrom((StateTelemetryEvent)event);
+
+        if (!this.stateTelemetrySlotQueued && this.subscriptions.isDue(TelemetryTopicEnum.TELEMETRY)) {
+          this.stateTelemetrySlotQueued = true;
+          this.appendPendingEvent(this.stateTelemetrySlot);
+        }
+
+        return;
+      }
+
+      if (event instanceof DispatchStatsEvent) {
+        this.addDispatchStatsEvent((DispatchStatsEvent)event);
+        return;
+      }
+
+      TelemetryTopicEnum topic = TelemetrySubscriptions.getTopic(event);
+
+      if (topic == null) {
+        this.appendPendingEvent(event);
+      } else {
+        this.addTopicEvent(topic, event);
+      }
+    }
+  }
+
+  /**
+   * Queues an event of a rate-limited topic if the interval of the topic has passed. Otherwise the event is held and
+   * replaces an older held event of the topic, it is queued by swapBuffers() once the interval has passed. Events of
+   * unsubscribed topics are ignored. Must be called while holding the queue lock.
+   *
+   * @param topic The topic of the event.
+   * @param event The event to queue.
+   */
+  private void addTopicEvent(TelemetryTopicEnum topic, IExposableEvent event) {
+    int index = topic.ordinal();
+
+    if (!this.subscriptions.isSubscribed(topic)) {
+      return;
+    }
+
+    // a newer event supersedes the held one
+    this.heldTopicEvents[index] = null;
+
+    if (this.subscriptions.isDue(topic)) {
+      this.appendPendingEvent(event);
+    } else {
+      this.heldTopicEvents[index] = event;
+    }
+  }
+
+  /**
+   * Queues the events held back by the interval of their topic, if the interval has passed. Must be called while
+   * holding the queue lock.
+   */
+  private void queueDueTopicEvents() {
+    for (int i = 0; i < this.heldTopicEvents.length; i++) {
+      IExposableEvent event = this.heldTopicEvents[i];
+
+      if (event != null && this.subscriptions.isDue(TOPICS[i])) {
+        this.heldTopicEvents[i] = null;
+        this.appendPendingEvent(event);
+      }
+    }
+  }
+
+  /**
+   * Copies the dispatch statistics into the slot and queues it, unless it is already queued. While the drain sends the
+   * slot, the statistics are skipped, as they are cumulative and the next statistics include them. Must be called
+   * while holding the queue lock.
+   *
+   * @param event The pooled dispatch statistics to copy.
+   */
+  private void addDispatchStatsEvent(DispatchStatsEvent event) {
+    if (this.dispatchStatsSlotDraining) {
+      return;
+    }
+
+    if (!this.dispatchStatsSlotQueued && !this.subscriptions.isDue(TelemetryTopicEnum.DISPATCH)) {
+      return;
+    }
+
+    if (this.dispatchStatsSlot == null) {
+      this.dispatchStatsSlot = new DispatchStatsEvent();
+    }
+
+    this.dispatchStatsSlot.copyFrom(event);
+
+    if (!this.dispatchStatsSlotQueued) {
+      this.dispatchStatsSlotQueued = true;
+      this.appendPendingEvent(this.dispatchStatsSlot);
+    }
+  }
+
+  /**
+   * Releases the dispatch statistics slot, if the given event is the slot and it left the draining buffer.
+   *
+   * @param event The event removed from the draining buffer.
+   */
+  private void releaseDrainedEvent(IExposableEvent event) {
+    if (event != null && event == this.dispatchStatsSlot) {
+      synchronized (this.lock) {
+        this.dispatchStatsSlotDraining = false;
+      }
+    }
+  }
+
+  /**
+   * Sets the maximum rate of the given topic, or of all topics. Applies to the events queued from now on.
+   *
+   * @param topic   The topic, or null for all topics.
+   * @param maxRate The maximum number of events sent per second, SubscribeCommand.UNSUBSCRIBED or UNLIMITED.
+   */
+  public void setSubscription(TelemetryTopicEnum topic, int maxRate) {
+    synchronized (this.lock) {
+      this.subscriptions.setMaxRate(topic, maxRate);
+
+      // readings and events held back by the interval are not sent after unsubscribing
+      for (int i = 0; i < this.sensorEventSlotDirty.length; i++) {
+        if (this.subscriptions.getSensorInterval(SENSOR_TYPES[i]) == TelemetrySubscriptions.UNSUBSCRIBED_INTERVAL) {
+          this.sensorEventSlotDirty[i] = false;
+        }
+      }
+
+      for (int i = 0; i < this.heldTopicEvents.length; i++) {
+        if (!this.subscriptions.isSubscribed(TOPICS[i])) {
+          this.heldTopicEvents[i] = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns whether the remote client is subscribed to the given topic. Producers can check this before they prepare
+   * an event.
+   *
+   * @param topic The topic to check.
+   * @return true if events of the topic are queued, possibly rate-limited.
+   */
+  public boolean isSubscribed(TelemetryTopicEnum topic) {
+    synchronized (this.lock) {
+      return this.subscriptions.isSubscribed(topic);
+    }
+  }
+
+  /**
+   * Appends an event to the pending buffer and updates the high-water mark. If the buffer is full, an event is dropped
+   * according to the drop policy first, which may be the given event itself. Must be called while holding the queue
+   * lock.
+   *
+   * @param event The event to append.
+   */
+  private void appendPendingEvent(IExposableEvent event) {
+    if (this.pendingCount == this.pendingEvents.length && !this.makeRoomFor(event)) {
+      return;
+    }
+
+    this.pendingEvents[this.pendingCount++] = event;
+
+    int depth = this.pendingCount + this.carriedCount;
+
+    if (depth > this.maxQueueDepth) {
+      this.maxQueueDepth = depth;
+    }
+  }
+
+  /**
+   * Drops a pending event to make room for the given event: the oldest log line, or if there is none and the given
+   * event is no log line, the oldest event that is neither a ChangeStateEvent nor a LineStatusEvent. If only those are
+   * pending, the oldest of them is dropped for another one of them. Must be called while holding the queue lock.
+   *
+   * @param event The event to make room for.
+   * @return true if an event was dropped, false if the given event has to be dropped instead.
+   */
+  private boolean makeRoomFor(IExposableEvent event) {
+    int index = this.findOldestPendingEvent(true);
+
+    if (index < 0 && !(event instanceof RemoteLogEvent)) {
+      index = this.findOldestPendingEvent(false);
+
+      if (index < 0 && isCritical(event)) {
+        index = 0;
+      }
+    }
+
+    if (index < 0) {
+      this.countDropped(event);
+      return false;
+    }
+
+    IExposableEvent dropped = this.pendingEvents[index];
+
+    System.arraycopy(this.pendingEvents, index + 1, this.pendingEvents, index, this.pendingCount - index - 1);
+    this.pendingEvents[--this.pendingCount] = null;
+    this.countDropped(dropped);
+
+    if (dropped == this.stateTelemetrySlot) {
+      this.stateTelemetrySlotQueued = false;
+    }
+
+    if (dropped == this.dispatchStatsSlot) {
+      this.dispatchStatsSlotQueued = false;
+    }
+
+    if (dropped instanceof SensorEvent) {
+      int sensorIndex = ((SensorEvent)dropped).getSensorType().ordinal();
+
+      // the reading stays in the slot and is queued again with the next reading or after the decimation interval
+      if (this.sensorEventSlots[sensorIndex] == dropped) {
+        this.sensorEventSlotQueued[sensorIndex] = false;
+        this.sensorEventSlotDirty[sensorIndex] = true;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns the index of the oldest pending log line or of the oldest pending event that may be dropped for any other
+   * event. Must be called while holding the queue lock.
+   *
+   * @param logOnly true to only look for log lines
+   * @return The index in the pending buffer, or -1 if there is no such event.
+   */
+  private int findOldestPendingEvent(boolean logOnly) {
+    for (int i = 0; i < this.pendingCount; i++) {
+      IExposableEvent event = this.pendingEvents[i];
+
+      if (logOnly ? event instanceof RemoteLogEvent : !isCritical(event)) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Counts a dropped event. Must be called while holding the queue lock.
+   *
+   * @param event The dropped event.
+   */
+  private void countDropped(IExposableEvent event) {
+    if (event instanceof RemoteLogEvent) {
+      this.droppedLogCount++;
+    } else {
+      this.droppedEventCount++;
+    }
+  }
+
+  /**
+   * Returns whether the event must reach the remote client and is only dropped for another event of the same kind.
+   *
+   * @param event The event to check.
+   * @return true if the event is a ChangeStateEvent or a LineStatusEvent.
+   */
+  private static boolean isCritical(IExposableEvent event) {
+    return event instanceof ChangeStateEvent || event instanceof LineStatusEvent;
+  }
+
+  /**
+   * Queues the sensor event slots holding a reading that was held back by the decimation, if their interval has
+   * passed. Must be called while holding the queue lock.
+   */
+  private void queueDueSensorEventSlots() {
+    long now = Clock.currentTimeMillis();
+
+    for (int i = 0; i < this.sensorEventSlotDirty.length; i++) {
+      int interval = this.subscriptions.getSensorInterval(SENSOR_TYPES[i]);
+
+      if (this.sensorEventSlotDirty[i] && now - this.sensorEventSlotQueueTime[i] >= interval) {
+        this.queueSensorEventSlot(i, now);
+      }
+    }
+  }
+
+  /**
+   * Queues the sensor event slot of the given sensor type. Must be called while holding the queue lock.
+   *
+   * @param index The ordinal of the sensor type.
+   * @param now   The current time in milliseconds.
+   */
+  private void queueSensorEventSlot(int index, long now) {
+    this.sensorEventSlotDirty[index] = false;
+    this.sensorEventSlotQueued[index] = true;
+    this.sensorEventSlotQueueTime[index] = now;
+    this.appendPendingEvent(this.sensorEventSlots[index]);
+  }
+
+  /**
+   * Swaps the pending and the draining buffer, if there are pending events. The draining buffer must be empty. The
+   * sensor readings and topic events held back by their interval are queued first, if it has passed. The slots are no
+   * longer in the pending buffer afterwards, so newer values queue them again.
+   *
+   * @return true if the buffers were swapped, false if there were no pending events.
+   */
+  private boolean swapBuffers() {
+    synchronized (this.lock) {
+      this.queueDueSensorEventSlots();
+      this.queueDueTopicEvents();
+
+      if (this.pendingCount == 0) {
+        return false;
+      }
+
+      IExposableEvent[] events = this.drainingEvents;
+
+      this.drainingEvents = this.pendingEvents;
+      this.drainingCount = this.pendingCount;
+      this.drainingIndex = 0;
+      this.pendingEvents = events;
+      this.pendingCount = 0;
+
+      for (int i = 0; i < this.sensorEventSlotQueued.length; i++) {
+        this.sensorEventSlotQueued[i] = false;
+      }
+
+      this.stateTelemetrySlotQueued = false;
+      this.dispatchStatsSlotDraining = this.dispatchStatsSlotQueued;
+      this.dispatchStatsSlotQueued = false;
+
+      return true;
+    }
+  }
+
+  /**
+   * Drops the events left in the draining buffer.
+   */
+  private void discardDrainingEvents() {
+    while (this.drainingIndex < this.drainingCount) {
+      this.releaseDrainedEvent(this.drainingEvents[this.drainingIndex]);
+      this.drainingEvents[this.drainingIndex++] = null;
+    }
+
+    this.carriedCount = 0;
+  }
+
+  /**
+   * Copies the value of a pooled sensor event into the slot of its sensor type. The slot is queued if it is not queued
+   * yet and the decimation interval of the sensor type has passed, otherwise the reading waits in the slot and may be
+   * replaced by a newer one. The slot is created on the first event of the sensor type. Readings of unsubscribed
+   * sensor types are ignored. Must be called while holding the queue lock.
+   *
+   * @param event The pooled sensor event to copy.
+   */
+  private void addPooledSensorEvent(SensorEvent event) {
+    int index = event.getSensorType().ordinal();
+    int interval = this.subscriptions.getSensorInterval(event.getSensorType());
+
+    if (interval == TelemetrySubscriptions.UNSUBSCRIBED_INTERVAL) {
+      return;
+    }
+
+    SensorEvent slot = this.sensorEventSlots[index];
+
+    if (slot == null) {
+      slot = new SensorEvent(event.getSensorId(), event.getSensorType(), event.getValue(), true);
+      this.sensorEventSlots[index] = slot;
+    } else {
+      slot.recycle(event.getValue());
+    }
+
+    if (this.sensorEventSlotQueued[index]) {
+      return;
+    }
+
+    if (this.sensorEventSlotDirty[index]) {
+      this.decimatedSensorCount++;
+    }
+
+    long now = Clock.currentTimeMillis();
+
+    if (now - this.sensorEventSlotQueueTime[index] < interval) {
+      this.sensorEventSlotDirty[index] = true;
+      return;
+    }
+
+    this.queueSensorEventSlot(index, now);
+  }
+}
@@ -0,0 +1,144 @@
+package io.connection.impl;
+
+import app.Config;
+import domain.command.impl.SubscribeCommand;
+import domain.event.base.AbstractEvent;
+import domain.event.base.IExposableEvent;
+import domain.event.impl.SensorEvent;
+import shared.constants.SensorTypeEnum;
+import shared.constants.TelemetryTopicEnum;
+import shared.util.Clock;
+
+/**
+ * TelemetrySubscriptions holds the topics the remote client subscribed to and their maximum rate, see
+ * TelemetryTopicEnum. Each topic has an interval, the minimum delay between two queued events of the topic, and the
+ * time its interval restarted last. After connecting, the remote client receives all topics without a limit.
+ * <p>
+ * Not thread-safe, TelemetryQueue only accesses it while holding the queue lock.
+ */
+public final class TelemetrySubscriptions {
+  /**
+   * Interval of a topic the remote client unsubscribed from.
+   */
+  public static final int UNSUBSCRIBED_INTERVAL = -1;
+
+  /**
+   * Minimum delay in milliseconds between two queued readings of the same sensor type.
+   */
+  private static final int SENSOR_TELEMETRY_INTERVAL = Config.SENSOR_TELEMETRY_INTERVAL.getIntValue();
+
+  /**
+   * Minimum delay in milliseconds between two queued events per topic, indexed by the ordinal of the topic. 0 queues
+   * every event, UNSUBSCRIBED_INTERVAL none.
+   */
+  private final int[] topicIntervals = new int[TelemetryTopicEnum.values().length];
+
+  /**
+   * Time in milliseconds when an event of the topic was queued last, indexed by the ordinal of the topic. Not used for
+   * sensor readings, which keep the time per sensor event slot.
+   */
+  private final long[] topicQueueTimes = new long[TelemetryTopicEnum.values().length];
+
+  /**
+   * Sets the maximum rate of the given topic, or of all topics.
+   *
+   * @param topic   The topic, or null for all topics.
+   * @param maxRate The maximum number of events sent per second, SubscribeCommand.UNSUBSCRIBED or UNLIMITED.
+   */
+  public void setMaxRate(TelemetryTopicEnum topic, int maxRate) {
+    int interval = maxRate == SubscribeCommand.UNSUBSCRIBED ? UNSUBSCRIBED_INTERVAL : 1000 / maxRate;
+
+    for (int i = 0; i < this.topicIntervals.length; i++) {
+      if (topic == null || topic.ordinal() == i) {
+        this.topicIntervals[i] = interval;
+      }
+    }
+  }
+
+  /**
+   * Returns whether the remote client is subscribed to the given topic.
+   *
+   * @param topic The topic to check.
+   * @return true if events of the topic are queued, possibly rate-limited.
+   */
+  public boolean isSubscribed(TelemetryTopicEnum topic) {
+    return this.topicIntervals[topic.ordinal()] != UNSUBSCRIBED_INTERVAL;
+  }
+
+  /**
+   * Returns whether an event of the given topic may be queued now and if so, restarts the interval of the topic.
+   *
+   * @param topic The topic of the event.
+   * @return true if the topic is subscribed and its interval has passed.
+   */
+  public boolean isDue(TelemetryTopicEnum topic) {
+    int index = topic.ordinal();
+    int interval = this.topicIntervals[index];
+
+    if (interval == UNSUBSCRIBED_INTERVAL) {
+      return false;
+    }
+
+    long now = Clock.currentTimeMillis();
+
+    if (interval > 0 && now - this.topicQueueTimes[index] < interval) {
+      return false;
+    }
+
+    this.topicQueueTimes[index] = now;
+
+    return true;
+  }
+
+  /**
+   * Returns the decimation interval of the given sensor type: SENSOR_TELEMETRY_INTERVAL, or the interval of its topic
+   * if that is longer.
+   *
+   * @param sensorType The sensor type.
+   * @return The interval in milliseconds, or UNSUBSCRIBED_INTERVAL if the topic is not subscribed.
+   */
+  public int getSensorInterval(SensorTypeEnum sensorType) {
+    int interval = this.topicIntervals[getTopic(sensorType).ordinal()];
+
+    return interval == UNSUBSCRIBED_INTERVAL ? interval : Math.max(interval, SENSOR_TELEMETRY_INTERVAL);
+  }
+
+  /**
+   * Returns the topic of the given event.
+   *
+   * @param event The event.
+   * @return The topic, or null if the event belongs to no topic and is always sent.
+   */
+  public static TelemetryTopicEnum getTopic(IExposableEvent event) {
+    if (!(event instanceof AbstractEvent)) {
+      return null;
+    }
+
+    switch (((AbstractEvent)event).getType()) {
+    case SENSOR:
+      return getTopic(((SensorEvent)event).getSensorType());
+    case LINE_STATUS:
+      return TelemetryTopicEnum.LINE;
+    case CHANGE_STATE:
+      return TelemetryTopicEnum.STATE;
+    case REMOTE_LOG:
+      return TelemetryTopicEnum.LOG;
+    case STATE_TELEMETRY:
+      return TelemetryTopicEnum.TELEMETRY;
+    case DISPATCH_STATS:
+      return TelemetryTopicEnum.DISPATCH;
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * Returns the topic of the readings of the given sensor type.
+   *
+   * @param sensorType The sensor type.
+   * @return The topic.
+   */
+  private static TelemetryTopicEnum getTopic(SensorTypeEnum sensorType) {
+    return sensorType == SensorTypeEnum.LIGHT ? TelemetryTopicEnum.LIGHT : TelemetryTopicEnum.ULTRASONIC;
+  }
+}
@@ -4,7 +4,6 @@ import app.Config;
 import domain.event.EventManager;
 import domain.event.impl.LineStatusEvent;
 import domain.event.impl.SensorEvent;
-import java.util.Vector;
 import shared.constants.SensorTypeEnum;
 
 /**
@@ -29,9 +28,13 @@ public final class SensorValueStore {
   private static final int ON_LINE_THRESHOLD = 2;
 
   /**
-   * History buffer for recent light sensor values.
+   * History buffer for recent light sensor values. Preallocated, so adding values does not allocate.
    */
-  private final Vector<Integer> lightValueHistory = new Vector<>();
+  private final int[] lightValueHistory = new int[MAX_HISTORY_SIZE + 1];
+  /**
+   * The number of values currently stored in the light value history.
+   */
+  private int lightValueHistorySize = 0;
   /**
    * The event manager used to handle sensor events.
    */
@@ -91,9 +94,9 @@ public final class SensorValueStore {
       return;
     }
 
-    this.lightValueHistory.addElement(value);
+    this.lightValueHistory[this.lightValueHistorySize++] = value;
 
-    if (this.lightValueHistory.size() > MAX_HISTORY_SIZE) {
+    if (this.lightValueHistorySize > MAX_HISTORY_SIZE) {
       this.generateOptimizedLightValue();
     }
 
@@ -122,22 +125,23 @@ public final class SensorValueStore {
    * It is received by sensor events.
    */
   private void generateOptimizedLightValue() {
-    if (this.lightValueHistory.isEmpty()) {
+    if (this.lightValueHistorySize == 0) {
       return;
     }
 
     int sum = 0;
 
-    for (int i = 0; i < this.lightValueHistory.size(); i++) {
-      sum += this.lightValueHistory.elementAt(i);
+    for (int i = 0; i < this.lightValueHistorySize; i++) {
+      sum += this.lightValueHistory[i];
     }
 
-    this.lineEdgeLightValue = sum / this.lightValueHistory.size();
-    this.lightValueHistory.clear();
+    this.lineEdgeLightValue = sum / this.lightValueHistorySize;
+    this.lightValueHistorySize = 0;
   }
 
   /**
-   * Updates the sensor values based on a sensor event.
+   * Updates the sensor values based on a sensor event. Only the values are copied, the event itself is not kept, as
+   * it may be a pooled instance.
    *
    * @param event The sensor event containing new sensor data.
    */
@@ -175,6 +179,23 @@ public final class SensorValueStore {
     this.lineEdgeLightValue = (this.floorCalibrationLightValue + this.stripeCalibrationLightValue) / 2;
   }
 
+  /**
+   * Restores the calibration values, the line edge light value and the line status of a snapshot, so a replay of a
+   * flight record can continue from it. The history of the line edge light value is cleared.
+   *
+   * @param floorLightValue    The calibration value for the floor light sensor.
+   * @param stripeLightValue   The calibration value for the stripe light sensor.
+   * @param lineEdgeLightValue The self-optimizing light value for the line edge.
+   * @param onLine             true if the robot is on a line.
+   */
+  public void restoreSnapshot(int floorLightValue, int stripeLightValue, int lineEdgeLightValue, boolean onLine) {
+    this.updateCalibrationValues(floorLightValue, stripeLightValue);
+
+    this.lineEdgeLightValue = lineEdgeLightValue;
+    this.lightValueHistorySize = 0;
+    this.onLine = onLine;
+  }
+
   /**
    * Returns the last value read from the light sensor.
    *
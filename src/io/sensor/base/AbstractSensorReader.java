@@ -28,6 +28,12 @@ public abstract class AbstractSensorReader implements ISensorReader {
    */
   private int lastValue = -1;
 
+  /**
+   * The pooled event that is recycled for every reported reading, so checking values does not allocate. It is created
+   * on the first report, as the sensor ID and type are provided by the subclass.
+   */
+  private SensorEvent event = null;
+
   /**
    * Constructor that initializes the AbstractSensorReader with an EventManager instance.
    *
@@ -44,7 +50,7 @@ public abstract class AbstractSensorReader implements ISensorReader {
   /**
    * Checks the current value of the sensor and dispatches an event if the value has changed significantly.
    * The method compares the current value with the last reported value and checks if the change is greater than or
-   * equal to the threshold. If so, it updates the last reported value and dispatches a SensorEvent.
+   * equal to the threshold. If so, it updates the last reported value and dispatches the pooled SensorEvent.
    *
    * @return The current value of the sensor.
    */
@@ -54,7 +60,14 @@ public abstract class AbstractSensorReader implements ISensorReader {
 
     if (this.lastValue == -1 || Math.abs(currentValue - this.lastValue) >= this.getReportThreshold()) {
       this.lastValue = currentValue;
-      this.eventManager.dispatch(new SensorEvent(this.getSensorId(), this.getSensorType(), currentValue));
+
+      if (this.event == null) {
+        this.event = new SensorEvent(this.getSensorId(), this.getSensorType(), currentValue, true);
+      } else {
+        this.event.recycle(currentValue);
+      }
+
+      this.eventManager.dispatch(this.event);
     }
 
     return currentValue;
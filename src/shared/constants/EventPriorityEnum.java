@@ -0,0 +1,12 @@
+package shared.constants;
+
+/**
+ * EventPriorityEnum is an enumeration that defines the priority lanes of the event queue.
+ * The lanes are declared from the highest to the lowest priority. Queued events of higher lanes are delivered first,
+ * so lower lanes are shed first when the event loop is overloaded.
+ */
+public enum EventPriorityEnum {
+  SAFETY,    // Events that may stop the robot, e.g. obstacle readings
+  CONTROL,   // Events that drive the control loop, e.g. commands and line readings
+  TELEMETRY, // Events only of interest to the remote client
+}
@@ -0,0 +1,37 @@
+package shared.constants;
+
+/**
+ * EventTypeEnum is an enumeration that defines the types of events dispatched by the EventManager.
+ * It is used as a routing key, so listeners can subscribe to the event types they are interested in.
+ * Each type defines the default priority lane of its events.
+ */
+public enum EventTypeEnum {
+  BUTTON(EventPriorityEnum.SAFETY),             // Button pressed on the brick
+  CHANGE_STATE(EventPriorityEnum.CONTROL),      // Robot switched to a new state
+  COMMAND(EventPriorityEnum.CONTROL),           // Remote command, except move commands
+  DISPATCH_STATS(EventPriorityEnum.TELEMETRY),  // Dispatch statistics recorded by the DispatchProfiler
+  MOVE_COMMAND(EventPriorityEnum.CONTROL),      // Remote move command, sent at joystick rate
+  LINE_STATUS(EventPriorityEnum.CONTROL),       // Robot entered or left the line
+  REMOTE_LOG(EventPriorityEnum.TELEMETRY),      // Log message for the remote client, not dispatched
+  SENSOR(EventPriorityEnum.CONTROL),            // New sensor reading, see SensorTypeEnum for the priority per sensor
+  STATE_TELEMETRY(EventPriorityEnum.TELEMETRY); // Periodic sample of the robot state, not dispatched
+
+  /**
+   * The default priority lane of events of this type.
+   */
+  private final EventPriorityEnum priority;
+
+  /**
+   * Constructor for the EventTypeEnum enumeration.
+   *
+   * @param priority The default priority lane of events of this type.
+   */
+  EventTypeEnum(EventPriorityEnum priority) { this.priority = priority; }
+
+  /**
+   * Returns the default priority lane of events of this type.
+   *
+   * @return The default priority lane of events of this type.
+   */
+  public EventPriorityEnum getPriority() { return priority; }
+}
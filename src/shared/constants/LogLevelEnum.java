@@ -0,0 +1,31 @@
+package shared.constants;
+
+/**
+ * LogLevelEnum is an enumeration that defines the levels of log records, from the lowest to the highest.
+ * A record is only logged if its level is at least the threshold of the Logger.
+ */
+public enum LogLevelEnum {
+  INFO("INFO"),       // Regular progress messages
+  WARNING("WARNING"), // Unexpected but handled situations
+  ERROR("SEVERE"),    // Failures, often with an exception
+  OFF("OFF");         // Threshold only, disables logging
+
+  /**
+   * The label of the level in a log line.
+   */
+  private final String label;
+
+  /**
+   * Constructor for the LogLevelEnum enumeration.
+   *
+   * @param label The label of the level in a log line.
+   */
+  LogLevelEnum(String label) { this.label = label; }
+
+  /**
+   * Returns the label of the level in a log line.
+   *
+   * @return The label of the level.
+   */
+  public String getLabel() { return label; }
+}
@@ -5,20 +5,29 @@ package shared.constants;
  * This enumeration is used to categorize sensors and handle them appropriately in the code.
  */
 public enum SensorTypeEnum {
-  LIGHT("LIGHT"),           // Light sensor type
-  ULTRASONIC("ULTRASONIC"); // Ultrasonic sensor type
+  LIGHT("LIGHT", EventPriorityEnum.CONTROL),          // Light sensor type, feeds the line following
+  ULTRASONIC("ULTRASONIC", EventPriorityEnum.SAFETY); // Ultrasonic sensor type, feeds the obstacle stop
 
   /**
    * The name of the sensor type.
    */
   private final String name;
 
+  /**
+   * The priority lane of sensor events of this type.
+   */
+  private final EventPriorityEnum priority;
+
   /**
    * Constructor for the SensorType enumeration.
    *
-   * @param name The name of the sensor type.
+   * @param name     The name of the sensor type.
+   * @param priority The priority lane of sensor events of this type.
    */
-  SensorTypeEnum(String name) { this.name = name; }
+  SensorTypeEnum(String name, EventPriorityEnum priority) {
+    this.name = name;
+    this.priority = priority;
+  }
 
   /**
    * Returns the name of the sensor type.
@@ -26,4 +35,11 @@ public enum SensorTypeEnum {
    * @return The name of the sensor type.
    */
   public String getName() { return name; }
+
+  /**
+   * Returns the priority lane of sensor events of this type.
+   *
+   * @return The priority lane of sensor events of this type.
+   */
+  public EventPriorityEnum getPriority() { return priority; }
 }
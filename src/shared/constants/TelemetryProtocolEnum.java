@@ -0,0 +1,11 @@
+package shared.constants;
+
+/**
+ * TelemetryProtocolEnum represents the encoding of the messages the robot sends to the remote client.
+ * The remote client selects it with a PROTOCOL command, old clients keep the unframed text protocol.
+ */
+public enum TelemetryProtocolEnum {
+  TEXT,   // Messages as strings, e.g. "SENSOR|LIGHT|42", one writeUTF() after the other without frames
+  BINARY, // Type tag, timestamp delta and primitive fields in frames, see BluetoothTransmitter
+  FRAMED, // Messages as strings in length-prefixed frames, see BluetoothTransmitter
+}
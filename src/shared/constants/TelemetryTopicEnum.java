@@ -0,0 +1,15 @@
+package shared.constants;
+
+/**
+ * TelemetryTopicEnum represents the kinds of messages the remote client can subscribe to with a SUBSCRIBE command.
+ * All topics are subscribed without a rate limit after connecting, so old clients receive every message.
+ */
+public enum TelemetryTopicEnum {
+  LIGHT,      // Light sensor readings, "SENSOR|LIGHT|value"
+  ULTRASONIC, // Ultrasonic sensor readings, "SENSOR|ULTRASONIC|value"
+  LINE,       // Robot entered or left the line, "LINE_STATUS|ON"
+  STATE,      // Robot switched to a new state, "NEW_STATE|state"
+  LOG,        // Remote log lines, "LOG|line"
+  TELEMETRY,  // Periodic state samples with the motor speeds, "TELEMETRY|..."
+  DISPATCH,   // Dispatch statistics, "DISPATCH|..."
+}
@@ -0,0 +1,60 @@
+package shared.util;
+
+/**
+ * The Clock class is the single time source of the application. On the brick it returns the system time. A replay on
+ * a host can switch it to a virtual time that only advances when it is set, so recorded runs are reproduced
+ * deterministically and faster than real time.
+ */
+public final class Clock {
+  /**
+   * True if the virtual time is used instead of the system time.
+   */
+  private static volatile boolean virtual = false;
+
+  /**
+   * The current virtual time in nanoseconds.
+   */
+  private static volatile long virtualNanos = 0;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private Clock() {}
+
+  /**
+   * Returns the current value of the monotonic clock.
+   *
+   * @return the current time in nanoseconds, only meaningful as a difference to another value of this clock.
+   */
+  public static long nanoTime() { return virtual ? virtualNanos : System.nanoTime(); }
+
+  /**
+   * Returns the current wall clock time.
+   *
+   * @return the current time in milliseconds.
+   */
+  public static long currentTimeMillis() { return virtual ? virtualNanos / 1000000L : System.currentTimeMillis(); }
+
+  /**
+   * Switches the clock to the virtual time and sets it. The virtual time is used for both the monotonic and the wall
+   * clock time.
+   *
+   * @param nanos the new virtual time in nanoseconds
+   * @throws IllegalArgumentException if the time would run backward
+   */
+  public static void setVirtualTime(long nanos) {
+    if (virtual && nanos < virtualNanos) {
+      throw new IllegalArgumentException("Virtual time cannot run backward");
+    }
+
+    virtualNanos = nanos;
+    virtual = true;
+  }
+
+  /**
+   * Returns whether the clock uses the virtual time.
+   *
+   * @return true if the virtual time is used, false if the system time is used.
+   */
+  public static boolean isVirtual() { return virtual; }
+}
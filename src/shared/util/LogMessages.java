@@ -0,0 +1,101 @@
+package shared.util;
+
+/**
+ * LogMessages is the dictionary of the constant messages passed to the Logger. A message is sent to the remote
+ * client as its index in MESSAGES, the client expands it with the dictionary of the same build. The robot
+ * announces HASH to the client, so the client can tell whether its dictionary matches.
+ * <p>
+ * Generated by scripts/gen-log-dictionary.sh, do not edit.
+ */
+public final class LogMessages {
+  /**
+   * Checksum of the messages, changes with every change of the dictionary.
+   */
+  public static final int HASH = 0xC2E407E8;
+
+  /**
+   * The messages, indexed by their message ID and sorted, so they can be found by binary search.
+   */
+  public static final String[] MESSAGES = {
+      "BT connected: ",
+      "BT link lost",
+      "CalibrationStrategy activated",
+      "CalibrationStrategy deactivated",
+      "CircleSearchAlgorithm deinitialize",
+      "CircleSearchStrategy initialized",
+      "Line could not be found in Circle Search Strategy.",
+      "Line found in Circle No.: ",
+      "LineFollowingStrategy activated",
+      "LineFollowingStrategy deactivated",
+      "PidAlgorithm deinitialize",
+      "PidAlgorithm initialized",
+      "PidAlgorithm initialized with LINE_EDGE_TARGET: ",
+      "PidAlgorithm not initialized",
+      "Received command for step ",
+      "RoboController error.",
+      "UserControlStrategy activated",
+      "UserControlStrategy deactivated",
+      "ZigZagAlgorithm deinitialized",
+      "ZigZagAlgorithm initialized",
+      "bt connected",
+      "cleanup error",
+      "closing connection",
+      "command too long: ",
+      "connection closed",
+      "connection is null",
+      "dispatching error: ",
+      "empty message",
+      "enter autonomous",
+      "enter idle",
+      "enter manual",
+      "error closing Connection",
+      "error closing dataStream",
+      "error opening data stream",
+      "error parsing command",
+      "error processing command",
+      "error sending",
+      "event exceeds frame",
+      "event queue overflow: ",
+      "exit autonomous",
+      "exit idle",
+      "exit manual",
+      "expose error: ",
+      "flight record close error",
+      "flight record error",
+      "flight record saved",
+      "invalid binary command: ",
+      "invalid command param: ",
+      "invalid command value: ",
+      "invalid subscription: ",
+      "loop cleaned",
+      "loop error",
+      "loop stopped",
+      "megamen out.",
+      "message exceeds frame: ",
+      "new strategy: ",
+      "no sender without loop delay",
+      "no state to notify",
+      "orientation already set",
+      "orientation set to: ",
+      "remote log level set to: ",
+      "sender blocked",
+      "shutting down megamen",
+      "start loop",
+      "starting megamen",
+      "state already set",
+      "strategy already set",
+      "telemetry protocol set to: ",
+      "telemetry rate set to: ",
+      "unknown calibration step in command: ",
+      "unknown command: ",
+      "unknown log level in command: ",
+      "unknown orientation in command: ",
+      "unknown protocol in command: ",
+      "unknown state in command: ",
+  };
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private LogMessages() {}
+}
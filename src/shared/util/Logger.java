@@ -1,80 +1,276 @@
 package shared.util;
 
+import app.Config;
 import app.RoboApplication;
-import domain.event.EventManager;
 import domain.event.impl.RemoteLogEvent;
+import io.connection.impl.BluetoothTransmitter;
+import lejos.util.Delay;
+import shared.constants.LogLevelEnum;
 
 /**
  * The Log class provides a simple logging utility for the application.
  * It allows logging messages at different levels (INFO, WARNING, ERROR)
  * and can also log exceptions. The logs are printed to the standard
- * output or error stream and can be dispatched to an event manager
- * if one is set.
+ * output or error stream and can be sent to the remote client
+ * if a transmitter is set. Lines for the remote client pass a RemoteLogChannel, which applies a rate limit and a
+ * minimum level of its own. With RoboApplication.ENCODE_REMOTE_LOG, messages found in the generated LogMessages
+ * dictionary are sent as their message ID instead of the text.
+ * <p>
+ * Logging is asynchronous: a log call only stores the level, the time, the message and its argument in a preallocated
+ * ring buffer. A drainer thread formats the records and writes them, so a log call never blocks the control loop on
+ * output and does not allocate. Arguments are passed separately and only formatted by the drainer, so call sites
+ * should pass a constant message and the value instead of concatenating them. Records below the level threshold are
+ * discarded before they are stored. If the ring buffer is full, the record is dropped and counted instead.
+ * <p>
+ * The leJOS scheduler runs a thread only while no thread of a higher priority is runnable, and the event loop runs
+ * without a delay by default, so a drainer below the event loop would never run. The drainer therefore runs above the
+ * event loop, but sleeps LOG_DRAIN_INTERVAL between two batches of at most LOG_DRAIN_BATCH records. The event loop is
+ * still paused while a batch is formatted and written, at most once per interval, instead of on every log call. A
+ * record is written up to one interval after it was logged, and records logged faster than one batch per interval
+ * fill the ring buffer and are dropped.
  */
 public final class Logger {
-  private static final String INFO_LEVEL = "INFO";
-  private static final String WARNING_LEVEL = "WARNING";
-  private static final String ERROR_LEVEL = "SEVERE";
   private static final String LINE_SEPARATOR = System.getProperty("line.separator", "\n");
-  private static EventManager eventManager = null;
 
-  public static void setEventManager(EventManager eventManager) { Logger.eventManager = eventManager; }
+  /**
+   * Size of the ring buffer in records.
+   */
+  private static final int CAPACITY = Config.LOG_BUFFER_CAPACITY.getIntValue();
 
-  private static void log(String level, String message, Throwable thrown) {
-    if (!RoboApplication.DEBUG) {
-      return;
-    }
+  /**
+   * Maximum number of records the drainer writes per batch.
+   */
+  private static final int DRAIN_BATCH = Config.LOG_DRAIN_BATCH.getIntValue();
 
-    StringBuilder builder = new StringBuilder();
-    long timeMillis = System.currentTimeMillis();
+  /**
+   * Delay in milliseconds between two batches of the drainer.
+   */
+  private static final int DRAIN_INTERVAL = Config.LOG_DRAIN_INTERVAL.getIntValue();
 
-    builder.append(timeMillis);
-    builder.append(" [").append(level);
-    builder.append("] ");
-    builder.append(message);
-    builder.append(LINE_SEPARATOR);
+  /**
+   * Priority of the drainer thread, above the event loop, so it runs even if the event loop never sleeps.
+   */
+  private static final int DRAINER_PRIORITY = Thread.NORM_PRIORITY + 1;
 
-    java.io.PrintStream out = ERROR_LEVEL.equals(level) ? System.err : System.out;
-    String msg = builder.toString();
-    out.println(msg);
+  private static final int ARG_NONE = 0;   // message without argument
+  private static final int ARG_INT = 1;    // int argument in intArgs
+  private static final int ARG_OBJECT = 2; // argument in objectArgs, formatted with String.valueOf()
 
-    if (Logger.eventManager != null) {
-      Logger.eventManager.dispatch(new RemoteLogEvent(msg));
-    }
+  /**
+   * Lock guarding the ring buffer.
+   */
+  private static final Object lock = new Object();
 
-    if (thrown != null) {
-      out.print("Stack trace for previous log entry:" + LINE_SEPARATOR);
-      thrown.printStackTrace(out);
-    }
+  /**
+   * Level per record of the ring buffer.
+   */
+  private static final LogLevelEnum[] levels = new LogLevelEnum[CAPACITY];
+
+  /**
+   * Time in milliseconds per record of the ring buffer.
+   */
+  private static final long[] times = new long[CAPACITY];
+
+  /**
+   * Message per record of the ring buffer.
+   */
+  private static final String[] messages = new String[CAPACITY];
+
+  /**
+   * Argument kind per record of the ring buffer.
+   */
+  private static final int[] argKinds = new int[CAPACITY];
+
+  /**
+   * Int argument per record of the ring buffer.
+   */
+  private static final int[] intArgs = new int[CAPACITY];
+
+  /**
+   * Object argument per record of the ring buffer.
+   */
+  private static final Object[] objectArgs = new Object[CAPACITY];
+
+  /**
+   * Exception per record of the ring buffer, null if the record has none.
+   */
+  private static final Throwable[] throwns = new Throwable[CAPACITY];
+
+  /**
+   * Index of the oldest record in the ring buffer.
+   */
+  private static int head = 0;
+
+  /**
+   * Number of records in the ring buffer.
+   */
+  private static int size = 0;
+
+  /**
+   * Number of records dropped because the ring buffer was full, since the last drop notice.
+   */
+  private static int droppedCount = 0;
+
+  /**
+   * Ordinal of the lowest level that is logged.
+   */
+  private static volatile int threshold = RoboApplication.DEBUG ? LogLevelEnum.INFO.ordinal()
+                                                                : LogLevelEnum.OFF.ordinal();
+
+  /**
+   * The channel the log lines are sent to the remote client through.
+   */
+  private static final RemoteLogChannel remoteLog =
+      new RemoteLogChannel(Config.REMOTE_LOG_RATE.getIntValue(), Config.REMOTE_LOG_BURST.getIntValue(),
+                           Config.REMOTE_LOG_SUMMARY_DELAY.getIntValue());
+
+  /**
+   * Lock serializing the output of the drainer and of flush().
+   */
+  private static final Object writeLock = new Object();
+
+  /**
+   * Reused to format the log lines, guarded by the write lock.
+   */
+  private static final StringBuilder line = new StringBuilder();
+
+  static {
+    Thread drainer = new Thread() {
+      @Override
+      public void run() {
+        drainForever();
+      }
+    };
+
+    drainer.setDaemon(true);
+    drainer.setPriority(DRAINER_PRIORITY);
+    drainer.start();
   }
 
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private Logger() {}
+
+  /**
+   * Sets the transmitter the log lines are sent to.
+   *
+   * @param transmitter The transmitter, or null to only print the log lines.
+   */
+  public static void setTransmitter(BluetoothTransmitter transmitter) { remoteLog.setTransmitter(transmitter); }
+
+  /**
+   * Sets the lowest level that is sent to the remote client. Lines are only sent if they are logged at all, see
+   * setLevel().
+   *
+   * @param level The minimum level, or OFF to stop sending lines.
+   * @throws NullPointerException if the level is null
+   */
+  public static void setRemoteLevel(LogLevelEnum level) { remoteLog.setMinLevel(level); }
+
+  /**
+   * Sets the lowest level that is logged.
+   *
+   * @param level The threshold, or OFF to disable logging.
+   * @throws NullPointerException if the level is null
+   */
+  public static void setLevel(LogLevelEnum level) { threshold = level.ordinal(); }
+
+  /**
+   * Returns whether records of the given level are logged. Call sites that have to compute a message can check this
+   * first.
+   *
+   * @param level The level to check.
+   * @return true if records of the level are logged.
+   */
+  public static boolean isEnabled(LogLevelEnum level) { return level.ordinal() >= threshold; }
+
   /**
    * Logs an informational message.
    *
    * @param message The message to log.
    */
-  public static void info(String message) { log(INFO_LEVEL, message, null); }
+  public static void info(String message) { log(LogLevelEnum.INFO, message, ARG_NONE, 0, null, null); }
+
+  /**
+   * Logs an informational message followed by a value.
+   *
+   * @param message The message to log.
+   * @param value   The value appended to the message.
+   */
+  public static void info(String message, int value) { log(LogLevelEnum.INFO, message, ARG_INT, value, null, null); }
+
+  /**
+   * Logs an informational message followed by a value. The value is formatted later by the drainer.
+   *
+   * @param message The message to log.
+   * @param value   The value appended to the message.
+   */
+  public static void info(String message, Object value) {
+    log(LogLevelEnum.INFO, message, ARG_OBJECT, 0, value, null);
+  }
 
   /**
    * Logs a warning message.
    *
    * @param message The message to log.
    */
-  public static void warning(String message) { log(WARNING_LEVEL, message, null); }
+  public static void warning(String message) { log(LogLevelEnum.WARNING, message, ARG_NONE, 0, null, null); }
 
   /**
-   * Logs an error message.
+   * Logs a warning message followed by a value.
+   *
+   * @param message The message to log.
+   * @param value   The value appended to the message.
+   */
+  public static void warning(String message, int value) {
+    log(LogLevelEnum.WARNING, message, ARG_INT, value, null, null);
+  }
+
+  /**
+   * Logs a warning message followed by a value. The value is formatted later by the drainer.
    *
    * @param message The message to log.
+   * @param value   The value appended to the message.
    */
-  public static void warning(String message, Throwable thrown) { log(WARNING_LEVEL, message, thrown); }
+  public static void warning(String message, Object value) {
+    log(LogLevelEnum.WARNING, message, ARG_OBJECT, 0, value, null);
+  }
+
+  /**
+   * Logs a warning message with an exception.
+   *
+   * @param message The message to log.
+   * @param thrown  The exception to log.
+   */
+  public static void warning(String message, Throwable thrown) {
+    log(LogLevelEnum.WARNING, message, ARG_NONE, 0, null, thrown);
+  }
 
   /**
    * Logs an error message.
    *
    * @param message The message to log.
    */
-  public static void error(String message) { log(ERROR_LEVEL, message, null); }
+  public static void error(String message) { log(LogLevelEnum.ERROR, message, ARG_NONE, 0, null, null); }
+
+  /**
+   * Logs an error message followed by a value.
+   *
+   * @param message The message to log.
+   * @param value   The value appended to the message.
+   */
+  public static void error(String message, int value) { log(LogLevelEnum.ERROR, message, ARG_INT, value, null, null); }
+
+  /**
+   * Logs an error message followed by a value. The value is formatted later by the drainer.
+   *
+   * @param message The message to log.
+   * @param value   The value appended to the message.
+   */
+  public static void error(String message, Object value) {
+    log(LogLevelEnum.ERROR, message, ARG_OBJECT, 0, value, null);
+  }
 
   /**
    * Logs an error message with an exception.
@@ -82,5 +278,232 @@ public final class Logger {
    * @param message The message to log.
    * @param thrown  The exception to log.
    */
-  public static void error(String message, Throwable thrown) { log(ERROR_LEVEL, message, thrown); }
+  public static void error(String message, Throwable thrown) {
+    log(LogLevelEnum.ERROR, message, ARG_NONE, 0, null, thrown);
+  }
+
+  /**
+   * Announces the hash of the dictionary to the remote client, if log lines are encoded, so the client can check that
+   * it expands the message IDs with the dictionary of the same build. Called when a client connects and when it selects
+   * a protocol.
+   */
+  public static void announceDictionary() {
+    if (RoboApplication.ENCODE_REMOTE_LOG) {
+      remoteLog.sendDictionary(LogMessages.HASH);
+    }
+  }
+
+  /**
+   * Writes all buffered records on the calling thread. Called on shutdown, as the drainer is a daemon thread.
+   */
+  public static void flush() {
+    while (drain()) {
+      // drain until the ring buffer is empty
+    }
+  }
+
+  /**
+   * Stores a record in the ring buffer, if its level is enabled. Drops the record if the ring buffer is full.
+   *
+   * @param level     The level of the record.
+   * @param message   The message.
+   * @param argKind   The kind of the argument.
+   * @param intArg    The int argument.
+   * @param objectArg The object argument.
+   * @param thrown    The exception, or null.
+   */
+  private static void log(LogLevelEnum level, String message, int argKind, int intArg, Object objectArg,
+                          Throwable thrown) {
+    if (level.ordinal() < threshold) {
+      return;
+    }
+
+    long time = Clock.currentTimeMillis();
+
+    synchronized (lock) {
+      if (size == CAPACITY) {
+        droppedCount++;
+        return;
+      }
+
+      int index = (head + size) % CAPACITY;
+
+      levels[index] = level;
+      times[index] = time;
+      messages[index] = message;
+      argKinds[index] = argKind;
+      intArgs[index] = intArg;
+      objectArgs[index] = objectArg;
+      throwns[index] = thrown;
+      size++;
+    }
+  }
+
+  /**
+   * Writes a batch of up to DRAIN_BATCH buffered records every DRAIN_INTERVAL and sends the summary of the remote lines
+   * dropped by the rate limit, if it is due. Run by the drainer thread.
+   */
+  private static void drainForever() {
+    while (true) {
+      Delay.msDelay(DRAIN_INTERVAL);
+
+      for (int i = 0; i < DRAIN_BATCH && drain(); i++) {
+        // drain a batch
+      }
+
+      remoteLog.sendDropSummary();
+    }
+  }
+
+  /**
+   * Removes the oldest record from the ring buffer and writes it. If records were dropped before, a notice with their
+   * number is written first.
+   *
+   * @return true if a record was written, false if the ring buffer was empty.
+   */
+  private static boolean drain() {
+    LogLevelEnum level;
+    long time;
+    String message;
+    int argKind;
+    int intArg;
+    Object objectArg;
+    Throwable thrown;
+    int dropped;
+
+    synchronized (lock) {
+      if (size == 0) {
+        return false;
+      }
+
+      level = levels[head];
+      time = times[head];
+      message = messages[head];
+      argKind = argKinds[head];
+      intArg = intArgs[head];
+      objectArg = objectArgs[head];
+      thrown = throwns[head];
+
+      messages[head] = null;
+      objectArgs[head] = null;
+      throwns[head] = null;
+
+      head = (head + 1) % CAPACITY;
+      size--;
+
+      dropped = droppedCount;
+      droppedCount = 0;
+    }
+
+    synchronized (writeLock) {
+      if (dropped > 0) {
+        write(LogLevelEnum.WARNING, time, "log records dropped: ", ARG_INT, dropped, null, null);
+      }
+
+      write(level, time, message, argKind, intArg, objectArg, thrown);
+    }
+
+    return true;
+  }
+
+  /**
+   * Formats a record, prints it and sends it to the transmitter. Must be called while holding the write lock.
+   *
+   * @param level     The level of the record.
+   * @param time      The time of the record in milliseconds.
+   * @param message   The message.
+   * @param argKind   The kind of the argument.
+   * @param intArg    The int argument.
+   * @param objectArg The object argument.
+   * @param thrown    The exception, or null.
+   */
+  private static void write(LogLevelEnum level, long time, String message, int argKind, int intArg, Object objectArg,
+                            Throwable thrown) {
+    line.setLength(0);
+    line.append(time);
+    line.append(" [").append(level.getLabel());
+    line.append("] ");
+    line.append(message);
+
+    if (argKind == ARG_INT) {
+      line.append(intArg);
+    } else if (argKind == ARG_OBJECT) {
+      line.append(String.valueOf(objectArg));
+    }
+
+    line.append(LINE_SEPARATOR);
+
+    java.io.PrintStream out = level == LogLevelEnum.ERROR ? System.err : System.out;
+    String msg = line.toString();
+    out.println(msg);
+
+    if (remoteLog.accepts(level)) {
+      sendRemote(level, time, message, argKind, intArg, objectArg, msg);
+    }
+
+    if (thrown != null) {
+      out.print("Stack trace for previous log entry:" + LINE_SEPARATOR);
+      thrown.printStackTrace(out);
+    }
+  }
+
+  /**
+   * Sends a record to the remote client. If encoding is enabled and the message is in the dictionary, the record is
+   * sent as its message ID with the level, the time and the argument, see RemoteLogEvent, otherwise as the formatted
+   * line. Must be called while holding the write lock.
+   *
+   * @param level     The level of the record.
+   * @param time      The time of the record in milliseconds.
+   * @param message   The message.
+   * @param argKind   The kind of the argument.
+   * @param intArg    The int argument.
+   * @param objectArg The object argument.
+   * @param formatted The formatted line.
+   */
+  private static void sendRemote(LogLevelEnum level, long time, String message, int argKind, int intArg,
+                                 Object objectArg, String formatted) {
+    int messageId = RoboApplication.ENCODE_REMOTE_LOG ? getMessageId(message) : -1;
+
+    if (messageId < 0) {
+      remoteLog.send(level, formatted);
+    } else if (argKind == ARG_INT) {
+      remoteLog.sendEncoded(level, messageId, time, RemoteLogEvent.ARG_INT, intArg, null);
+    } else if (argKind == ARG_OBJECT) {
+      remoteLog.sendEncoded(level, messageId, time, RemoteLogEvent.ARG_TEXT, 0, String.valueOf(objectArg));
+    } else {
+      remoteLog.sendEncoded(level, messageId, time, RemoteLogEvent.ARG_NONE, 0, null);
+    }
+  }
+
+  /**
+   * Returns the ID of the message in the dictionary. The dictionary is sorted, so the message is found by binary
+   * search.
+   *
+   * @param message The message to look up.
+   * @return The message ID, or -1 if the message is not in the dictionary.
+   */
+  private static int getMessageId(String message) {
+    if (message == null) {
+      return -1;
+    }
+
+    String[] dictionary = LogMessages.MESSAGES;
+    int low = 0;
+    int high = dictionary.length - 1;
+
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = dictionary[middle].compareTo(message);
+
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+
+    return -1;
+  }
 }
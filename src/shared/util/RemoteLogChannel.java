@@ -0,0 +1,257 @@
+package shared.util;
+
+import domain.event.impl.RemoteLogEvent;
+import io.connection.impl.BluetoothTransmitter;
+import shared.constants.LogLevelEnum;
+import shared.constants.TelemetryTopicEnum;
+
+/**
+ * RemoteLogChannel forwards log lines to the remote client through the BluetoothTransmitter. The lines are filtered by
+ * a minimum level, which the remote client can change, and limited by a token bucket, so a component logging in a
+ * tight loop cannot take the bandwidth of telemetry and control traffic. Lines over the rate limit are dropped and
+ * counted, and the count is sent as a summary line periodically.
+ */
+public final class RemoteLogChannel {
+  /**
+   * Token cost of one line. Tokens are kept in thousandths, so the bucket refills smoothly every millisecond.
+   */
+  private static final long LINE_COST = 1000;
+
+  /**
+   * Number of lines that may be sent per second on average.
+   */
+  private final int ratePerSecond;
+
+  /**
+   * Maximum number of tokens, in thousandths.
+   */
+  private final long capacity;
+
+  /**
+   * Minimum delay in milliseconds between two drop summaries.
+   */
+  private final int summaryDelay;
+
+  /**
+   * The transmitter the lines are sent to, null if there is no remote client.
+   */
+  private volatile BluetoothTransmitter transmitter = null;
+
+  /**
+   * Ordinal of the lowest level that is sent to the remote client.
+   */
+  private volatile int minLevel = LogLevelEnum.INFO.ordinal();
+
+  /**
+   * Available tokens, in thousandths.
+   */
+  private long tokens;
+
+  /**
+   * Time in milliseconds when the bucket was refilled last.
+   */
+  private long lastRefillTime;
+
+  /**
+   * Number of lines dropped since the last summary.
+   */
+  private int droppedCount = 0;
+
+  /**
+   * Number of lines dropped since the channel was created.
+   */
+  private int totalDroppedCount = 0;
+
+  /**
+   * Time in milliseconds when the last summary was sent.
+   */
+  private long lastSummaryTime = 0;
+
+  /**
+   * Constructor for the RemoteLogChannel class.
+   *
+   * @param ratePerSecond the number of lines that may be sent per second on average
+   * @param burst         the number of lines that may be sent at once after a quiet period
+   * @param summaryDelay  the minimum delay in milliseconds between two drop summaries
+   * @throws IllegalArgumentException if the rate or the burst is not positive or the delay is negative
+   */
+  public RemoteLogChannel(int ratePerSecond, int burst, int summaryDelay) {
+    if (ratePerSecond <= 0 || burst <= 0) {
+      throw new IllegalArgumentException("Rate and burst must be positive");
+    }
+
+    if (summaryDelay < 0) {
+      throw new IllegalArgumentException("Summary delay cannot be negative");
+    }
+
+    this.ratePerSecond = ratePerSecond;
+    this.capacity = burst * LINE_COST;
+    this.summaryDelay = summaryDelay;
+    this.tokens = this.capacity;
+    this.lastRefillTime = Clock.currentTimeMillis();
+  }
+
+  /**
+   * Sets the transmitter the lines are sent to.
+   *
+   * @param transmitter the transmitter, or null if there is no remote client
+   */
+  public void setTransmitter(BluetoothTransmitter transmitter) { this.transmitter = transmitter; }
+
+  /**
+   * Sets the lowest level that is sent to the remote client.
+   *
+   * @param level the minimum level, or OFF to stop sending lines
+   * @throws NullPointerException if the level is null
+   */
+  public void setMinLevel(LogLevelEnum level) { this.minLevel = level.ordinal(); }
+
+  /**
+   * Returns the lowest level that is sent to the remote client.
+   *
+   * @return the minimum level.
+   */
+  public LogLevelEnum getMinLevel() { return LogLevelEnum.values()[this.minLevel]; }
+
+  /**
+   * Returns whether lines of the given level are sent to the remote client, if the rate limit allows it. Callers can
+   * check this before they prepare a line.
+   *
+   * @param level the level of the line
+   * @return true if a remote client is subscribed to the log and the level is at least the minimum level.
+   */
+  public boolean accepts(LogLevelEnum level) {
+    return level.ordinal() >= this.minLevel && isSubscribed(this.transmitter);
+  }
+
+  /**
+   * Sends the line to the remote client, if its level is at least the minimum level and a token is available.
+   * Otherwise, a line over the rate limit is dropped and counted.
+   *
+   * @param level the level of the line
+   * @param line  the formatted line
+   */
+  public synchronized void send(LogLevelEnum level, String line) {
+    BluetoothTransmitter transmitter = this.transmitter;
+
+    if (this.takeToken(transmitter, level)) {
+      transmitter.addExposableEvent(new RemoteLogEvent(line));
+    }
+  }
+
+  /**
+   * Sends a message of the dictionary to the remote client as its message ID, under the same conditions as send().
+   *
+   * @param level     the level of the message
+   * @param messageId the ID of the message in LogMessages
+   * @param time      the time of the message in milliseconds
+   * @param argKind   the argument kind, see RemoteLogEvent
+   * @param intArg    the int argument
+   * @param textArg   the text argument, or null if the kind is not RemoteLogEvent.ARG_TEXT
+   */
+  public synchronized void sendEncoded(LogLevelEnum level, int messageId, long time, int argKind, int intArg,
+                                       String textArg) {
+    BluetoothTransmitter transmitter = this.transmitter;
+
+    if (this.takeToken(transmitter, level)) {
+      transmitter.addExposableEvent(new RemoteLogEvent(messageId, level, time, argKind, intArg, textArg));
+    }
+  }
+
+  /**
+   * Announces the hash of the dictionary the message IDs refer to, if a remote client is subscribed to the log. The
+   * announcement is not subject to the rate limit.
+   *
+   * @param dictionaryHash the hash of the dictionary, see LogMessages.HASH
+   */
+  public void sendDictionary(int dictionaryHash) {
+    BluetoothTransmitter transmitter = this.transmitter;
+
+    if (isSubscribed(transmitter)) {
+      transmitter.addExposableEvent(RemoteLogEvent.dictionaryOf(dictionaryHash));
+    }
+  }
+
+  /**
+   * Takes a token for a line of the given level, if its level is at least the minimum level and a remote client is
+   * subscribed to the log. A line over the rate limit is counted as dropped. Must be called while holding the lock of
+   * the channel.
+   *
+   * @param transmitter the transmitter the line is sent to
+   * @param level       the level of the line
+   * @return true if the line may be sent.
+   */
+  private boolean takeToken(BluetoothTransmitter transmitter, LogLevelEnum level) {
+    if (!isSubscribed(transmitter) || level.ordinal() < this.minLevel) {
+      return false;
+    }
+
+    this.refill();
+
+    if (this.tokens < LINE_COST) {
+      this.droppedCount++;
+      this.totalDroppedCount++;
+      return false;
+    }
+
+    this.tokens -= LINE_COST;
+
+    return true;
+  }
+
+  /**
+   * Sends the number of lines dropped since the last summary, if lines were dropped and the summary delay has passed.
+   * The summary is not subject to the rate limit. Called periodically by the log drainer.
+   */
+  public synchronized void sendDropSummary() {
+    BluetoothTransmitter transmitter = this.transmitter;
+
+    if (transmitter == null || this.droppedCount == 0) {
+      return;
+    }
+
+    long now = Clock.currentTimeMillis();
+
+    if (now - this.lastSummaryTime < this.summaryDelay) {
+      return;
+    }
+
+    transmitter.addExposableEvent(new RemoteLogEvent(this.droppedCount + " lines dropped"));
+
+    this.droppedCount = 0;
+    this.lastSummaryTime = now;
+  }
+
+  /**
+   * Returns the number of lines dropped by the rate limit since the channel was created.
+   *
+   * @return the number of dropped lines.
+   */
+  public synchronized int getDroppedCount() { return this.totalDroppedCount; }
+
+  /**
+   * Returns whether the remote client is subscribed to the LOG topic. Lines of an unsubscribed client do not take
+   * tokens.
+   *
+   * @param transmitter the transmitter the lines are sent to, may be null
+   * @return true if the transmitter is not null and the topic is subscribed.
+   */
+  private static boolean isSubscribed(BluetoothTransmitter transmitter) {
+    return transmitter != null && transmitter.isSubscribed(TelemetryTopicEnum.LOG);
+  }
+
+  /**
+   * Adds the tokens earned since the last refill, up to the capacity of the bucket.
+   */
+  private void refill() {
+    long now = Clock.currentTimeMillis();
+    long elapsed = now - this.lastRefillTime;
+
+    if (elapsed <= 0) {
+      return;
+    }
+
+    this.tokens = Math.min(this.capacity, this.tokens + elapsed * this.ratePerSecond);
+    this.lastRefillTime = now;
+  }
+}
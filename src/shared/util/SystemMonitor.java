@@ -1,6 +1,13 @@
 package shared.util;
 
 import app.Config;
+import domain.event.DispatchProfiler;
+import domain.event.EventManager;
+import domain.event.impl.DispatchStatsEvent;
+import io.connection.impl.BluetoothReceiver;
+import io.connection.impl.BluetoothTransmitter;
+import shared.constants.EventPriorityEnum;
+import shared.constants.LogLevelEnum;
 
 /**
  * The SystemMonitor class is responsible for monitoring the system's memory usage and logging it
@@ -19,12 +26,98 @@ public final class SystemMonitor {
    */
   private static long lastLogTime = 0;
 
+  /**
+   * The event manager whose queue depth is logged together with the memory usage, if it queues events.
+   */
+  private static EventManager eventManager = null;
+
+  /**
+   * The transmitter whose outbound queue depth is logged together with the memory usage.
+   */
+  private static BluetoothTransmitter transmitter = null;
+
+  /**
+   * The receiver whose inbound backlog is logged together with the memory usage.
+   */
+  private static BluetoothReceiver receiver = null;
+
+  /**
+   * The delay in milliseconds between two dispatch statistics events.
+   */
+  private static final int DISPATCH_STATS_DELAY = Config.DISPATCH_STATS_DELAY.getIntValue();
+
+  /**
+   * The last time the dispatch statistics were exposed.
+   */
+  private static long lastDispatchStatsTime = 0;
+
+  /**
+   * The reused event carrying the dispatch statistics, created on the first exposure.
+   */
+  private static DispatchStatsEvent dispatchStatsEvent = null;
+
+  /**
+   * Sets the event manager whose queue and dispatch statistics are monitored.
+   *
+   * @param eventManager The event manager to monitor.
+   */
+  public static void setEventManager(EventManager eventManager) { SystemMonitor.eventManager = eventManager; }
+
+  /**
+   * Sets the transmitter whose outbound queue is monitored.
+   *
+   * @param transmitter The transmitter to monitor.
+   */
+  public static void setTransmitter(BluetoothTransmitter transmitter) { SystemMonitor.transmitter = transmitter; }
+
+  /**
+   * Sets the receiver whose inbound backlog is monitored.
+   *
+   * @param receiver The receiver to monitor.
+   */
+  public static void setReceiver(BluetoothReceiver receiver) { SystemMonitor.receiver = receiver; }
+
+  /**
+   * Dispatches a snapshot of the dispatch statistics periodically, so they are streamed to the remote client. Does
+   * nothing if no event manager is set or it has no profiler attached.
+   */
+  public static void exposeDispatchStats() {
+    if (eventManager == null) {
+      return;
+    }
+
+    DispatchProfiler profiler = eventManager.getProfiler();
+
+    if (profiler == null) {
+      return;
+    }
+
+    long now = Clock.currentTimeMillis();
+
+    if (now - lastDispatchStatsTime < DISPATCH_STATS_DELAY) {
+      return;
+    }
+
+    lastDispatchStatsTime = now;
+
+    if (dispatchStatsEvent == null) {
+      dispatchStatsEvent = new DispatchStatsEvent();
+    }
+
+    dispatchStatsEvent.update(profiler);
+    eventManager.dispatch(dispatchStatsEvent);
+  }
+
   /**
    * Logs the current memory usage of the system. It calculates the used and total memory and logs
-   * them in a human-readable format.
+   * them in a human-readable format. If a transmitter is set, its current and highest outbound queue depth and the
+   * number of dropped log lines, dropped other events and decimated sensor readings are added.
+   * If an event manager is set, the number of expired events is logged as well. If it queues events, the current queue
+   * depth, the highest depth per lane and the number of dropped and merged events are added. Nothing is computed if
+   * informational messages are not logged.
    */
   public static void logMemoryUsage() {
-    long now = System.currentTimeMillis();
+    long now = Clock.currentTimeMillis();
 
     if (now - lastLogTime < LOG_DELAY) {
       return;
@@ -32,11 +125,42 @@ public final class SystemMonitor {
 
     lastLogTime = now;
 
+    // the line is built eagerly, so skip it entirely if it would be filtered
+    if (!Logger.isEnabled(LogLevelEnum.INFO)) {
+      return;
+    }
+
     Runtime runtime = Runtime.getRuntime();
     long used = runtime.totalMemory() - runtime.freeMemory();
     long total = runtime.totalMemory();
+    String usage = formatBytes(used) + "/" + formatBytes(total);
+
+    if (transmitter != null) {
+      usage += " tx:" + transmitter.getQueueDepth() + "/" + transmitter.getMaxQueueDepth() + " txdrop:" +
+               transmitter.getDroppedLogCount() + "/" + transmitter.getDroppedEventCount() + "/" +
+               transmitter.getDecimatedSensorCount() + " txstarved:" + transmitter.getStarvedExposeCount();
+    }
+
+    if (receiver != null) {
+      usage += " rx:" + receiver.getBacklog() + "/" + receiver.getMaxBacklog() + " rxmerged:" +
+               receiver.getCollapsedMoveCount();
+    }
+
+    if (eventManager == null) {
+      Logger.info(usage);
+      return;
+    }
+
+    if (!eventManager.isQueued()) {
+      Logger.info(usage + " exp:" + eventManager.getExpiredEventCount());
+      return;
+    }
 
-    Logger.info(formatBytes(used) + "/" + formatBytes(total));
+    Logger.info(usage + " exp:" + eventManager.getExpiredEventCount() + " q:" +
+                eventManager.getQueueDepth() + " hw:" + eventManager.getMaxQueueDepth(EventPriorityEnum.SAFETY) + "/" +
+                eventManager.getMaxQueueDepth(EventPriorityEnum.CONTROL) + "/" +
+                eventManager.getMaxQueueDepth(EventPriorityEnum.TELEMETRY) + " drop:" +
+                eventManager.getDroppedEventCount() + " merged:" + eventManager.getCoalescedEventCount());
   }
 
   /**